@@ -0,0 +1,90 @@
+package benchmarks;
+
+import encryption.AESUtil;
+import encryption.AesGcmSession;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the static {@link AESUtil} methods with the session engine {@link AesGcmSession}
+ * for a small request and for signal sized payloads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AesBenchmark {
+
+    /** Payload size in bytes: a small JSON request, then 1 MB and 8 MB signal responses. */
+    @Param({"256", "1048576", "8388608"})
+    public int payloadSize;
+
+    private SecretKey key;
+    private AesGcmSession session;
+    private String plainText;
+    private byte[] plainBytes;
+    private String encryptedBase64;
+    private byte[] encryptedBytes;
+    private ByteBuffer plainBuffer;
+    private ByteBuffer encryptedBuffer;
+    private ByteBuffer outputBuffer;
+
+    @Setup
+    public void setup() throws Exception {
+        key = AESUtil.generateAESKey();
+        session = new AesGcmSession(key);
+        char[] json = new char[payloadSize];
+        Arrays.fill(json, 'A');
+        plainText = new String(json);
+        plainBytes = plainText.getBytes(StandardCharsets.UTF_8);
+        encryptedBase64 = AESUtil.encrypt(plainText, key);
+        encryptedBytes = Base64.getDecoder().decode(encryptedBase64);
+        plainBuffer = ByteBuffer.allocateDirect(payloadSize);
+        plainBuffer.put(plainBytes).flip();
+        encryptedBuffer = ByteBuffer.allocateDirect(encryptedBytes.length);
+        encryptedBuffer.put(encryptedBytes).flip();
+        outputBuffer = ByteBuffer.allocateDirect(AesGcmSession.encryptedLength(payloadSize));
+    }
+
+    @Benchmark
+    public String encryptAESUtil() throws Exception {
+        return AESUtil.encrypt(plainText, key);
+    }
+
+    @Benchmark
+    public String decryptAESUtil() throws Exception {
+        return AESUtil.decrypt(encryptedBase64, key);
+    }
+
+    @Benchmark
+    public byte[] encryptSession() throws Exception {
+        return session.encrypt(plainBytes);
+    }
+
+    @Benchmark
+    public byte[] decryptSession() throws Exception {
+        return session.decrypt(encryptedBytes);
+    }
+
+    @Benchmark
+    public int encryptSessionByteBuffer() throws Exception {
+        plainBuffer.rewind();
+        outputBuffer.clear();
+        return session.encrypt(plainBuffer, outputBuffer);
+    }
+
+    @Benchmark
+    public int decryptSessionByteBuffer() throws Exception {
+        encryptedBuffer.rewind();
+        outputBuffer.clear();
+        return session.decrypt(encryptedBuffer, outputBuffer);
+    }
+}
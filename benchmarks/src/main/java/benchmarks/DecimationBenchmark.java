@@ -0,0 +1,47 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ui.components.MinMaxPyramid;
+import ui.components.SignalGraphPanel;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the points computed for one frame of {@code SignalGraphPanel} on an 8 h recording
+ * at 1 kHz, for windows from one second to the whole night. The time should not depend on
+ * the length of the window.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class DecimationBenchmark {
+
+    private static final int COLUMNS = 1200;
+
+    @Param({"1", "60", "3600", "28800"})
+    public int windowSeconds;
+
+    private double[] ecg;
+    private MinMaxPyramid pyramid;
+    private final double[] xs = new double[2 * COLUMNS];
+    private final double[] ys = new double[2 * COLUMNS];
+    private int start;
+
+    @Setup
+    public void setup() {
+        ecg = SignalGraphPanel.preprocessSignal(Fixtures.ecg(8, 1000));
+        pyramid = new MinMaxPyramid();
+        pyramid.append(ecg, 0, ecg.length);
+    }
+
+    @Benchmark
+    public int decimateWindow() {
+        int window = windowSeconds * 1000;
+        // Scroll a little on every frame
+        start = (start + 997) % (ecg.length - window + 1);
+        return pyramid.decimate(ecg, start, start + window, COLUMNS, xs, ys);
+    }
+}
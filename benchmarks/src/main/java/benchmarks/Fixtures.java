@@ -0,0 +1,140 @@
+package benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import pojos.SymptomType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Realistic, reproducible inputs shared by the benchmarks: recordings with the layout of the
+ * BITalino exports ({@code ecg;acc} per line) and the JSON sent by the server for patient lists.
+ * Every fixture is generated from a fixed seed, so all runs measure the same data.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * Generates the raw ECG samples of a recording: a 72 bpm QRS-like pulse over a
+     * 10-bit ADC baseline, with breathing wander and noise.
+     *
+     * @param hours        duration of the recording
+     * @param samplingRate samples per second
+     * @return the ECG samples
+     */
+    static double[] ecg(int hours, int samplingRate) {
+        int n = hours * 3600 * samplingRate;
+        double[] ecg = new double[n];
+        Random random = new Random(42);
+        double beatPeriod = samplingRate * 60.0 / 72;
+        for (int i = 0; i < n; i++) {
+            double phase = (i % beatPeriod) / beatPeriod;
+            double qrs = Math.exp(-Math.pow((phase - 0.3) * 40, 2)) * 300;
+            double wander = 20 * Math.sin(2 * Math.PI * i / (samplingRate * 4.0));
+            ecg[i] = Math.round(512 + qrs + wander + random.nextGaussian() * 5);
+        }
+        return ecg;
+    }
+
+    /**
+     * Generates the CSV of a recording as stored inside the signal ZIPs.
+     *
+     * @param hours        duration of the recording
+     * @param samplingRate samples per second
+     * @return the CSV bytes
+     */
+    static byte[] signalCsv(int hours, int samplingRate) {
+        double[] ecg = ecg(hours, samplingRate);
+        Random random = new Random(7);
+        StringBuilder sb = new StringBuilder(ecg.length * 16);
+        for (double v : ecg) {
+            double acc = Math.round((1 + random.nextGaussian() * 0.05) * 10000) / 10000.0;
+            sb.append(v).append(';').append(acc).append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Wraps a signal CSV in a ZIP, as sent by the server.
+     *
+     * @param csv the CSV bytes
+     * @return the ZIP bytes
+     */
+    static byte[] signalZip(byte[] csv) {
+        try {
+            ByteArrayOutputStream zip = new ByteArrayOutputStream(csv.length / 3);
+            try (ZipOutputStream zos = new ZipOutputStream(zip)) {
+                zos.putNextEntry(new ZipEntry("signal.csv"));
+                zos.write(csv);
+                zos.closeEntry();
+            }
+            return zip.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Generates a {@code REQUEST_PATIENTS_FROM_DOCTOR_RESPONSE} with the given number of
+     * patients, each one with a few recordings and a month of symptom reports.
+     *
+     * @param patients number of patients in the list
+     * @return the JSON of the response
+     */
+    static String patientsResponse(int patients) {
+        Random random = new Random(3);
+        SymptomType[] symptomTypes = SymptomType.values();
+        JsonArray array = new JsonArray();
+        for (int id = 1; id <= patients; id++) {
+            JsonObject patient = new JsonObject();
+            patient.addProperty("id", id);
+            patient.addProperty("name", "Name" + id);
+            patient.addProperty("surname", "Surname" + id);
+            patient.addProperty("email", "patient" + id + "@nightguardian.com");
+            patient.addProperty("contact", 600000000 + id);
+            patient.addProperty("dateOfBirth", LocalDate.of(1950, 1, 1).plusDays(random.nextInt(25000)).toString());
+            patient.addProperty("gender", random.nextBoolean() ? "Female" : "Male");
+            patient.addProperty("doctorId", 1);
+
+            JsonArray signals = new JsonArray();
+            for (int s = 0; s < 3; s++) {
+                JsonObject signal = new JsonObject();
+                signal.addProperty("id", id * 10 + s);
+                signal.addProperty("comments", "Night recording " + s);
+                signal.addProperty("sampleFrequency", 1000);
+                signal.addProperty("date", LocalDate.of(2025, 1, 1).plusDays(s * 7L).toString());
+                signals.add(signal);
+            }
+            patient.add("signals", signals);
+
+            JsonArray reports = new JsonArray();
+            for (int r = 0; r < 30; r++) {
+                JsonObject report = new JsonObject();
+                report.addProperty("id", id * 100 + r);
+                report.addProperty("date", LocalDate.of(2025, 1, 1).plusDays(r).toString());
+                report.addProperty("patientId", id);
+                JsonArray symptoms = new JsonArray();
+                for (int k = 0; k < 1 + random.nextInt(3); k++) {
+                    symptoms.add(symptomTypes[random.nextInt(symptomTypes.length)].name());
+                }
+                report.add("symptoms", symptoms);
+                reports.add(report);
+            }
+            patient.add("reports", reports);
+            array.add(patient);
+        }
+        JsonObject response = new JsonObject();
+        response.addProperty("type", "REQUEST_PATIENTS_FROM_DOCTOR_RESPONSE");
+        response.addProperty("status", "SUCCESS");
+        response.add("patients", array);
+        return response.toString();
+    }
+}
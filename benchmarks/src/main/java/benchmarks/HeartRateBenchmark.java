@@ -0,0 +1,53 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import processing.HeartRateSeries;
+import processing.RPeakDetector;
+import processing.SignalAnalysis;
+
+import java.nio.DoubleBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the analysis run in the background when a recording is opened, over 1 h and 24 h
+ * recordings at 1 kHz: the R peak detection alone, and together with the seizure candidate
+ * detection, which reads the ACC in the same pass.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class HeartRateBenchmark {
+
+    @Param({"1", "24"})
+    public int durationHours;
+
+    @Param({"1000"})
+    public int samplingRate;
+
+    private DoubleBuffer ecg;
+    private DoubleBuffer acc;
+
+    @Setup
+    public void setup() {
+        ecg = DoubleBuffer.wrap(Fixtures.ecg(durationHours, samplingRate));
+        // The ACC of the exported recordings: about 1 g with noise
+        Random random = new Random(7);
+        double[] samples = new double[ecg.capacity()];
+        for (int i = 0; i < samples.length; i++) samples[i] = 1 + random.nextGaussian() * 0.05;
+        acc = DoubleBuffer.wrap(samples);
+    }
+
+    @Benchmark
+    public HeartRateSeries detectRPeaks() {
+        return RPeakDetector.detect(ecg, ecg.capacity(), samplingRate);
+    }
+
+    @Benchmark
+    public SignalAnalysis.Result analyzeRecording() {
+        return SignalAnalysis.analyze(ecg, acc, ecg.capacity(), samplingRate);
+    }
+}
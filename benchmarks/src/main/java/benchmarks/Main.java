@@ -0,0 +1,23 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of {@code benchmarks.jar}. Runs JMH with the GC profiler enabled, so every
+ * result reports the allocation rate next to the throughput. Any JMH option can be given,
+ * for example a benchmark name or {@code -p samplingRate=1000}; passing {@code -prof}
+ * replaces the default profiler.
+ */
+public class Main {
+
+    public static void main(String[] args) throws Exception {
+        List<String> jmhArgs = new ArrayList<>(Arrays.asList(args));
+        if (!jmhArgs.contains("-prof")) {
+            jmhArgs.add("-prof");
+            jmhArgs.add("gc");
+        }
+        org.openjdk.jmh.Main.main(jmhArgs.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,48 @@
+package benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.openjdk.jmh.annotations.*;
+import pojos.Patient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the Gson parsing done by {@code Client} when a doctor's patient list arrives,
+ * from the JSON text to the list of {@link Patient}s, for 10 to 10,000 patients.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PatientListBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int patients;
+
+    private final Gson gson = new Gson();
+    private String json;
+
+    @Setup
+    public void setup() {
+        json = Fixtures.patientsResponse(patients);
+    }
+
+    @Benchmark
+    public List<Patient> parsePatients() {
+        // Same steps as the listener and Client.getPatientsFromDoctorAsync
+        JsonObject response = gson.fromJson(json, JsonObject.class);
+        JsonArray array = response.getAsJsonArray("patients");
+        List<Patient> result = new ArrayList<>(array.size());
+        for (JsonElement element : array) {
+            result.add(Patient.fromJason(element.getAsJsonObject()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,77 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import pojos.Patient;
+import ui.components.PatientSearchIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the surname scan that {@code SearchPatients} used to run on every search with a query
+ * on the {@link PatientSearchIndex}, and measures how long building the index takes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PatientSearchBenchmark {
+
+    @Param({"1000", "50000"})
+    public int patients;
+
+    // A surname being typed, and a name with the start of a surname
+    @Param({"garc", "lucia mar"})
+    public String query;
+
+    private List<Patient> list;
+    private PatientSearchIndex index;
+
+    @Setup
+    public void setup() {
+        String[] names = {"María", "Lucía", "Carmen", "Ana", "Laura", "Marta", "Elena", "Sara", "Paula", "Julia",
+                "José", "Antonio", "Manuel", "Francisco", "David", "Juan", "Javier", "Daniel", "Carlos", "Pablo"};
+        String[] surnames = {"García", "Rodríguez", "González", "Fernández", "López", "Martínez", "Sánchez", "Pérez",
+                "Gómez", "Martín", "Jiménez", "Ruiz", "Hernández", "Díaz", "Moreno", "Muñoz", "Álvarez", "Romero",
+                "Alonso", "Gutiérrez", "Navarro", "Torres", "Domínguez", "Vázquez", "Ramos", "Gil", "Ramírez",
+                "Serrano", "Blanco", "Molina", "Morales", "Suárez", "Ortega", "Delgado", "Castro", "Ortiz", "Rubio",
+                "Marín", "Sanz", "Núñez"};
+        Random random = new Random(5);
+        list = new ArrayList<>(patients);
+        for (int id = 1; id <= patients; id++) {
+            Patient p = new Patient();
+            p.setId(id);
+            p.setName(names[random.nextInt(names.length)]);
+            p.setSurname(surnames[random.nextInt(surnames.length)] + " " + surnames[random.nextInt(surnames.length)]);
+            p.setEmail("patient" + id + "@nightguardian.com");
+            list.add(p);
+        }
+        index = new PatientSearchIndex(list);
+    }
+
+    @Benchmark
+    public List<Patient> linearScan() {
+        String search = query.trim().toLowerCase(Locale.ROOT);
+        return list.stream()
+                .filter(p -> p.getSurname().toLowerCase().contains(search))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Patient> indexedSearch() {
+        return index.search(query);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public PatientSearchIndex buildIndex() {
+        return new PatientSearchIndex(list);
+    }
+}
@@ -0,0 +1,90 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import processing.SignalPreprocessor;
+import ui.components.MinMaxPyramid;
+import ui.components.SignalGraphPanel;
+
+import java.nio.DoubleBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the centering and normalization done before a recording is displayed,
+ * for 1 h and 8 h recordings at 100 Hz and 1 kHz: the original three-pass version, the
+ * version writing into a reused buffer, and the indexing done by {@code SignalGraphPanel}
+ * when a recording is opened, sequential and split across the cores.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class PreprocessBenchmark {
+
+    @Param({"1", "8"})
+    public int durationHours;
+
+    @Param({"100", "1000"})
+    public int samplingRate;
+
+    private double[] ecg;
+    private double[] buffer;
+
+    @Setup
+    public void setup() {
+        ecg = Fixtures.ecg(durationHours, samplingRate);
+        buffer = new double[ecg.length];
+    }
+
+    @Benchmark
+    public double[] preprocessSignal() {
+        return SignalGraphPanel.preprocessSignal(ecg);
+    }
+
+    @Benchmark
+    public double[] preprocessIntoBuffer() {
+        return SignalGraphPanel.preprocessSignal(ecg, buffer);
+    }
+
+    @Benchmark
+    public double[] threePassBaseline() {
+        // The implementation of preprocessSignal before the fused, parallel one
+        int n = ecg.length;
+        double[] processed = new double[n];
+        double sum = 0;
+        for (double v : ecg) sum += v;
+        double mean = sum / n;
+        double maxAbs = 0;
+        for (int i = 0; i < n; i++) {
+            processed[i] = ecg[i] - mean;
+            if (Math.abs(processed[i]) > maxAbs) maxAbs = Math.abs(processed[i]);
+        }
+        if (maxAbs > 0) {
+            for (int i = 0; i < n; i++) processed[i] /= maxAbs;
+        }
+        return processed;
+    }
+
+    @Benchmark
+    public MinMaxPyramid indexSequential() {
+        // What the panel did on the EDT: one pass for the statistics, then the pyramid
+        double sum = 0, min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        for (double v : ecg) {
+            sum += v;
+            if (v < min) min = v;
+            if (v > max) max = v;
+        }
+        MinMaxPyramid pyramid = new MinMaxPyramid();
+        pyramid.append(ecg, 0, ecg.length);
+        return sum + min + max == 0 ? null : pyramid;
+    }
+
+    @Benchmark
+    public MinMaxPyramid indexParallel() {
+        DoubleBuffer samples = DoubleBuffer.wrap(ecg);
+        SignalPreprocessor.Statistics stats = SignalPreprocessor.statistics(samples, 0, ecg.length);
+        MinMaxPyramid pyramid = MinMaxPyramid.build(samples, ecg.length);
+        return stats.count() == 0 ? null : pyramid;
+    }
+}
@@ -0,0 +1,42 @@
+package benchmarks;
+
+import encryption.RSAKeyManager;
+import encryption.RSAUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.KeyPair;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the RSA operations of the handshake and of the password change: encrypting
+ * and decrypting a token or a short JSON message.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RsaBenchmark {
+
+    private KeyPair keyPair;
+    private String message;
+    private String encrypted;
+
+    @Setup
+    public void setup() throws Exception {
+        keyPair = RSAKeyManager.generateKeyPair();
+        message = "{\"type\":\"CHANGE_PASSWORD_REQUEST\",\"data\":{\"email\":\"doctor@nightguardian.com\"}}";
+        encrypted = RSAUtil.encrypt(message, keyPair.getPublic());
+    }
+
+    @Benchmark
+    public String encrypt() throws Exception {
+        return RSAUtil.encrypt(message, keyPair.getPublic());
+    }
+
+    @Benchmark
+    public String decrypt() throws Exception {
+        return RSAUtil.decrypt(encrypted, keyPair.getPrivate());
+    }
+}
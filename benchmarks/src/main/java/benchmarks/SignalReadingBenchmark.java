@@ -0,0 +1,47 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import pojos.Signal;
+import ui.ECGFileReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how fast a downloaded recording is turned into samples: parsing the CSV and
+ * reading it from the signal ZIP, for 1 h and 8 h recordings at 100 Hz and 1 kHz.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+@State(Scope.Benchmark)
+public class SignalReadingBenchmark {
+
+    @Param({"1", "8"})
+    public int durationHours;
+
+    @Param({"100", "1000"})
+    public int samplingRate;
+
+    private byte[] csv;
+    private byte[] zip;
+
+    @Setup
+    public void setup() {
+        csv = Fixtures.signalCsv(durationHours, samplingRate);
+        zip = Fixtures.signalZip(csv);
+    }
+
+    @Benchmark
+    public Signal readCsv() throws IOException {
+        return ECGFileReader.readSignalFromCsv(new ByteArrayInputStream(csv), samplingRate);
+    }
+
+    @Benchmark
+    public Signal readZip() throws IOException {
+        return ECGFileReader.readSignalFromZip(new ByteArrayInputStream(zip), samplingRate);
+    }
+}
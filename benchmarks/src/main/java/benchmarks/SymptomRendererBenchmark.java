@@ -0,0 +1,156 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import pojos.Report;
+import pojos.SymptomType;
+import ui.components.SymptomCalendarModel;
+import ui.components.SymptomCellRenderer;
+
+import javax.swing.*;
+import javax.swing.table.TableCellRenderer;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repaints a month of the symptom calendar, rendering its 42 cells as {@link JTable} does, with
+ * the component-based renderer that {@code PatientInfo} used before and with
+ * {@link SymptomCellRenderer}. Run with the GC profiler (the default of {@link Main}) to compare
+ * the bytes allocated per repaint.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class SymptomRendererBenchmark {
+    private static final int CELL_WIDTH = 110;
+    private static final int CELL_HEIGHT = 65;
+
+    private JTable table;
+    private SymptomCalendarModel model;
+    private CellRendererPane rendererPane;
+    private BufferedImage image;
+    private TableCellRenderer legacy;
+    private TableCellRenderer painted;
+    private TableCellRenderer empty;
+
+    @Setup
+    public void setup() {
+        // Three symptoms on most days of the month
+        Random random = new Random(11);
+        SymptomType[] types = SymptomType.values();
+        List<Report> reports = new ArrayList<>();
+        for (int day = 1; day <= 31; day++) {
+            List<SymptomType> symptoms = new ArrayList<>();
+            for (int s = 0; s < 3; s++) symptoms.add(types[random.nextInt(types.length)]);
+            reports.add(new Report(LocalDate.of(2025, 1, day), symptoms, 1, 1));
+        }
+        model = new SymptomCalendarModel(reports);
+        model.setMonth(YearMonth.of(2025, 1));
+        table = new JTable(model);
+        rendererPane = new CellRendererPane();
+        table.add(rendererPane);
+        image = new BufferedImage(CELL_WIDTH * 7, CELL_HEIGHT * 6, BufferedImage.TYPE_INT_RGB);
+
+        Map<String, Color> colors = new HashMap<>();
+        for (SymptomType type : types) {
+            colors.put(type.name(), new Color(random.nextInt(0xFFFFFF)));
+        }
+        legacy = new LegacySymptomCellRenderer(colors);
+        painted = new SymptomCellRenderer(colors);
+        JComponent blank = new JComponent() {
+        };
+        empty = (t, value, isSelected, hasFocus, row, column) -> blank;
+    }
+
+    @TearDown
+    public void tearDown() {
+        image.flush();
+    }
+
+    @Benchmark
+    public void legacyRenderer() {
+        repaint(legacy);
+    }
+
+    @Benchmark
+    public void paintedRenderer() {
+        repaint(painted);
+    }
+
+    /**
+     * Cells that paint nothing: the cost of the {@link CellRendererPane} itself, which creates a
+     * {@link Graphics} for every cell.
+     */
+    @Benchmark
+    public void emptyCells() {
+        repaint(empty);
+    }
+
+    private void repaint(TableCellRenderer renderer) {
+        Graphics2D g = image.createGraphics();
+        try {
+            for (int row = 0; row < model.getRowCount(); row++) {
+                for (int column = 0; column < model.getColumnCount(); column++) {
+                    Component c = renderer.getTableCellRendererComponent(table, model.getValueAt(row, column),
+                            false, false, row, column);
+                    rendererPane.paintComponent(g, c, table, column * CELL_WIDTH, row * CELL_HEIGHT,
+                            CELL_WIDTH, CELL_HEIGHT, true);
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * The renderer {@code PatientInfo} used before, reading the typed cells.
+     */
+    private static class LegacySymptomCellRenderer extends JPanel implements TableCellRenderer {
+        private final Map<String, Color> symptomColors;
+
+        LegacySymptomCellRenderer(Map<String, Color> symptomColors) {
+            this.symptomColors = symptomColors;
+            setOpaque(true);
+            setLayout(new BorderLayout());
+        }
+
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                       boolean hasFocus, int row, int column) {
+            removeAll();
+            setBackground(Color.WHITE);
+            setLayout(new BorderLayout());
+
+            JLabel dayLabel = new JLabel();
+            dayLabel.setFont(dayLabel.getFont().deriveFont(Font.BOLD, 12f));
+            dayLabel.setHorizontalAlignment(SwingConstants.LEFT);
+
+            if (value instanceof SymptomCalendarModel.Day day) {
+                dayLabel.setText(Integer.toString(day.date().getDayOfMonth()));
+                add(dayLabel, BorderLayout.NORTH);
+                if (!day.symptoms().isEmpty()) {
+                    JPanel symptomsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 2, 2));
+                    StringJoiner tooltip = new StringJoiner(", ");
+                    for (SymptomType symptom : day.symptoms()) {
+                        JPanel box = new JPanel();
+                        box.setBackground(symptomColors.getOrDefault(symptom.name(), Color.LIGHT_GRAY));
+                        box.setPreferredSize(new Dimension(15, 15));
+                        symptomsPanel.add(box);
+                        tooltip.add(symptom.name());
+                    }
+                    symptomsPanel.setBackground(Color.WHITE);
+                    add(symptomsPanel, BorderLayout.CENTER);
+                    setToolTipText(tooltip.toString());
+                }
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package Events;
+/**
+ * Event indicating that the client has (re)connected to the server.
+ * <p>
+ * Instances of this class are posted on the {@link UIEventBus#BUS} once the session of a
+ * connection is ready: its token verified and, after a reconnection, the user logged in
+ * again. Work interrupted by a {@link ServerDisconnectedEvent}, such as a signal download,
+ * can then be resumed.
+ * </p>
+ */
+public class ServerConnectedEvent {
+}
@@ -4,7 +4,6 @@ import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.GCMParameterSpec;
-import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
@@ -37,6 +36,19 @@ public class AESUtil {
      * @throws Exception
      */
     public static String encrypt(String text, SecretKey AESkey) throws Exception{
+        return Base64.getEncoder().encodeToString(encrypt(text.getBytes(StandardCharsets.UTF_8), AESkey));
+    }
+
+    /**
+     * Encrypts the given bytes using AES-GCM with a random IV. Used by the binary framing,
+     * which sends the result as raw bytes instead of Base64.
+     *
+     * @param plain     The bytes that are going to be encrypted
+     * @param AESkey    The shared secret key used for AES-GCM encryption
+     * @return the IV followed by the cipher text and the authentication tag
+     * @throws Exception    for simplicity
+     */
+    public static byte[] encrypt(byte[] plain, SecretKey AESkey) throws Exception{
         byte[] iv = new byte[iv_length_bytes];
         new SecureRandom().nextBytes(iv);
 
@@ -44,13 +56,11 @@ public class AESUtil {
         GCMParameterSpec spec = new GCMParameterSpec(tag_length_bits,iv);
         cipher.init(Cipher.ENCRYPT_MODE,AESkey,spec);
 
-        byte[] encryptedText = cipher.doFinal(text.getBytes(StandardCharsets.UTF_8));
-        //Use the IV for the encryption
-        ByteBuffer buffer = ByteBuffer.allocate(iv.length + encryptedText.length);
-        buffer.put(iv);
-        buffer.put(encryptedText);
-
-        return Base64.getEncoder().encodeToString(buffer.array());
+        //Use the IV for the encryption, the cipher text is written right after it
+        byte[] output = new byte[iv.length + cipher.getOutputSize(plain.length)];
+        System.arraycopy(iv, 0, output, 0, iv.length);
+        cipher.doFinal(plain, 0, plain.length, output, iv.length);
+        return output;
     }
 
     /**
@@ -63,20 +73,24 @@ public class AESUtil {
      */
     public static String decrypt(String encryptedText, SecretKey AESkey) throws Exception{
         byte[] decoded = Base64.getDecoder().decode(encryptedText); //decodes the input string into bytes
-        ByteBuffer buffer = ByteBuffer.wrap(decoded); //To easily read chunks
-
-        byte[] iv = new byte[iv_length_bytes]; //allocates 12 bytes for the iv
-        buffer.get(iv);
-
-        byte[] restEncrypted = new byte[buffer.remaining()]; //message+tag
-        buffer.get(restEncrypted);
+        byte[] decrypted = decrypt(decoded, AESkey);
+        return new String(decrypted, StandardCharsets.UTF_8); //readable string
+    }
 
+    /**
+     * Decrypts the raw output of {@link #encrypt(byte[], SecretKey)}.
+     *
+     * @param encrypted         the IV followed by the cipher text and the authentication tag
+     * @param AESkey            The shared secret key used for AES-GCM decryption
+     * @return the decrypted bytes
+     * @throws Exception    for simplicity
+     */
+    public static byte[] decrypt(byte[] encrypted, SecretKey AESkey) throws Exception{
+        //The IV is read in place, no copy of the cipher text is needed
         Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
-        GCMParameterSpec spec = new GCMParameterSpec(tag_length_bits, iv);
+        GCMParameterSpec spec = new GCMParameterSpec(tag_length_bits, encrypted, 0, iv_length_bytes);
         cipher.init(Cipher.DECRYPT_MODE, AESkey,spec);
 
-        byte[] decrypted = cipher.doFinal(restEncrypted);
-
-        return new String(decrypted, StandardCharsets.UTF_8); //readable string
+        return cipher.doFinal(encrypted, iv_length_bytes, encrypted.length - iv_length_bytes);
     }
 }
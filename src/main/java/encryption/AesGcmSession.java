@@ -0,0 +1,270 @@
+package encryption;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AES-GCM engine bound to the session key (the token) shared with the server.
+ * <p>
+ * It produces the same format as {@link AESUtil}, the IV followed by the cipher text and
+ * the tag, but avoids the per-message costs of the static methods:
+ * </p>
+ * <ul>
+ *     <li>{@link Cipher} instances are pooled and reused instead of being looked up with
+ *         {@code Cipher.getInstance} for every message. A pool is used rather than a
+ *         {@code ThreadLocal} because messages are decrypted on short-lived virtual threads.</li>
+ *     <li>IVs are a random 4-byte prefix, drawn once per session, followed by an 8-byte
+ *         counter. Every IV of the session is therefore unique, as GCM requires, without
+ *         creating a {@link SecureRandom} per message.</li>
+ *     <li>Data is written straight into the output array or {@link ByteBuffer}, without
+ *         intermediate copies, Strings or Base64.</li>
+ * </ul>
+ * <p>
+ * Instances are thread safe.
+ * </p>
+ */
+public class AesGcmSession {
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int TAG_LENGTH_BITS = 128;
+    /** Length of the IV written in front of every message. */
+    public static final int IV_LENGTH_BYTES = 12;
+    /** Length of the authentication tag appended to every message. */
+    public static final int TAG_LENGTH_BYTES = TAG_LENGTH_BITS / 8;
+    private static final int MAX_POOLED_CIPHERS = 16;
+    private static final int STREAM_BLOCK_SIZE = 64 * 1024;
+
+    private final SecretKey key;
+    private final int ivPrefix;
+    private final AtomicLong ivCounter = new AtomicLong();
+    private final BlockingQueue<Cipher> ciphers = new ArrayBlockingQueue<>(MAX_POOLED_CIPHERS);
+
+    /**
+     * Creates an engine for the given session key.
+     *
+     * @param key the AES key shared with the server
+     */
+    public AesGcmSession(SecretKey key) {
+        this.key = key;
+        this.ivPrefix = new SecureRandom().nextInt();
+    }
+
+    /**
+     * Returns the session key used by this engine.
+     *
+     * @return the AES key
+     */
+    public SecretKey getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the size of an encrypted message.
+     *
+     * @param plainLength the length of the plain message
+     * @return the length of the IV, cipher text and tag
+     */
+    public static int encryptedLength(int plainLength) {
+        return IV_LENGTH_BYTES + plainLength + TAG_LENGTH_BYTES;
+    }
+
+    /**
+     * Encrypts a message.
+     *
+     * @param plain the plain bytes
+     * @return the IV followed by the cipher text and the tag
+     * @throws GeneralSecurityException if the encryption fails
+     */
+    public byte[] encrypt(byte[] plain) throws GeneralSecurityException {
+        return encrypt(plain, 0, plain.length);
+    }
+
+    /**
+     * Encrypts a range of an array.
+     *
+     * @param plain  the array holding the plain bytes
+     * @param offset the first byte to encrypt
+     * @param length the number of bytes to encrypt
+     * @return the IV followed by the cipher text and the tag
+     * @throws GeneralSecurityException if the encryption fails
+     */
+    public byte[] encrypt(byte[] plain, int offset, int length) throws GeneralSecurityException {
+        byte[] output = new byte[encryptedLength(length)];
+        writeNextIv(output);
+        Cipher cipher = acquire();
+        try {
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, output, 0, IV_LENGTH_BYTES));
+            cipher.doFinal(plain, offset, length, output, IV_LENGTH_BYTES);
+        } finally {
+            release(cipher);
+        }
+        return output;
+    }
+
+    /**
+     * Encrypts the remaining bytes of {@code plain} into {@code output}. Both buffers
+     * are advanced, and either may be direct.
+     *
+     * @param plain  the plain bytes
+     * @param output receives the IV, the cipher text and the tag
+     * @return the number of bytes written
+     * @throws ShortBufferException     if {@code output} has less than {@link #encryptedLength(int)} bytes left
+     * @throws GeneralSecurityException if the encryption fails
+     */
+    public int encrypt(ByteBuffer plain, ByteBuffer output) throws GeneralSecurityException {
+        if (output.remaining() < encryptedLength(plain.remaining())) {
+            throw new ShortBufferException("Output buffer too small for the encrypted message");
+        }
+        byte[] iv = new byte[IV_LENGTH_BYTES];
+        writeNextIv(iv);
+        output.put(iv);
+        Cipher cipher = acquire();
+        try {
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+            return IV_LENGTH_BYTES + cipher.doFinal(plain, output);
+        } finally {
+            release(cipher);
+        }
+    }
+
+    /**
+     * Decrypts a message produced by this class, by {@link AESUtil} or by the server.
+     *
+     * @param encrypted the IV followed by the cipher text and the tag
+     * @return the plain bytes
+     * @throws GeneralSecurityException if the message is too short, was tampered with or
+     *                                  was not encrypted with the session key
+     */
+    public byte[] decrypt(byte[] encrypted) throws GeneralSecurityException {
+        return decrypt(encrypted, 0, encrypted.length);
+    }
+
+    /**
+     * Decrypts a message stored in a range of an array.
+     *
+     * @param encrypted the array holding the IV, the cipher text and the tag
+     * @param offset    the first byte of the message
+     * @param length    the length of the message
+     * @return the plain bytes
+     * @throws GeneralSecurityException if the message is too short, was tampered with or
+     *                                  was not encrypted with the session key
+     */
+    public byte[] decrypt(byte[] encrypted, int offset, int length) throws GeneralSecurityException {
+        checkLength(length);
+        Cipher cipher = acquire();
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, encrypted, offset, IV_LENGTH_BYTES));
+            return cipher.doFinal(encrypted, offset + IV_LENGTH_BYTES, length - IV_LENGTH_BYTES);
+        } finally {
+            release(cipher);
+        }
+    }
+
+    /**
+     * Decrypts the remaining bytes of {@code encrypted} into {@code output}. Both buffers
+     * are advanced, and either may be direct.
+     *
+     * @param encrypted the IV followed by the cipher text and the tag
+     * @param output    receives the plain bytes, at least {@code encrypted.remaining() - 28} bytes
+     * @return the number of bytes written
+     * @throws GeneralSecurityException if the output is too small, or the message is too short,
+     *                                  was tampered with or was not encrypted with the session key
+     */
+    public int decrypt(ByteBuffer encrypted, ByteBuffer output) throws GeneralSecurityException {
+        checkLength(encrypted.remaining());
+        byte[] iv = new byte[IV_LENGTH_BYTES];
+        encrypted.get(iv);
+        Cipher cipher = acquire();
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+            return cipher.doFinal(encrypted, output);
+        } finally {
+            release(cipher);
+        }
+    }
+
+    /**
+     * Decrypts a message read from a stream, such as a Base64 decoder reading the text of
+     * a JSON message. The cipher text is fed to the cipher block by block while it is read,
+     * so it never has to be held as a whole array by the caller.
+     * <p>
+     * GCM does not release any plain text before the tag at the end of the message has been
+     * verified, so the plain text is returned at once, after the whole stream has been read.
+     * The stream is not closed.
+     * </p>
+     *
+     * @param encrypted the IV followed by the cipher text and the tag
+     * @return the plain bytes
+     * @throws IOException              if the stream cannot be read
+     * @throws GeneralSecurityException if the message is too short, was tampered with or
+     *                                  was not encrypted with the session key
+     */
+    public byte[] decrypt(InputStream encrypted) throws IOException, GeneralSecurityException {
+        byte[] iv = encrypted.readNBytes(IV_LENGTH_BYTES);
+        if (iv.length < IV_LENGTH_BYTES) checkLength(iv.length);
+        Cipher cipher = acquire();
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+            byte[] block = new byte[STREAM_BLOCK_SIZE];
+            ByteArrayOutputStream released = null; // only used by providers that release data early
+            int read;
+            while ((read = encrypted.read(block)) != -1) {
+                byte[] output = cipher.update(block, 0, read);
+                if (output != null && output.length > 0) {
+                    if (released == null) released = new ByteArrayOutputStream();
+                    released.write(output);
+                }
+            }
+            byte[] last = cipher.doFinal();
+            if (released == null) return last;
+            released.write(last);
+            return released.toByteArray();
+        } finally {
+            release(cipher);
+        }
+    }
+
+    private static void checkLength(int length) throws GeneralSecurityException {
+        if (length < IV_LENGTH_BYTES + TAG_LENGTH_BYTES) {
+            throw new GeneralSecurityException("Encrypted message too short: " + length + " bytes");
+        }
+    }
+
+    /**
+     * Writes the next IV of the session in the first {@value #IV_LENGTH_BYTES} bytes of the array.
+     */
+    private void writeNextIv(byte[] output) {
+        long counter = ivCounter.getAndIncrement();
+        if (counter == -1L) {
+            // 2^64 messages: the counter would wrap around and repeat IVs
+            throw new IllegalStateException("IV space of the session key exhausted");
+        }
+        output[0] = (byte) (ivPrefix >>> 24);
+        output[1] = (byte) (ivPrefix >>> 16);
+        output[2] = (byte) (ivPrefix >>> 8);
+        output[3] = (byte) ivPrefix;
+        for (int i = 0; i < 8; i++) {
+            output[4 + i] = (byte) (counter >>> (56 - 8 * i));
+        }
+    }
+
+    private Cipher acquire() throws GeneralSecurityException {
+        Cipher cipher = ciphers.poll();
+        return cipher != null ? cipher : Cipher.getInstance(TRANSFORMATION);
+    }
+
+    private void release(Cipher cipher) {
+        ciphers.offer(cipher);
+    }
+}
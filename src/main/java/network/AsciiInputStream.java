@@ -0,0 +1,63 @@
+package network;
+
+import java.io.InputStream;
+
+/**
+ * Exposes an ASCII {@link CharSequence} (such as a Base64 payload received inside a JSON
+ * message) as an {@link InputStream} without copying it into a {@code byte[]}.
+ * <p>
+ * Every char is narrowed to its low byte, which is exact for ASCII text. It is meant to be
+ * wrapped by {@link java.util.Base64.Decoder#wrap(InputStream)} so that large payloads can be
+ * decoded incrementally.
+ * </p>
+ */
+class AsciiInputStream extends InputStream {
+    private final CharSequence text;
+    private final int end;
+    private int position;
+
+    /**
+     * Creates a stream over the given text.
+     *
+     * @param text ASCII text to expose as bytes
+     */
+    AsciiInputStream(CharSequence text) {
+        this(text, 0, text.length());
+    }
+
+    /**
+     * Creates a stream over a range of the given text.
+     *
+     * @param text  ASCII text to expose as bytes
+     * @param start index of the first char of the range
+     * @param end   index after the last char of the range
+     */
+    AsciiInputStream(CharSequence text, int start, int end) {
+        this.text = text;
+        this.position = start;
+        this.end = end;
+    }
+
+    @Override
+    public int read() {
+        return position < end ? text.charAt(position++) & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) return 0;
+        int remaining = end - position;
+        if (remaining <= 0) return -1;
+        int n = Math.min(len, remaining);
+        for (int i = 0; i < n; i++) {
+            b[off + i] = (byte) text.charAt(position + i);
+        }
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return end - position;
+    }
+}
@@ -0,0 +1,88 @@
+package network;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * An {@link InputStream} fed with the chunks of a download while they arrive.
+ * <p>
+ * {@link SignalDownload} adds every chunk with {@link #add(byte[])} and a decoding
+ * thread reads the stream, blocking until the next chunk arrives. This lets the
+ * signal ZIP be inflated and parsed while the rest of it is still being downloaded.
+ * </p>
+ */
+class ChunkInputStream extends InputStream {
+    private static final byte[] END = new byte[0];
+
+    private final BlockingQueue<byte[]> chunks = new LinkedBlockingQueue<>();
+    private volatile IOException failure;
+    private byte[] current;
+    private int position;
+    private boolean ended;
+
+    /**
+     * Appends a chunk to the stream.
+     *
+     * @param chunk the next bytes of the content
+     */
+    void add(byte[] chunk) {
+        if (chunk.length > 0) chunks.add(chunk);
+    }
+
+    /**
+     * Marks the end of the content: the reader gets -1 once every chunk has been read.
+     */
+    void end() {
+        chunks.add(END);
+    }
+
+    /**
+     * Ends the stream with an error: the reader gets the given exception once the
+     * chunks already added have been read.
+     *
+     * @param cause the error thrown to the reader
+     */
+    void fail(IOException cause) {
+        failure = cause;
+        chunks.add(END);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        while (current == null || position == current.length) {
+            if (ended) return -1;
+            try {
+                current = chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the next chunk");
+            }
+            position = 0;
+            if (current == END) {
+                ended = true;
+                current = null;
+                if (failure != null) throw failure;
+                return -1;
+            }
+        }
+        int n = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return current == null ? 0 : current.length - position;
+    }
+}
@@ -1,13 +1,17 @@
 package network;
 
+import Events.ServerConnectedEvent;
 import Events.ServerDisconnectedEvent;
 import Events.UIEventBus;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
 import encryption.*;
 import pojos.*;
+import ui.ECGFileReader;
+import ui.SignalCsvParser;
 
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
@@ -17,36 +21,62 @@ import java.nio.charset.StandardCharsets;
 import java.security.*;
 import java.security.spec.X509EncodedKeySpec;
 import java.util.*;
-import java.util.concurrent.BlockingQueue;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Handles the communication between the client application and the remote server.
  * <p>
  * This class manages TCP connections, encryption (RSA + AES), authentication,
  * messaging, and asynchronous reception of data through a listening thread.
- * It also stores cryptographic keys, manages a queue of responses, and provides
+ * It also stores cryptographic keys, correlates responses with the requests that
+ * are waiting for them (see {@link PendingRequests}), and provides
  * high-level methods for login, uploading signals, changing password, retrieving
  * doctors, and more.
  * </p>
  */
 public class Client {
     Socket socket;
-    PrintWriter out;
-    BufferedReader in;
+    MessageWriter out;
+    MessageReader in;
     private Gson gson = new Gson();
     private volatile Boolean running = false;
     private User user;
-    //Estructura diseñada para comunicar threads entre sí de manera segura y sincronizada
-    //permite que un thread meta mensajes en la cola (con put())
-    //Y que otro thread los reciba (con take() o poll())
-    //si no hay mensajes, take() se bloquea automáticamente, sin consumir CPU
-    private BlockingQueue<JsonObject> responseQueue = new LinkedBlockingQueue<>();
+    //Requests waiting for a response, indexed by request id and by expected response type
+    private final PendingRequests pendingRequests = new PendingRequests();
     private KeyPair clientKeyPair;
     private PublicKey serverPublicKey;
-    private SecretKey token;
-    private final CountDownLatch tokenReady = new CountDownLatch(1);
+    private volatile SecretKey token;
+    //AES-GCM engine of the token, created on first use
+    private volatile AesGcmSession aesSession;
+    //Released when the session token of the current connection arrives
+    private volatile CountDownLatch tokenReady = new CountDownLatch(1);
+    private volatile Duration requestTimeout = Duration.ofSeconds(30);
+    //Timeout of the requests answered with a whole recording, which may take minutes on a slow link
+    private volatile Duration bulkRequestTimeout = Duration.ofMinutes(30);
+    //Timeout of the first request of a feature the server may not know, which older servers leave unanswered
+    private volatile Duration probeTimeout = Duration.ofSeconds(5);
+    //Virtual threads that decrypt, parse and route the encrypted messages
+    private volatile ExecutorService dispatcher;
+    //Whether length-prefixed binary framing is offered to the server on connect
+    private volatile boolean binaryFramingRequested = false;
+    //Whether the server accepted it, messages are sent as frames instead of lines
+    private volatile boolean binaryFraming = false;
+    //Released once the server answered the framing offer, or gave no answer within the probe timeout
+    private volatile CountDownLatch framingNegotiated = new CountDownLatch(0);
+    //Size of the chunks requested by SignalDownload
+    static final int SIGNAL_CHUNK_SIZE = 256 * 1024;
+    //Whether the server answers REQUEST_SIGNAL_CHUNK, null until the first chunked download
+    private volatile Boolean chunkedDownloadSupported = null;
+    //Whether the server answers REQUEST_PATIENT_SUMMARIES, null until the first page is requested
+    private volatile Boolean pagedPatientsSupported = null;
     /**
      * Creates a new Client instance without establishing a connection.
      */
@@ -54,8 +84,15 @@ public class Client {
     }
     /**
      * Connects to the server using the given IP and port.
-     * Initializes I/O streams, sends introductory messages,
-     * and starts the listener thread.
+     * Initializes I/O streams, sends introductory messages, starts the listener thread
+     * and offers binary framing if it was requested with
+     * {@link #setBinaryFramingRequested(boolean)} (see {@link #isBinaryFraming()}).
+     * <p>
+     * A {@link ServerConnectedEvent} is posted once the session is ready, when the token of the
+     * connection has been verified (see {@link #saveToken(SecretKey)}). When reconnecting after
+     * a login, a new token is requested and the user is logged in again first, so the work
+     * resumed on the event is encrypted with the new token.
+     * </p>
      *
      * @param ip   server IP address
      * @param port server port
@@ -66,13 +103,18 @@ public class Client {
         try {
             //socket = new Socket("localhost", 9009);
             socket = createSocket(ip, port);
-            out = new PrintWriter(socket.getOutputStream(), true);
-            in = new BufferedReader(
-                    new InputStreamReader(socket.getInputStream())
-            );
+            out = new MessageWriter(socket.getOutputStream());
+            in = new MessageReader(socket.getInputStream());
+            binaryFraming = false;
+            framingNegotiated = new CountDownLatch(binaryFramingRequested ? 1 : 0);
             running = true;
             sendInitialMessage();
             startListener();
+            if (binaryFramingRequested) offerFraming();
+            if (user != null && clientKeyPair != null) {
+                // Reconnection: the session token of the previous connection is no longer valid
+                sendTokenRequest(user.getEmail());
+            }
             return true;
         }catch(IOException e){
             //if(!socket.isConnected()){appMain.onServerDisconnected();}
@@ -81,149 +123,386 @@ public class Client {
     }
 
     /**
-     * Starts a background listener thread that waits for messages from the server.
+     * Starts the receive path for messages from the server.
      * <p>
-     * This thread handles:
+     * A single reader thread only frames the incoming messages (one JSON object per
+     * line, or one {@link Frame} per message when binary framing was negotiated) and
+     * peeks at their {@code type}:
      * <ul>
-     *     <li>Reception of encrypted and unencrypted messages</li>
-     *     <li>Token exchange and key verification</li>
-     *     <li>Stopping the client when instructed</li>
-     *     <li>Routing messages into a blocking queue</li>
+     *     <li>Plain messages (key exchange, token, {@code STOP_CLIENT}) are small and
+     *         order-sensitive, so they are handled inline by the reader thread.</li>
+     *     <li>{@code ENCRYPTED} messages are handed to a virtual thread, which performs
+     *         the AES-GCM decryption, the JSON parsing and the routing to the request
+     *         waiting for the response.</li>
      * </ul>
+     * A small reply is therefore never stuck behind the decryption of a multi-megabyte
+     * signal. Both the reader thread and the virtual threads are stopped by
+     * {@link #stopClient(boolean)}.
      * </p>
      */
     public void startListener() {
         System.out.println("Listening for messages...");
-        Thread listener = new Thread(() -> {
+        ExecutorService dispatcher = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("client-dispatch-", 0).factory());
+        this.dispatcher = dispatcher;
+        MessageReader reader = in;
+        Thread listener = Thread.ofPlatform().name("client-reader").daemon(true).unstarted(() -> {
             try {
-                String line;
-                while (((line = in.readLine()) != null)&&running) {
-                    //System.out.println("New message: " + line);
-                    JsonObject request = gson.fromJson(line, JsonObject.class);
-
-                    String type = request.get("type").getAsString();
-                    System.out.println("\nThis is the encrypted message received from the Server: "+request);
-
-                    if (token == null){
-                        switch (type){
-                            case "SERVER_PUBLIC_KEY" : {
-                                //Receive and store server's public key
-                                try {
-                                    String serverPublicKeyEncoded = request.get("data").getAsString();
-                                    byte[] keyBytes = Base64.getDecoder().decode(serverPublicKeyEncoded);
-                                    X509EncodedKeySpec keySpec = new X509EncodedKeySpec(keyBytes);
-                                    KeyFactory keyFactory = KeyFactory.getInstance("RSA");
-                                    this.serverPublicKey = keyFactory.generatePublic(keySpec);
-                                    System.out.println("Server Public Key stored successfully: "+Base64.getEncoder().encodeToString(this.serverPublicKey.getEncoded()));
-                                } catch (Exception e) {
-                                    System.out.println("Failed to process SERVER_PUBLIC_KEY request: " + e.getMessage());
-                                    stopClient(true);
-                                }
-                                break;
-                            }
-                            case "TOKEN_REQUEST_RESPONSE": {
-                                try {
-                                    String encryptedToken = request.get("token").getAsString();
-                                    String signatureBase64 = request.get("signature").getAsString();
-                                    byte[] signatureBytes = Base64.getDecoder().decode(signatureBase64);
-                                    //Decrypt token with Client Private Key
-                                    String token = RSAUtil.decrypt(encryptedToken, clientKeyPair.getPrivate());
-                                    byte[] tokenBytes = Base64.getDecoder().decode(token);
-                                    // Verify signature using Server Public Key
-                                    Signature signature = Signature.getInstance("SHA256withRSA");
-                                    signature.initVerify(serverPublicKey);
-                                    signature.update(tokenBytes);
-
-                                    boolean verified = signature.verify(signatureBytes);
-                                    if (verified) {
-                                        System.out.println("Token verified and trusted");
-                                        //Reconstruction of the Secret Key on the client side
-                                        javax.crypto.SecretKey secretKey = new SecretKeySpec(tokenBytes, 0, tokenBytes.length, "AES");
-                                        saveToken(secretKey);
-                                        System.out.println("🔑 Server's AES Token (Base64): " + Base64.getEncoder().encodeToString(this.token.getEncoded()));
-                                    } else {
-                                        System.out.println("Signature verification failed. Do not trust the token.");
-                                        //This ensures that if the token is not received, the connection STOPS
-                                        stopClient(true);
-                                    }
-                                } catch (Exception e) {
-                                    System.out.println("Error handling TOKEN_RESPONSE: " + e.getMessage());
-                                    e.printStackTrace();
-                                    stopClient(true);
-                                }
-                                break;
-                            }
-                            case "ENCRYPTED_RESPONSE":{
-                                String encrypted = request.get("message").getAsString();
-                                String signatureBase64 = request.get("signature").getAsString();
-                                //Decrypt with clients private key
-                                String json = RSAUtil.decrypt(encrypted, clientKeyPair.getPrivate());
-                                //Verify signature with server public key
-                                Signature sig = Signature.getInstance("SHA256withRSA");
-                                sig.initVerify(serverPublicKey);
-                                sig.update(json.getBytes());
-
-                                if (!sig.verify(Base64.getDecoder().decode(signatureBase64))) {
-                                    System.err.println("Signature verification failed");
-                                    break;
-                                }
-
-                                JsonObject decrypted = gson.fromJson(json, JsonObject.class);
-
-                                String innerType = decrypted.get("type").getAsString();
-
-                                if (innerType.equals("CHANGE_PASSWORD_REQUEST_RESPONSE")) {
-                                    responseQueue.put(decrypted);
-                                }
-
-                                break;
-                            }
+                // Checked before every message: an accepted FRAMING_RESPONSE, handled on this
+                // thread, switches the rest of the stream to frames
+                while (running) {
+                    if (binaryFraming) {
+                        Frame frame = reader.readFrame();
+                        if (frame == null) break;
+                        byte[] payload = frame.payload();
+                        if (frame.kind() == Frame.ENCRYPTED) {
+                            dispatcher.execute(() -> handleEncryptedMessage(payload));
+                        } else if (frame.kind() == Frame.JSON) {
+                            handleJsonMessage(new String(payload, StandardCharsets.UTF_8), dispatcher);
+                        } else {
+                            System.out.println("Ignoring frame of unknown kind " + frame.kind());
                         }
+                    } else {
+                        String line = reader.readLine();
+                        if (line == null) break;
+                        if (!line.isBlank()) handleJsonMessage(line, dispatcher);
                     }
+                }
+            } catch (RejectedExecutionException e) {
+                // the client is stopping
+            } catch (IOException ex) {
+                if (running) {
+                    System.out.println("Server connection closed: " + ex.getMessage());
+                    //In case the connection is closed without the server asking for it first
+                    stopClient(false);
+                }
+            } catch (RuntimeException e) {
+                System.out.println("Listener stopped after an unexpected error: " + e);
+                e.printStackTrace();
+                if (running) stopClient(false);
+            }
+        });
 
-                    // After the Client receives the Server's public key to encrypt the Secret key, reads responses
-                    String typeDecrypted = type;
-                    JsonObject decryptedRequest = request;
-                    if (typeDecrypted.equals("ENCRYPTED")){
-                        String encryptedData = request.get("data").getAsString();
-                        String decryptedJson = encryptedData;
-                        decryptedJson = AESUtil.decrypt(encryptedData, token);
-                        System.out.println("This is the decrypted json: "+decryptedJson);
-                        decryptedRequest = gson.fromJson(decryptedJson,JsonObject.class);
-                        typeDecrypted = decryptedRequest.get("type").getAsString();
-                    }
-                    System.out.println("\nThis is the decrypted type received in Client: "+typeDecrypted);
+        listener.start();
+    }
 
+    /**
+     * Handles a JSON message received as a line or as a {@link Frame#JSON} frame.
+     * {@code ENCRYPTED} wrappers are handed to the dispatcher, other messages are
+     * handled on the reader thread. Malformed messages are logged and skipped.
+     *
+     * @param json       the raw JSON message
+     * @param dispatcher the executor running the decryption of encrypted messages
+     */
+    private void handleJsonMessage(String json, ExecutorService dispatcher) {
+        String type = peekType(json);
+        if (type == null) {
+            System.out.println("Ignoring malformed message from the server");
+        } else if (type.equals("ENCRYPTED")) {
+            dispatcher.execute(() -> handleEncryptedLine(json));
+        } else {
+            handlePlainMessage(gson.fromJson(json, JsonObject.class));
+        }
+    }
 
-                    if (typeDecrypted.equals("STOP_CLIENT")) {
-                        System.out.println("Server requested shutdown");
-                        stopClient(false);
-                        break;
-                    }
+    /**
+     * Returns the {@code type} of a JSON message without building the whole tree.
+     * Other values, such as a large Base64 payload, are skipped without being copied.
+     *
+     * @param json the raw JSON message
+     * @return the message type, or null if the message is malformed or has none
+     */
+    private static String peekType(String json) {
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("type")) return reader.nextString();
+                reader.skipValue();
+            }
+            return null;
+        } catch (IOException | IllegalStateException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Handles a plain (not AES encrypted) message on the reader thread: framing negotiation,
+     * key and token exchange, RSA encrypted responses, {@code STOP_CLIENT} and plain responses.
+     *
+     * @param request the parsed message
+     */
+    private void handlePlainMessage(JsonObject request) {
+        String type = request.get("type").getAsString();
+        System.out.println("\nThis is the message type received from the Server: "+type);
+
+        if (type.equals("FRAMING_RESPONSE")) {
+            onFramingResponse(request);
+            return;
+        }
 
+        if (token == null){
+            switch (type){
+                case "SERVER_PUBLIC_KEY" : {
+                    //Receive and store server's public key
                     try {
-                        responseQueue.put(decryptedRequest);
-                    }catch (InterruptedException e){
-                        JsonObject jsonObject = new JsonObject();
-                        jsonObject.addProperty("type", "LOGIN_REQUEST_RESPONSE");
-                        jsonObject.addProperty("status", "ERROR");
-                        jsonObject.addProperty("message", "Error while processing login request");
-                        responseQueue.add(jsonObject);
+                        String serverPublicKeyEncoded = request.get("data").getAsString();
+                        byte[] keyBytes = Base64.getDecoder().decode(serverPublicKeyEncoded);
+                        X509EncodedKeySpec keySpec = new X509EncodedKeySpec(keyBytes);
+                        KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+                        this.serverPublicKey = keyFactory.generatePublic(keySpec);
+                        System.out.println("Server Public Key stored successfully: "+Base64.getEncoder().encodeToString(this.serverPublicKey.getEncoded()));
+                    } catch (Exception e) {
+                        System.out.println("Failed to process SERVER_PUBLIC_KEY request: " + e.getMessage());
+                        stopClient(true);
                     }
+                    break;
+                }
+                case "TOKEN_REQUEST_RESPONSE": {
+                    try {
+                        String encryptedToken = request.get("token").getAsString();
+                        String signatureBase64 = request.get("signature").getAsString();
+                        byte[] signatureBytes = Base64.getDecoder().decode(signatureBase64);
+                        //Decrypt token with Client Private Key
+                        String token = RSAUtil.decrypt(encryptedToken, clientKeyPair.getPrivate());
+                        byte[] tokenBytes = Base64.getDecoder().decode(token);
+                        // Verify signature using Server Public Key
+                        Signature signature = Signature.getInstance("SHA256withRSA");
+                        signature.initVerify(serverPublicKey);
+                        signature.update(tokenBytes);
+
+                        boolean verified = signature.verify(signatureBytes);
+                        if (verified) {
+                            System.out.println("Token verified and trusted");
+                            //Reconstruction of the Secret Key on the client side
+                            javax.crypto.SecretKey secretKey = new SecretKeySpec(tokenBytes, 0, tokenBytes.length, "AES");
+                            saveToken(secretKey);
+                            System.out.println("🔑 Server's AES Token (Base64): " + Base64.getEncoder().encodeToString(this.token.getEncoded()));
+                        } else {
+                            System.out.println("Signature verification failed. Do not trust the token.");
+                            //This ensures that if the token is not received, the connection STOPS
+                            stopClient(true);
+                        }
+                    } catch (Exception e) {
+                        System.out.println("Error handling TOKEN_RESPONSE: " + e.getMessage());
+                        e.printStackTrace();
+                        stopClient(true);
+                    }
+                    break;
+                }
+                case "ENCRYPTED_RESPONSE":{
+                    try {
+                        String encrypted = request.get("message").getAsString();
+                        String signatureBase64 = request.get("signature").getAsString();
+                        //Decrypt with clients private key
+                        String json = RSAUtil.decrypt(encrypted, clientKeyPair.getPrivate());
+                        //Verify signature with server public key
+                        Signature sig = Signature.getInstance("SHA256withRSA");
+                        sig.initVerify(serverPublicKey);
+                        sig.update(json.getBytes());
+
+                        if (!sig.verify(Base64.getDecoder().decode(signatureBase64))) {
+                            System.err.println("Signature verification failed");
+                            break;
+                        }
+
+                        JsonObject decrypted = gson.fromJson(json, JsonObject.class);
 
+                        String innerType = decrypted.get("type").getAsString();
+
+                        if (innerType.equals("CHANGE_PASSWORD_REQUEST_RESPONSE")) {
+                            dispatch(decrypted);
+                        }
+                    } catch (Exception e) {
+                        System.out.println("Error handling ENCRYPTED_RESPONSE: " + e.getMessage());
+                    }
+                    break;
                 }
-            } catch (IOException ex) {
-                System.out.println("Server connection closed: " + ex.getMessage());
-                //In case the connection is closed without the server asking for it first
+            }
+        }
+
+        if (type.equals("STOP_CLIENT")) {
+            System.out.println("Server requested shutdown");
+            stopClient(false);
+            return;
+        }
+
+        dispatch(request);
+    }
+
+    /**
+     * Decrypts the payload of an {@code ENCRYPTED} line and handles it as
+     * {@link #handleEncryptedMessage(byte[])} does.
+     * <p>
+     * The Base64 {@code data} value is decoded and fed to the cipher straight from the
+     * line, so neither a String of the payload nor an array of the whole cipher text is
+     * created. Only if the wrapper does not have the usual layout is it parsed as a tree.
+     * </p>
+     *
+     * @param line the raw {@code ENCRYPTED} wrapper received from the server
+     */
+    private void handleEncryptedLine(String line) {
+        try {
+            InputStream base64;
+            int[] range = findPlainStringValue(line, "data");
+            if (range != null) {
+                base64 = new AsciiInputStream(line, range[0], range[1]);
+            } else {
+                base64 = new AsciiInputStream(gson.fromJson(line, JsonObject.class).get("data").getAsString());
+            }
+            handleDecryptedMessage(aesSession(token).decrypt(Base64.getDecoder().wrap(base64)));
+        } catch (Exception e) {
+            if (running) {
+                System.out.println("Failed to process encrypted message: " + e);
+            }
+        }
+    }
+
+    /**
+     * Locates the value of a top-level string field that has no escape sequences, such as
+     * a Base64 payload, without copying it.
+     *
+     * @param json the JSON object
+     * @param name the field name
+     * @return the start and end index of the value inside {@code json}, or null if it was not found
+     */
+    private static int[] findPlainStringValue(String json, String name) {
+        String key = "\"" + name + "\"";
+        int i = json.indexOf(key);
+        if (i < 0) return null;
+        i += key.length();
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) i++;
+        if (i >= json.length() || json.charAt(i) != ':') return null;
+        i++;
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) i++;
+        if (i >= json.length() || json.charAt(i) != '"') return null;
+        int start = i + 1;
+        int end = json.indexOf('"', start);
+        if (end < 0 || json.indexOf('\\', start, end) >= 0) return null;
+        return new int[]{start, end};
+    }
+
+    /**
+     * Decrypts a {@link Frame#ENCRYPTED} frame on a virtual thread and handles it as
+     * {@link #handleDecryptedMessage(byte[])} does.
+     *
+     * @param encrypted the IV followed by the AES-GCM cipher text of the message
+     */
+    private void handleEncryptedMessage(byte[] encrypted) {
+        try {
+            handleDecryptedMessage(aesSession(token).decrypt(encrypted));
+        } catch (Exception e) {
+            if (running) {
+                System.out.println("Failed to process encrypted message: " + e);
+            }
+        }
+    }
+
+    /**
+     * Parses a decrypted message and routes it to the request waiting for it. The JSON is
+     * read straight from the UTF-8 bytes, without building a String of the message. A
+     * message that cannot be parsed is logged and dropped without affecting the others.
+     *
+     * @param decrypted the UTF-8 JSON of the message
+     */
+    private void handleDecryptedMessage(byte[] decrypted) {
+        try {
+            JsonObject decryptedRequest = gson.fromJson(
+                    new InputStreamReader(new ByteArrayInputStream(decrypted), StandardCharsets.UTF_8), JsonObject.class);
+            String typeDecrypted = decryptedRequest.get("type").getAsString();
+            System.out.println("\nThis is the decrypted type received in Client: "+typeDecrypted);
+
+            if (typeDecrypted.equals("STOP_CLIENT")) {
+                System.out.println("Server requested shutdown");
                 stopClient(false);
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+                return;
             }
-        });
 
-        //listener.setDaemon(true); // client ends even if thread is running
-        listener.start();
+            dispatch(decryptedRequest);
+        } catch (RuntimeException e) {
+            if (running) {
+                System.out.println("Failed to process encrypted message: " + e);
+            }
+        }
     }
+
+    /**
+     * Offers length-prefixed binary framing to the server.
+     * <p>
+     * A {@code FRAMING_REQUEST} line is sent once the listener runs, and the
+     * {@code FRAMING_RESPONSE} is handled by the listener like any other message, so the key
+     * exchange that the server may send meanwhile is not disturbed and connecting does not
+     * wait for the answer. If the server answers {@code SUCCESS}, both sides switch to
+     * {@link Frame}s and encrypted messages travel as raw bytes instead of Base64 inside JSON.
+     * Any other answer, or none within the {@linkplain #getProbeTimeout() probe timeout}, keeps
+     * the newline-delimited JSON protocol. Meanwhile, the messages to send wait for the answer,
+     * since the server reads frames as soon as it accepts.
+     * </p>
+     *
+     * @throws IOException if the request cannot be written
+     */
+    private void offerFraming() throws IOException {
+        JsonObject request = new JsonObject();
+        request.addProperty("type", "FRAMING_REQUEST");
+        request.addProperty("framing", "LENGTH_PREFIXED");
+        out.writeLine(gson.toJson(request));
+    }
+
+    /**
+     * Applies the answer of the server to the framing offer. Called on the reader thread,
+     * before it reads the next message.
+     *
+     * @param response the {@code FRAMING_RESPONSE}
+     */
+    private void onFramingResponse(JsonObject response) {
+        CountDownLatch negotiated = framingNegotiated;
+        if (negotiated.getCount() == 0) {
+            System.out.println("Ignoring framing response received after the negotiation");
+            return;
+        }
+        JsonElement status = response.get("status");
+        binaryFraming = status != null && "SUCCESS".equals(status.getAsString());
+        negotiated.countDown();
+        System.out.println(binaryFraming ? "Binary framing enabled" : "Server does not support binary framing, using text lines");
+    }
+
+    /**
+     * Blocks until the framing offered on connect is settled, so that no message is sent in
+     * a framing the server does not expect. Gives up after the probe timeout: servers without
+     * binary framing may not answer the offer at all.
+     */
+    private void awaitFramingNegotiation() {
+        CountDownLatch negotiated = framingNegotiated;
+        try {
+            if (!negotiated.await(probeTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                negotiated.countDown();
+                System.out.println("No answer to the framing request, using text lines");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Sets whether length-prefixed binary framing is offered to the server on the next
+     * {@link #connect(String, int)}. Disabled by default.
+     *
+     * @param binaryFramingRequested true to offer binary framing
+     */
+    public void setBinaryFramingRequested(boolean binaryFramingRequested) {
+        this.binaryFramingRequested = binaryFramingRequested;
+    }
+
+    /**
+     * Checks whether the current connection uses length-prefixed binary framing. The answer
+     * of the server to the offer arrives after {@link #connect(String, int)} returns, and
+     * before the first message is sent.
+     *
+     * @return true if the server accepted binary framing
+     */
+    public boolean isBinaryFraming() {
+        return binaryFraming;
+    }
+
     /**
      * Sets the RSA KeyPair for the client used to decrypt messages
      * and to verify server authenticity.
@@ -258,28 +537,39 @@ public class Client {
         }
     }
     /**
-     * Stops the client gracefully.
+     * Stops the client gracefully. Calling it again once the client is stopped has no effect.
      * <ul>
      *     <li>If initiated by client: sends an encrypted STOP_CLIENT message</li>
-     *     <li>Releases network resources</li>
+     *     <li>Stops the message dispatcher and fails the requests still waiting</li>
+     *     <li>Releases network resources, which also ends the reader thread</li>
      *     <li>Notifies the UI if server initiated the disconnection</li>
      * </ul>
      *
      * @param initiatedByClient true if the client requests shutdown
      */
     public void stopClient(boolean initiatedByClient) {
+        synchronized (this) {
+            // The reader thread and the user may both try to stop the client; only the first one does
+            if (!running) return;
+            running = false;
+        }
         if (initiatedByClient && socket != null && !socket.isClosed()) {
             // Only send STOP_CLIENT if CLIENT requested shutdown
             Map<String, Object> message = new HashMap<>();
             message.put("type", "STOP_CLIENT");
             String jsonMessage = gson.toJson(message);
             System.out.println("\nBefore encryption, STOP_CLIENT to Server: "+jsonMessage);
-            sendEncrypted(jsonMessage, out, token);
+            sendEncrypted(jsonMessage, token);
             System.out.println("Sent (client-initiated): " + jsonMessage);
         }
 
         System.out.println("Stopping client...");
-        running = false;
+        // The next connection gets its own token
+        token = null;
+        tokenReady = new CountDownLatch(1);
+        framingNegotiated.countDown();
+        if (dispatcher != null) dispatcher.shutdownNow();
+        pendingRequests.failAll(new ClientServerCommunicationError("Connection to the server closed"));
 
         // Notify UI ONLY if the server disconnected
         if (!initiatedByClient) {
@@ -297,7 +587,7 @@ public class Client {
      */
     private void sendInitialMessage() throws IOException {
         System.out.println("Connection established... sending text");
-        out.println("Hi! I'm a new client!\n");
+        out.writeLine("Hi! I'm a new client!\n");
     }
     /**
      * Sends an activation request to the server and waits for a response.
@@ -306,9 +596,10 @@ public class Client {
      * @param temporaryPass  the temporary password
      * @param oneTimeToken   the single-use activation token
      * @return true if activation succeeded, false otherwise
+     * @throws IOException          if the connection is closed before the response arrives
      * @throws InterruptedException if waiting for a response is interrupted
      */
-    public boolean sendActivationRequest (String email, String temporaryPass, String oneTimeToken) throws InterruptedException {
+    public boolean sendActivationRequest (String email, String temporaryPass, String oneTimeToken) throws IOException, InterruptedException {
         Map<String, Object> data = new HashMap<>();
         data.put("email", email);
         data.put("temp_pass", temporaryPass);
@@ -318,43 +609,15 @@ public class Client {
         request.put("type", "ACTIVATION_REQUEST");
         request.put("data", data);
 
-        out.println(gson.toJson(request)); //Plain text
-        out.flush();
+        PendingRequests.Pending pending = register("ACTIVATION_REQUEST_RESPONSE");
+        request.put("request_id", pending.id());
+        writePlain(gson.toJson(request)); //Plain text
 
         System.out.println("📤 ACTIVATION_REQUEST sent to server: " + request);
-        boolean activationSuccess = false;
-        while(true) {
-            JsonObject response = responseQueue.take();
-            String type = response.get("type").getAsString();
-
-            switch(type){
-                case "SERVER_PUBLIC_KEY": {
-                    try {
-                        String serverPublicKeyEncoded = response.get("data").getAsString();
-                        byte[] keyBytes = Base64.getDecoder().decode(serverPublicKeyEncoded);
-                        X509EncodedKeySpec keySpec = new X509EncodedKeySpec(keyBytes);
-                        KeyFactory keyFactory = KeyFactory.getInstance("RSA");
-                        this.serverPublicKey = keyFactory.generatePublic(keySpec);
-                        System.out.println("Server Public Key stored successfully: " +
-                                Base64.getEncoder().encodeToString(this.serverPublicKey.getEncoded()));
-                    } catch (Exception e) {
-                        System.out.println("Failed to process SERVER_PUBLIC_KEY: " + e.getMessage());
-                        stopClient(true);
-                        return false;
-                    }
-                    break;
-                }
-
-                case "ACTIVATION_REQUEST_RESPONSE": {
-                    String status = response.get("status").getAsString();
-                    activationSuccess = status.equals("SUCCESS");
-                    return activationSuccess;
-                }
-                default:
-                    System.out.println("Unhandled response type: "+type);
-                    break;
-            }
-        }
+        // SERVER_PUBLIC_KEY is handled by the listener, only the activation result is awaited here
+        JsonObject response = await(pending.future());
+        String status = response.get("status").getAsString();
+        return status.equals("SUCCESS");
     }
     /**
      * Sends a token request message, providing the user email.
@@ -365,8 +628,7 @@ public class Client {
         JsonObject tokenRequest = new JsonObject();
         tokenRequest.addProperty("type", "TOKEN_REQUEST");
         tokenRequest.addProperty("email",email);
-        out.println(gson.toJson(tokenRequest));
-        out.flush();
+        sendPlain(gson.toJson(tokenRequest));
 
         System.out.println("TOKEN_REQUEST sent to the Server");
     }
@@ -385,8 +647,7 @@ public class Client {
         JsonObject response = new JsonObject();
         response.addProperty("type", "CLIENT_PUBLIC_KEY");
         response.add("data", data);
-        out.println(gson.toJson(response));
-        out.flush();
+        sendPlain(gson.toJson(response));
 
         System.out.println("Sent Client's Public Key to Server");
     }
@@ -420,7 +681,9 @@ public class Client {
         this.clientKeyPair = new KeyPair(publicKey,privateKey);
         sendTokenRequest(email);
         System.out.println("\nWaiting for token to arrive...");
-        tokenReady.await();
+        if (!tokenReady.await(requestTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            throw new IOException("Timed out waiting for the session token");
+        }
         System.out.println("Token received, continuing with login process...");
 
         Map<String, Object> data = new HashMap<>();
@@ -432,17 +695,8 @@ public class Client {
         message.put("type", "LOGIN_REQUEST");
         message.put("data", data);
 
-        String jsonMessage = gson.toJson(message);
-        System.out.println("\nBefore encryption, LOGIN_REQUEST to Server: "+jsonMessage);
-        sendEncrypted(jsonMessage, out, token);
-        // Read the response
-        JsonObject response;
-        do {
-            response = responseQueue.take();
-            if(response.get("type").getAsString().equals("ENCRYPTED")){
-                throw new IOException("Dencription failed");
-            }
-        } while (!response.get("type").getAsString().equals("LOGIN_RESPONSE"));
+        System.out.println("\nBefore encryption, LOGIN_REQUEST to Server: "+gson.toJson(message));
+        JsonObject response = sendAndAwait(message, "LOGIN_RESPONSE");
 
         AppData appData = new AppData();
         // Check response
@@ -468,14 +722,8 @@ public class Client {
                 data.put("email", user.getEmail());
                 message.put("data", data);
 
-                jsonMessage = gson.toJson(message);
-                System.out.println("\nBefore encryption, REQUEST_DOCTOR_BY_EMAIL to Server: "+jsonMessage);
-                sendEncrypted(jsonMessage, out, token);
-
-                // Read the response
-                do {
-                    response = responseQueue.take();
-                } while (!response.get("type").getAsString().equals("REQUEST_DOCTOR_BY_EMAIL_RESPONSE"));
+                System.out.println("\nBefore encryption, REQUEST_DOCTOR_BY_EMAIL to Server: "+gson.toJson(message));
+                response = sendAndAwait(message, "REQUEST_DOCTOR_BY_EMAIL_RESPONSE");
                 System.out.println(response);
                 // Check response
                 status = response.get("status").getAsString();
@@ -510,8 +758,26 @@ public class Client {
      * @throws IOException              if an I/O error occurs while sending or receiving data
      * @throws InterruptedException     if the waiting thread is interrupted
      * @throws ClientServerCommunicationError if the server responds with an error
+     * @see #getPatientsFromDoctorAsync(int)
      */
     public List<Patient> getPatientsFromDoctor(int doctor_id) throws IOException, InterruptedException {
+        return await(getPatientsFromDoctorAsync(doctor_id));
+    }
+
+    /**
+     * Non-blocking variant of {@link #getPatientsFromDoctor(int)}.
+     * <p>
+     * The request is sent immediately and the returned future is completed with the
+     * parsed patients once the {@code REQUEST_PATIENTS_FROM_DOCTOR_RESPONSE} arrives.
+     * It completes exceptionally with a {@link ClientServerCommunicationError} if the
+     * server reports an error, or with a {@link java.util.concurrent.TimeoutException}
+     * if no response arrives within {@link #getRequestTimeout()}.
+     * </p>
+     *
+     * @param doctor_id the ID of the doctor whose patients will be retrieved
+     * @return a future list of {@link Patient} objects assigned to the doctor
+     */
+    public CompletableFuture<List<Patient>> getPatientsFromDoctorAsync(int doctor_id) {
         Map<String, Object> data = new HashMap<>();
         data.put("doctor_id", doctor_id);
         if(user != null)data.put("user_id", user.getId());
@@ -520,30 +786,129 @@ public class Client {
         message.put("type", "REQUEST_PATIENTS_FROM_DOCTOR");
         message.put("data", data);
 
-        String jsonMessage = gson.toJson(message);
-        System.out.println("\nBefore encryption, REQUEST_PATIENTS_FROM_DOCTOR to Server: "+jsonMessage);
-        sendEncrypted(jsonMessage, out, token);
+        System.out.println("\nBefore encryption, REQUEST_PATIENTS_FROM_DOCTOR to Server: "+gson.toJson(message));
+        return sendAsync(message, "REQUEST_PATIENTS_FROM_DOCTOR_RESPONSE").thenApplyAsync(response -> {
+            List<Patient> patients = new ArrayList<>();
 
-        JsonObject response;
-        do {
-            response = responseQueue.take();
-        } while (!response.get("type").getAsString().equals("REQUEST_PATIENTS_FROM_DOCTOR_RESPONSE"));
-        List<Patient> patients = new ArrayList<>();
+            String status = response.get("status").getAsString();
+            if (status.equals("SUCCESS")) {
+                JsonArray data_response = response.getAsJsonArray("patients");
 
-        String status = response.get("status").getAsString();
-        if (status.equals("SUCCESS")) {
-            JsonArray data_response = response.getAsJsonArray("patients");
+                for (JsonElement element : data_response) {
+                    patients.add(Patient.fromJason(element.getAsJsonObject()));
+                }
 
+                System.out.println("Received " + patients.size() + " patients.");
+            }else {
+                throw new ClientServerCommunicationError(response.get("message").getAsString());
+            }
+            return patients;
+        });
+    }
+    /**
+     * Requests one page of the patient list of a doctor, with lightweight summaries (id,
+     * name, surname) instead of whole patients.
+     * <p>
+     * Sends an encrypted {@code REQUEST_PATIENT_SUMMARIES} message with the doctor ID, the
+     * cursor and the page size. The {@code REQUEST_PATIENT_SUMMARIES_RESPONSE} holds the
+     * {@code patients} of the page and the {@code next_cursor}, absent or null after the last
+     * page. The recordings and reports of a patient are loaded later with
+     * {@link #getPatientDetailsAsync(Patient)}.
+     * </p>
+     * <p>
+     * If the server does not support paged lists, the first page falls back to
+     * {@link #getPatientsFromDoctorAsync(int)} and contains every patient, with all its data.
+     * Until the server has answered a page, the first page only waits for the
+     * {@linkplain #getProbeTimeout() probe timeout}, since older servers leave it unanswered.
+     * </p>
+     *
+     * @param doctor_id the ID of the doctor whose patients will be retrieved
+     * @param cursor    0 for the first page, then the {@link PatientPage#nextCursor()} of the previous page
+     * @param limit     the maximum number of patients of the page
+     * @return a future page of patients
+     */
+    public CompletableFuture<PatientPage> getPatientSummariesAsync(int doctor_id, int cursor, int limit) {
+        if (Boolean.FALSE.equals(pagedPatientsSupported)) {
+            return getPatientsFromDoctorAsync(doctor_id).thenApply(patients -> new PatientPage(patients, -1));
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("doctor_id", doctor_id);
+        data.put("cursor", cursor);
+        data.put("limit", limit);
+        if(user != null)data.put("user_id", user.getId());
+
+        Map<String, Object> message = new HashMap<>();
+        message.put("type", "REQUEST_PATIENT_SUMMARIES");
+        message.put("data", data);
+
+        boolean probing = cursor == 0 && pagedPatientsSupported == null;
+        Duration timeout = probing ? probeTimeout : requestTimeout;
+        System.out.println("\nBefore encryption, REQUEST_PATIENT_SUMMARIES to Server: "+gson.toJson(message));
+        CompletableFuture<PatientPage> page = sendAsync(message, "REQUEST_PATIENT_SUMMARIES_RESPONSE", timeout).thenApplyAsync(response -> {
+            String status = response.get("status").getAsString();
+            if (!status.equals("SUCCESS")) {
+                throw new ClientServerCommunicationError(response.get("message").getAsString());
+            }
+            JsonArray data_response = response.getAsJsonArray("patients");
+            List<Patient> patients = new ArrayList<>(data_response.size());
             for (JsonElement element : data_response) {
-                patients.add(Patient.fromJason(element.getAsJsonObject()));
+                patients.add(Patient.summaryFromJason(element.getAsJsonObject()));
             }
+            JsonElement next = response.get("next_cursor");
+            pagedPatientsSupported = true;
+            return new PatientPage(patients, next == null || next.isJsonNull() ? -1 : next.getAsInt());
+        });
+        if (!probing) return page;
+        // First page ever: a server without paged lists answers with an error or not at all
+        return page.exceptionallyCompose(error -> {
+            System.out.println("Paged patient list not supported by the server: " + error.getMessage());
+            pagedPatientsSupported = false;
+            return getPatientsFromDoctorAsync(doctor_id).thenApply(patients -> new PatientPage(patients, -1));
+        });
+    }
 
-            System.out.println("Received " + patients.size() + " patients.");
-        }else {
-            throw new ClientServerCommunicationError(response.get("message").getAsString());
-        }
-        return patients;
+    /**
+     * Loads the data that a patient summary lacks, including its recordings and reports,
+     * with an encrypted {@code REQUEST_PATIENT_DETAILS} message. The
+     * {@code REQUEST_PATIENT_DETAILS_RESPONSE} holds the whole {@code patient}, in the same
+     * format as the patients of {@link #getPatientsFromDoctorAsync(int)}.
+     * <p>
+     * Patients whose details are already loaded are returned as they are.
+     * </p>
+     *
+     * @param patient the patient summary, completed in place
+     * @return a future completed with the same patient once its details are loaded
+     */
+    public CompletableFuture<Patient> getPatientDetailsAsync(Patient patient) {
+        if (patient.isDetailsLoaded()) return CompletableFuture.completedFuture(patient);
+        Map<String, Object> data = new HashMap<>();
+        data.put("patient_id", patient.getId());
+        if(user != null)data.put("user_id", user.getId());
+
+        Map<String, Object> message = new HashMap<>();
+        message.put("type", "REQUEST_PATIENT_DETAILS");
+        message.put("data", data);
+
+        System.out.println("\nBefore encryption, REQUEST_PATIENT_DETAILS to Server: "+gson.toJson(message));
+        return sendAsync(message, "REQUEST_PATIENT_DETAILS_RESPONSE").thenApplyAsync(response -> {
+            String status = response.get("status").getAsString();
+            if (!status.equals("SUCCESS")) {
+                throw new ClientServerCommunicationError(response.get("message").getAsString());
+            }
+            patient.setDetails(Patient.fromJason(response.getAsJsonObject("patient")));
+            return patient;
+        });
+    }
+
+    /**
+     * Returns whether the server supports paged patient lists.
+     *
+     * @return true or false once known, null before the first page is requested
+     */
+    Boolean isPagedPatientsSupported() {
+        return pagedPatientsSupported;
     }
+
     /**
      * Retrieves all recorded signals associated with a given patient.
      * <p>
@@ -559,8 +924,19 @@ public class Client {
      * @throws IOException              if an I/O error occurs during communication
      * @throws InterruptedException     if the response waiting is interrupted
      * @throws ClientServerCommunicationError if the server indicates an error
+     * @see #getAllSignalsFromPatientAsync(int)
      */
     public List<Signal> getAllSignalsFromPatient (int patient_id) throws IOException, InterruptedException {
+        return await(getAllSignalsFromPatientAsync(patient_id));
+    }
+
+    /**
+     * Non-blocking variant of {@link #getAllSignalsFromPatient(int)}.
+     *
+     * @param patient_id the ID of the patient whose signals will be retrieved
+     * @return a future list of {@link Signal} objects belonging to the patient
+     */
+    public CompletableFuture<List<Signal>> getAllSignalsFromPatientAsync(int patient_id) {
         Map<String, Object> data = new HashMap<>();
         data.put("patient_id", patient_id);
         if(user != null)data.put("user_id", user.getId());
@@ -569,38 +945,36 @@ public class Client {
         message.put("type", "REQUEST_PATIENT_SIGNALS");
         message.put("data", data);
 
-        String jsonMessage = gson.toJson(message);
-        System.out.println("\nBefore encryption, REQUEST_PATIENT_SIGNALS to Server: "+jsonMessage);
-        sendEncrypted(jsonMessage, out, token);
+        System.out.println("\nBefore encryption, REQUEST_PATIENT_SIGNALS to Server: "+gson.toJson(message));
+        return sendAsync(message, "REQUEST_PATIENT_SIGNALS_RESPONSE").thenApplyAsync(response -> {
+            List<Signal> signals = new ArrayList<>();
 
-        JsonObject response;
-        do {
-            response = responseQueue.take();
-        } while (!response.get("type").getAsString().equals("REQUEST_PATIENT_SIGNALS_RESPONSE"));
-        List<Signal> signals = new ArrayList<>();
+            String status = response.get("status").getAsString();
+            if (status.equals("SUCCESS")) {
+                JsonArray data_response = response.getAsJsonArray("signals");
 
-        String status = response.get("status").getAsString();
-        if (status.equals("SUCCESS")) {
-            JsonArray data_response = response.getAsJsonArray("signals");
+                for (JsonElement element : data_response) {
+                    signals.add(Signal.fromJason(element.getAsJsonObject()));
+                }
 
-            for (JsonElement element : data_response) {
-                signals.add(Signal.fromJason(element.getAsJsonObject()));
+                System.out.println("Received " + signals.size() + " signals.");
+            }else {
+                throw new ClientServerCommunicationError(response.get("message").getAsString());
             }
-
-            System.out.println("Received " + signals.size() + " signals.");
-        }else {
-            throw new ClientServerCommunicationError(response.get("message").getAsString());
-        }
-        return signals;
+            return signals;
+        });
     }
     /**
      * Retrieves a specific signal by its unique ID.
      * <p>
      * Sends an encrypted {@code REQUEST_SIGNAL} message with the signal ID and
      * waits for the server’s {@code REQUEST_SIGNAL_RESPONSE}. On success, the
-     * method reconstructs both the metadata and the associated ZIP-compressed
-     * signal data and builds a {@link Signal} instance using
-     * {@code Signal.fromJasonWithZip()}.
+     * Base64 ZIP payload is decoded, inflated and parsed as a single stream
+     * straight from the received string, so neither the whole compressed nor the
+     * whole decompressed file is ever held in memory or written to disk.
+     * The returned {@link Signal} already contains its ECG and ACC samples.
+     * The response carries the whole recording, so the request waits for
+     * {@link #getBulkRequestTimeout()} instead of the timeout of the other requests.
      * </p>
      *
      * @param signal_id the unique identifier of the signal to retrieve
@@ -609,47 +983,166 @@ public class Client {
      * @throws IOException              if an I/O communication error occurs
      * @throws InterruptedException     if the waiting thread is interrupted
      * @throws ClientServerCommunicationError if the server returns an error
+     * @see #getSignalFromIdAsync(int)
      */
     public Signal getSignalFromId (int signal_id) throws IOException, InterruptedException {
+        return await(getSignalFromIdAsync(signal_id));
+    }
+
+    /**
+     * Non-blocking variant of {@link #getSignalFromId(int)}.
+     * <p>
+     * The payload is decoded on a background thread, not on the listener thread,
+     * so other responses keep flowing while a large recording is being parsed.
+     * </p>
+     *
+     * @param signal_id the unique identifier of the signal to retrieve
+     * @return a future {@link Signal} holding its ECG and ACC samples
+     */
+    public CompletableFuture<Signal> getSignalFromIdAsync(int signal_id) {
         Map<String, Object> data = new HashMap<>();
         data.put("signal_id", signal_id);
         if(user != null)data.put("user_id", user.getId());
         Map<String, Object> message = new HashMap<>();
         message.put("type", "REQUEST_SIGNAL");
         message.put("data", data);
-        String jsonMessage = gson.toJson(message);
-        System.out.println("\nBefore encryption, REQUEST_SIGNAL to Server: "+jsonMessage);
-        sendEncrypted(jsonMessage, out, token);
+        System.out.println("\nBefore encryption, REQUEST_SIGNAL to Server: "+gson.toJson(message));
+        return sendAsync(message, "REQUEST_SIGNAL_RESPONSE", bulkRequestTimeout).thenApplyAsync(response -> {
+            String status = response.get("status").getAsString();
+            if (status.equals("SUCCESS")) {
+                Signal signal = Signal.fromJason(response.getAsJsonObject("metadata"));
+                // Base64 -> inflate -> CSV parse as one stream, reading straight from the JSON string
+                String base64Zip = response.get("dataBytes").getAsString();
+                InputStream zipStream = Base64.getDecoder().wrap(new AsciiInputStream(base64Zip));
+                try {
+                    Signal samples = ECGFileReader.readSignalFromZip(zipStream, signal.getFrequency());
+                    signal.setEcg(samples.getEcg());
+                    signal.setAcc(samples.getAcc());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return signal;
+            }else {
+                throw new ClientServerCommunicationError(response.get("message").getAsString());
+            }
+        });
+    }
+    /**
+     * Downloads a signal in chunks of {@value #SIGNAL_CHUNK_SIZE} bytes.
+     * <p>
+     * Unlike {@link #getSignalFromIdAsync(int)}, the download reports its progress, retries
+     * the chunks that fail and resumes after a reconnection instead of starting over.
+     * See {@link SignalDownload}.
+     * </p>
+     *
+     * @param signal_id the signal identifier
+     * @return the started download
+     */
+    public SignalDownload downloadSignal(int signal_id) {
+        return downloadSignal(signal_id, null);
+    }
+
+    /**
+     * Same as {@link #downloadSignal(int)}, registering a progress listener before the
+     * first chunk is requested.
+     *
+     * @param signal_id the signal identifier
+     * @param listener  the progress listener, may be null
+     * @return the started download
+     */
+    public SignalDownload downloadSignal(int signal_id, SignalDownload.ProgressListener listener) {
+        return downloadSignal(signal_id, listener, null);
+    }
 
-        JsonObject response;
-        do {
-            response = responseQueue.take();
-        } while (!response.get("type").getAsString().equals("REQUEST_SIGNAL_RESPONSE"));
+    /**
+     * Same as {@link #downloadSignal(int)}, registering a progress listener and a listener
+     * that receives the samples while they are decoded, so that the recording can be drawn
+     * before the download finishes.
+     *
+     * @param signal_id the signal identifier
+     * @param listener  the progress listener, may be null
+     * @param samples   the sample listener, may be null
+     * @return the started download
+     */
+    public SignalDownload downloadSignal(int signal_id, SignalDownload.ProgressListener listener,
+                                         SignalCsvParser.SampleListener samples) {
+        SignalDownload download = new SignalDownload(this, signal_id);
+        if (listener != null) download.addProgressListener(listener);
+        if (samples != null) download.addSampleListener(samples);
+        download.start();
+        return download;
+    }
 
-        String status = response.get("status").getAsString();
-        if (status.equals("SUCCESS")) {
-            Signal signal = null;
-            try {
-                JsonObject meta = response.get("metadata").getAsJsonObject();
-                JsonObject metadata= new JsonObject();
-                metadata.addProperty("signal_id", meta.get("signal_id").getAsInt());
-                metadata.addProperty("patient_id", meta.get("patient_id").getAsInt());
-                metadata.addProperty("sampling_rate", meta.get("sampling_rate").getAsDouble());
-                metadata.addProperty("comments", meta.get("comments").getAsString());
-                metadata.addProperty("date", meta.get("date").getAsString());
-                JsonObject data_response = new JsonObject();
-                data_response.add("metadata", metadata);
-                data_response.addProperty("dataBytes", response.get("dataBytes").getAsString());
-                data_response.addProperty("filename", response.get("filename").getAsString());
-                signal = Signal.fromJasonWithZip(data_response);
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+    /**
+     * Requests one chunk of a signal ZIP from the server. The metadata of the signal is
+     * sent along with the first chunk.
+     *
+     * @param signal_id   the signal identifier
+     * @param chunk_index the position of the chunk, starting at 0
+     * @return a future completed with the chunk
+     */
+    CompletableFuture<SignalDownload.Chunk> requestSignalChunkAsync(int signal_id, int chunk_index) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("signal_id", signal_id);
+        data.put("chunk_index", chunk_index);
+        data.put("chunk_size", SIGNAL_CHUNK_SIZE);
+        if(user != null)data.put("user_id", user.getId());
+        Map<String, Object> message = new HashMap<>();
+        message.put("type", "REQUEST_SIGNAL_CHUNK");
+        message.put("data", data);
+        System.out.println("\nBefore encryption, REQUEST_SIGNAL_CHUNK to Server: "+gson.toJson(message));
+        Duration timeout = chunkedDownloadSupported == null ? probeTimeout : requestTimeout;
+        return sendAsync(message, "REQUEST_SIGNAL_CHUNK_RESPONSE", timeout).thenApplyAsync(response -> {
+            String status = response.get("status").getAsString();
+            if (status.equals("SUCCESS")) {
+                Signal metadata = response.has("metadata") ? Signal.fromJason(response.getAsJsonObject("metadata")) : null;
+                byte[] bytes = Base64.getDecoder().decode(response.get("dataBytes").getAsString());
+                return new SignalDownload.Chunk(response.get("chunk_index").getAsInt(),
+                        response.get("total_chunks").getAsInt(), bytes, metadata);
+            }else {
+                throw new ClientServerCommunicationError(response.get("message").getAsString());
             }
-            return signal;
-        }else {
-            throw new ClientServerCommunicationError(response.get("message").getAsString());
-        }
+        });
     }
+
+    /**
+     * Returns whether the server supports chunked signal downloads.
+     *
+     * @return true or false once known, null before the first chunked download
+     */
+    Boolean isChunkedDownloadSupported() {
+        return chunkedDownloadSupported;
+    }
+
+    /**
+     * Records whether the server answered a chunked download, so that later downloads
+     * do not probe it again.
+     *
+     * @param supported true if the server supports chunked downloads
+     */
+    void setChunkedDownloadSupported(boolean supported) {
+        this.chunkedDownloadSupported = supported;
+    }
+
+    /**
+     * Checks whether the client is connected and listening for messages.
+     *
+     * @return true until {@link #stopClient(boolean)} is called
+     */
+    boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Checks whether encrypted requests can be sent: the client is connected and the session
+     * token of the connection has arrived.
+     *
+     * @return true between {@link #saveToken(SecretKey)} and {@link #stopClient(boolean)}
+     */
+    boolean isSessionReady() {
+        return running && token != null;
+    }
+
     /**
      * Saves or updates the comments associated with a specific signal.
      * <p>
@@ -665,8 +1158,20 @@ public class Client {
      * @throws IOException              if an error occurs while sending/receiving data
      * @throws InterruptedException     if waiting for the server response is interrupted
      * @throws ClientServerCommunicationError if the server indicates a failure
+     * @see #saveCommentsAsync(Integer, Signal)
      */
     public void saveComments(Integer patient_id, Signal signal) throws IOException, InterruptedException {
+        await(saveCommentsAsync(patient_id, signal));
+    }
+
+    /**
+     * Non-blocking variant of {@link #saveComments(Integer, Signal)}.
+     *
+     * @param patient_id the ID of the patient who owns the signal
+     * @param signal     the signal whose comments will be saved
+     * @return a future completed once the server confirms the update
+     */
+    public CompletableFuture<Void> saveCommentsAsync(Integer patient_id, Signal signal) {
         System.out.println("Saving comments for patient " + patient_id);
         Map<String, Object> data = new HashMap<>();
         data.put("patient_id", patient_id);
@@ -678,36 +1183,34 @@ public class Client {
         message.put("type", "SAVE_COMMENTS_SIGNAL");
         message.put("data", data);
 
-        String jsonMessage = gson.toJson(message);
-        System.out.println("\nBefore encryption, SAVE_COMMENTS_SIGNALS to Server: "+jsonMessage);
-        sendEncrypted(jsonMessage, out, token);
-
-        //wait for response
-        JsonObject response;
-        do {
-            response = responseQueue.take();
-        } while (!response.get("type").getAsString().equals("SAVE_COMMENTS_SIGNAL_RESPONSE"));
-        String status = response.get("status").getAsString();
-        System.out.println(response.get("status").getAsString());
-        if (!status.equals("SUCCESS")) {
-            throw new ClientServerCommunicationError(response.get("message").getAsString());
-        }
+        System.out.println("\nBefore encryption, SAVE_COMMENTS_SIGNALS to Server: "+gson.toJson(message));
+        return sendAsync(message, "SAVE_COMMENTS_SIGNAL_RESPONSE").thenAccept(response -> {
+            String status = response.get("status").getAsString();
+            System.out.println(response.get("status").getAsString());
+            if (!status.equals("SUCCESS")) {
+                throw new ClientServerCommunicationError(response.get("message").getAsString());
+            }
+        });
     }
 
     /**
      * Safely releases network and I/O resources associated with the client connection.
      * <p>
-     * This method attempts to close the provided {@link PrintWriter}, {@link BufferedReader},
+     * This method attempts to close the provided {@link MessageWriter}, {@link MessageReader},
      * and {@link Socket} objects. Each resource is checked for nullity before closing,
      * and exceptions during closure are caught and logged without interrupting execution.
      * </p>
      *
-     * @param printWriter the PrintWriter to close (may be null)
-     * @param reader      the BufferedReader to close (may be null)
+     * @param writer      the MessageWriter to close (may be null)
+     * @param reader      the MessageReader to close (may be null)
      * @param socket      the Socket to close; never null when called
      */
-    private static void releaseResources(PrintWriter printWriter, BufferedReader reader,  Socket socket) {
-        if(printWriter!= null)printWriter.close();
+    private static void releaseResources(MessageWriter writer, MessageReader reader,  Socket socket) {
+        try{
+            if(writer!= null)writer.close();
+        } catch (IOException e) {
+            System.out.println("Error closing resources: " + e.getMessage());
+        }
         try{
             if(reader!= null)reader.close();
         } catch (IOException e) {
@@ -745,6 +1248,8 @@ public class Client {
         Map<String, Object> message = new HashMap<>();
         message.put("type", "CHANGE_PASSWORD_REQUEST");
         message.put("data", data);
+        PendingRequests.Pending pending = register("CHANGE_PASSWORD_REQUEST_RESPONSE");
+        message.put("request_id", pending.id());
 
         String jsonMessage = gson.toJson(message);
 
@@ -765,15 +1270,11 @@ public class Client {
         wrapper.addProperty("signature", signatureBase64);
         wrapper.addProperty("clientEmail", email);
 
-        out.println(gson.toJson(wrapper));
-        out.flush();
-        //sendEncrypted(jsonMessage, out, token);
+        writePlain(gson.toJson(wrapper));
+        //sendEncrypted(jsonMessage, token);
 
         //Waits for a response of type CHANGE_PASSWORD_RESPONSE
-        JsonObject response;
-        do {
-            response = responseQueue.take();
-        } while (!response.get("type").getAsString().equals("CHANGE_PASSWORD_REQUEST_RESPONSE"));
+        JsonObject response = await(pending.future());
 
         // Check response
         String status = response.get("status").getAsString();
@@ -785,48 +1286,344 @@ public class Client {
 
     }
 
+    /**
+     * Registers a request that expects a response of the given type. The future of the
+     * request fails with a {@link TimeoutException} if no response arrives within
+     * {@link #getRequestTimeout()}, and the request is then forgotten.
+     *
+     * @param responseType the {@code type} of the expected response
+     * @return the registered request
+     */
+    private PendingRequests.Pending register(String responseType) {
+        return register(responseType, requestTimeout);
+    }
+
+    /**
+     * Registers a request that expects a response of the given type. The future of the
+     * request fails with a {@link TimeoutException} if no response arrives within the
+     * given timeout, and the request is then forgotten.
+     *
+     * @param responseType the {@code type} of the expected response
+     * @param timeout      how long to wait for the response
+     * @return the registered request
+     */
+    private PendingRequests.Pending register(String responseType, Duration timeout) {
+        PendingRequests.Pending pending = pendingRequests.register(responseType);
+        pending.future()
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((response, error) -> {
+                    if (error != null) pendingRequests.cancel(pending);
+                });
+        return pending;
+    }
+
+    /**
+     * Registers a request, tags it with its {@code request_id} and sends it encrypted.
+     *
+     * @param message      the request; a {@code request_id} entry is added to it
+     * @param responseType the {@code type} of the expected response
+     * @return a future completed with the response routed to this request
+     */
+    private CompletableFuture<JsonObject> sendAsync(Map<String, Object> message, String responseType) {
+        return sendAsync(message, responseType, requestTimeout);
+    }
+
+    /**
+     * Registers a request with its own timeout, tags it with its {@code request_id} and
+     * sends it encrypted.
+     * <p>
+     * If the client is stopped, or the request cannot be sent, the future fails at once
+     * instead of waiting for the timeout.
+     * </p>
+     *
+     * @param message      the request; a {@code request_id} entry is added to it
+     * @param responseType the {@code type} of the expected response
+     * @param timeout      how long to wait for the response
+     * @return a future completed with the response routed to this request
+     */
+    private CompletableFuture<JsonObject> sendAsync(Map<String, Object> message, String responseType, Duration timeout) {
+        PendingRequests.Pending pending = register(responseType, timeout);
+        message.put("request_id", pending.id());
+        try {
+            // Checked after registering: stopClient clears running before failing the pending requests
+            if (!running) throw new ClientServerCommunicationError("Not connected to the server");
+            writeEncrypted(gson.toJson(message), token);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error sending " + message.get("type") + " to the server: " + e.getMessage());
+            pendingRequests.cancel(pending);
+            pending.future().completeExceptionally(e);
+        }
+        return pending.future();
+    }
+
+    /**
+     * Sends a request encrypted and blocks until the correlated response arrives.
+     *
+     * @param message      the request; a {@code request_id} entry is added to it
+     * @param responseType the {@code type} of the expected response
+     * @return the response routed to this request
+     * @throws IOException          if the connection is closed or the request times out
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    private JsonObject sendAndAwait(Map<String, Object> message, String responseType) throws IOException, InterruptedException {
+        return await(sendAsync(message, responseType));
+    }
+
+    /**
+     * Blocks until the given future completes and unwraps its failure.
+     *
+     * @param future the future of a request
+     * @return the value of the future
+     * @throws IOException          if the request failed with an I/O error or timed out
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    private static <T> T await(CompletableFuture<T> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException uio) throw uio.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof TimeoutException) {
+                throw new IOException("Timed out waiting for the server response", cause);
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Returns the maximum time a request waits for its response.
+     *
+     * @return the request timeout
+     */
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    /**
+     * Sets the maximum time a request waits for its response before failing with a
+     * {@link TimeoutException}. Applies to requests sent after the call.
+     *
+     * @param requestTimeout the new timeout, must be positive
+     */
+    public void setRequestTimeout(Duration requestTimeout) {
+        if (requestTimeout == null || requestTimeout.isNegative() || requestTimeout.isZero()) {
+            throw new IllegalArgumentException("Request timeout must be positive");
+        }
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Returns the maximum time a request answered with a whole recording, such as
+     * {@link #getSignalFromIdAsync(int)}, waits for its response.
+     *
+     * @return the timeout of the bulk requests
+     */
+    public Duration getBulkRequestTimeout() {
+        return bulkRequestTimeout;
+    }
+
+    /**
+     * Sets the maximum time a request answered with a whole recording waits for its
+     * response before failing with a {@link TimeoutException}. Applies to requests sent
+     * after the call.
+     *
+     * @param bulkRequestTimeout the new timeout, must be positive
+     */
+    public void setBulkRequestTimeout(Duration bulkRequestTimeout) {
+        if (bulkRequestTimeout == null || bulkRequestTimeout.isNegative() || bulkRequestTimeout.isZero()) {
+            throw new IllegalArgumentException("Request timeout must be positive");
+        }
+        this.bulkRequestTimeout = bulkRequestTimeout;
+    }
+
+    /**
+     * Returns the maximum time the first request of an optional feature, such as a chunked
+     * download, a paged patient list or binary framing, waits for its response before the
+     * client assumes the server does not support it.
+     *
+     * @return the timeout of the probing requests
+     */
+    public Duration getProbeTimeout() {
+        return probeTimeout;
+    }
+
+    /**
+     * Sets the maximum time the first request of an optional feature waits for its response.
+     * Applies to requests sent after the call.
+     *
+     * @param probeTimeout the new timeout, must be positive
+     */
+    public void setProbeTimeout(Duration probeTimeout) {
+        if (probeTimeout == null || probeTimeout.isNegative() || probeTimeout.isZero()) {
+            throw new IllegalArgumentException("Request timeout must be positive");
+        }
+        this.probeTimeout = probeTimeout;
+    }
+
+    /**
+     * Routes a message received from the server to the request waiting for it.
+     * Messages nobody is waiting for are logged and discarded.
+     *
+     * @param response the (decrypted) message received from the server
+     * @return true if a pending request received the message
+     */
+    boolean dispatch(JsonObject response) {
+        boolean routed = pendingRequests.complete(response);
+        if (!routed) {
+            System.out.println("Unhandled response type: " + response.get("type"));
+        }
+        return routed;
+    }
+
     /**
      * Encrypts a plain JSON message using AES and sends it to the server.
      * <p>
-     * The message is encrypted with the provided AES key using {@link AESUtil#encrypt(String, SecretKey)}.
-     * The encrypted payload is wrapped inside a JSON structure:
+     * The message is encrypted with the provided AES key using the {@link AesGcmSession} of that key.
+     * With binary framing it is sent as a {@link Frame#ENCRYPTED} frame holding the raw IV and
+     * cipher text. Otherwise the encrypted payload is wrapped inside a JSON line:
      * <pre>
      * {
      *   "type": "ENCRYPTED",
      *   "data": "<encrypted-base64-string>"
      * }
      * </pre>
-     * The resulting JSON is then sent through the provided {@link PrintWriter}.
      * </p>
      *
      * @param message the plain JSON string to encrypt
-     * @param out     the output writer used to send the encrypted message
      * @param AESkey  the shared AES session key used for encryption
      */
-    public void sendEncrypted(String message, PrintWriter out, SecretKey AESkey) {
+    public void sendEncrypted(String message, SecretKey AESkey) {
+        try {
+            writeEncrypted(message, AESkey);
+        } catch (IOException e) {
+            System.out.println("Error sending message to the server: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Same as {@link #sendEncrypted(String, SecretKey)}, throwing the error instead of logging it.
+     *
+     * @param message the plain JSON string to encrypt
+     * @param AESkey  the shared AES session key used for encryption
+     * @throws IOException if there is no session key, or the message cannot be encrypted or written
+     */
+    private void writeEncrypted(String message, SecretKey AESkey) throws IOException {
+        if (AESkey == null) throw new IOException("No session token to encrypt the message");
+        awaitFramingNegotiation();
         try {
-            String encryptedJson = AESUtil.encrypt(message, AESkey);
+            byte[] encrypted = aesSession(AESkey).encrypt(message.getBytes(StandardCharsets.UTF_8));
+            if (binaryFraming) {
+                out.writeFrame(Frame.ENCRYPTED, encrypted);
+                System.out.println("\nSent encrypted frame of " + encrypted.length + " bytes to Server");
+                return;
+            }
             JsonObject wrapper = new JsonObject();
 
             //TODO: ver si realmente el type debería ser especifico para cada case o no
             wrapper.addProperty("type", "ENCRYPTED");
-            wrapper.addProperty("data", encryptedJson);
+            wrapper.addProperty("data", Base64.getEncoder().encodeToString(encrypted));
 
             System.out.println("\nThis is the encrypted message sent to Server :" + wrapper);
 
-            out.println(wrapper);
-            out.flush();
-        } catch (Exception e) {
-            e.printStackTrace();
+            out.writeLine(wrapper.toString());
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Could not encrypt the message", e);
         }
     }
 
     /**
-     * TEST-ONLY method that manually injects a token and unblocks the login latch.
+     * Returns the AES-GCM engine of the given session key, creating it when the key changes.
+     *
+     * @param key the AES session key
+     * @return the engine encrypting and decrypting with that key
+     */
+    private AesGcmSession aesSession(SecretKey key) {
+        AesGcmSession session = aesSession;
+        if (session == null || session.getKey() != key) {
+            session = new AesGcmSession(key);
+            aesSession = session;
+        }
+        return session;
+    }
+
+    /**
+     * Sends a plain (not AES encrypted) JSON message, as a line or as a {@link Frame#JSON}
+     * frame depending on the negotiated framing.
+     *
+     * @param json the JSON message
+     * @throws IOException if the message cannot be written
+     */
+    private void writePlain(String json) throws IOException {
+        awaitFramingNegotiation();
+        if (binaryFraming) {
+            out.writeFrame(Frame.JSON, json.getBytes(StandardCharsets.UTF_8));
+        } else {
+            out.writeLine(json);
+        }
+    }
+
+    /**
+     * Same as {@link #writePlain(String)}, logging the error instead of throwing it.
+     *
+     * @param json the JSON message
+     */
+    private void sendPlain(String json) {
+        try {
+            writePlain(json);
+        } catch (IOException e) {
+            System.out.println("Error sending message to the server: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stores the session token of the connection, once verified, and unblocks the login
+     * waiting for it. Tests call it to inject a token.
+     * <p>
+     * The session is then ready and a {@link ServerConnectedEvent} is posted, unless the user
+     * was logged in before a reconnection: the login is then sent again with the new token, and
+     * the event is posted once it succeeds.
+     * </p>
+     *
+     * @param testToken the AES session token
      */
     public void saveToken(SecretKey testToken) {
         this.token = testToken;
         this.tokenReady.countDown();
+        User loggedIn = user;
+        if (loggedIn == null) {
+            UIEventBus.BUS.post(new ServerConnectedEvent());
+        } else {
+            restoreLogin(loggedIn);
+        }
+    }
+
+    /**
+     * Logs the user in again after a reconnection and posts a {@link ServerConnectedEvent} if
+     * it succeeds. Does not block.
+     *
+     * @param loggedIn the user logged in before the connection was lost
+     */
+    private void restoreLogin(User loggedIn) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("email", loggedIn.getEmail());
+        data.put("password", loggedIn.getPassword());
+        data.put("access_permits", loggedIn.getRole());
+
+        Map<String, Object> message = new HashMap<>();
+        message.put("type", "LOGIN_REQUEST");
+        message.put("data", data);
+
+        System.out.println("\nLogging in again after reconnecting");
+        sendAsync(message, "LOGIN_RESPONSE").whenComplete((response, error) -> {
+            if (error == null && response.get("status").getAsString().equals("SUCCESS")) {
+                UIEventBus.BUS.post(new ServerConnectedEvent());
+            } else {
+                System.out.println("Could not log in again after reconnecting: "
+                        + (error != null ? error.getMessage() : response.get("message")));
+            }
+        });
     }
 
     public static void main(String args[]) throws IOException {
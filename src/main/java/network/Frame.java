@@ -0,0 +1,23 @@
+package network;
+
+/**
+ * A message of the length-prefixed binary protocol negotiated by {@link Client}.
+ * <p>
+ * On the wire every frame is written as:
+ * </p>
+ * <pre>
+ * [int payload length, big endian][byte kind][payload]
+ * </pre>
+ *
+ * @param kind    what the payload contains, {@link #JSON} or {@link #ENCRYPTED}
+ * @param payload the raw bytes of the message
+ */
+record Frame(byte kind, byte[] payload) {
+
+    /** A UTF-8 JSON message sent in clear (handshake, {@code STOP_CLIENT}). */
+    static final byte JSON = 1;
+    /** The IV followed by the AES-GCM cipher text and tag of a UTF-8 JSON message. */
+    static final byte ENCRYPTED = 2;
+    /** Largest payload accepted, so that a corrupted length prefix is rejected early. */
+    static final int MAX_PAYLOAD = 512 * 1024 * 1024;
+}
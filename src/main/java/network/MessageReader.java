@@ -0,0 +1,113 @@
+package network;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads the messages sent by the server from the socket input stream.
+ * <p>
+ * The connection starts with newline-delimited JSON and may switch to length-prefixed
+ * {@link Frame}s once binary framing has been negotiated. Both formats are read from the
+ * same internal buffer, so no byte read ahead by one mode is lost when switching to the
+ * other (which would happen with a {@link java.io.BufferedReader}).
+ * <p>
+ * Instances are not thread safe; they are used by the reader thread only.
+ * </p>
+ */
+class MessageReader implements Closeable {
+    private final InputStream in;
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+    private byte[] line = new byte[256];
+
+    /**
+     * Creates a reader over the given stream.
+     *
+     * @param in the socket input stream
+     */
+    MessageReader(InputStream in) {
+        this.in = in;
+        this.buffer = new byte[64 * 1024];
+    }
+
+    /**
+     * Reads the next UTF-8 line, without its {@code \n} or {@code \r\n} terminator.
+     *
+     * @return the line, or null if the stream ended
+     * @throws IOException if the stream cannot be read
+     */
+    String readLine() throws IOException {
+        int length = 0;
+        boolean terminated = false;
+        while (!terminated) {
+            if (position == limit && !fill()) {
+                if (length == 0) return null;
+                break;
+            }
+            int end = position;
+            while (end < limit && buffer[end] != '\n') end++;
+            int n = end - position;
+            if (length + n > line.length) {
+                line = Arrays.copyOf(line, Math.max(line.length * 2, length + n));
+            }
+            System.arraycopy(buffer, position, line, length, n);
+            length += n;
+            terminated = end < limit;
+            position = terminated ? end + 1 : end;
+        }
+        if (length > 0 && line[length - 1] == '\r') length--;
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the next frame. The payload is read straight into its own array.
+     *
+     * @return the frame, or null if the stream ended between two frames
+     * @throws IOException if the stream cannot be read, ends inside a frame or the length is invalid
+     */
+    Frame readFrame() throws IOException {
+        if (position == limit && !fill()) return null;
+        int length = (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+        byte kind = (byte) readByte();
+        if (length < 0 || length > Frame.MAX_PAYLOAD) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        byte[] payload = new byte[length];
+        int buffered = Math.min(length, limit - position);
+        System.arraycopy(buffer, position, payload, 0, buffered);
+        position += buffered;
+        int offset = buffered;
+        while (offset < length) {
+            int read = in.read(payload, offset, length - offset);
+            if (read < 0) throw new EOFException("Connection closed in the middle of a frame");
+            offset += read;
+        }
+        return new Frame(kind, payload);
+    }
+
+    private int readByte() throws IOException {
+        if (position == limit && !fill()) {
+            throw new EOFException("Connection closed in the middle of a frame");
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        position = 0;
+        limit = 0;
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) return false;
+        limit = read;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
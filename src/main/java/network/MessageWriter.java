@@ -0,0 +1,63 @@
+package network;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the messages sent to the server, either as newline-delimited text or as
+ * length-prefixed {@link Frame}s. Every message is flushed as soon as it is written.
+ * <p>
+ * The methods are synchronized so that messages sent concurrently by several requests
+ * are never interleaved on the wire.
+ * </p>
+ */
+class MessageWriter implements Closeable {
+    private final OutputStream out;
+
+    /**
+     * Creates a writer over the given stream.
+     *
+     * @param out the socket output stream
+     */
+    MessageWriter(OutputStream out) {
+        this.out = new BufferedOutputStream(out, 64 * 1024);
+    }
+
+    /**
+     * Writes a UTF-8 line terminated by {@code \n}.
+     *
+     * @param line the text to send
+     * @throws IOException if the stream cannot be written
+     */
+    synchronized void writeLine(String line) throws IOException {
+        out.write(line.getBytes(StandardCharsets.UTF_8));
+        out.write('\n');
+        out.flush();
+    }
+
+    /**
+     * Writes a length-prefixed frame.
+     *
+     * @param kind    the kind of the payload, see {@link Frame}
+     * @param payload the bytes to send
+     * @throws IOException if the stream cannot be written
+     */
+    synchronized void writeFrame(byte kind, byte[] payload) throws IOException {
+        int length = payload.length;
+        out.write(length >>> 24);
+        out.write(length >>> 16);
+        out.write(length >>> 8);
+        out.write(length);
+        out.write(kind);
+        out.write(payload);
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,23 @@
+package network;
+
+import pojos.Patient;
+
+import java.util.List;
+
+/**
+ * A page of the patient list of a doctor, see {@link Client#getPatientSummariesAsync(int, int, int)}.
+ *
+ * @param patients   the patients of the page, as summaries unless the server sent the whole list
+ * @param nextCursor the cursor of the next page, or -1 if this is the last page
+ */
+public record PatientPage(List<Patient> patients, int nextCursor) {
+
+    /**
+     * Returns whether there are more patients after this page.
+     *
+     * @return true if the next page can be requested
+     */
+    public boolean hasNext() {
+        return nextCursor >= 0;
+    }
+}
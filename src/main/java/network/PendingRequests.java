@@ -0,0 +1,118 @@
+package network;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Correlation table for the requests that are waiting for a server response.
+ * <p>
+ * Every request sent by {@link Client} is registered here and gets a unique
+ * {@code request_id} that travels inside the message. When a response arrives, the
+ * listener thread calls {@link #complete(JsonObject)}, which routes it in O(1) to
+ * the future of the matching request:
+ * </p>
+ * <ul>
+ *     <li>If the response echoes a {@code request_id}, it is looked up directly.</li>
+ *     <li>Otherwise (servers that do not echo the id), it is handed to the oldest
+ *         pending request that expects that response {@code type}.</li>
+ * </ul>
+ * <p>
+ * This allows several requests to be in flight over the same socket at once without
+ * one caller consuming or discarding the response meant for another.
+ * </p>
+ */
+class PendingRequests {
+
+    /**
+     * A request waiting for its response.
+     *
+     * @param id           the unique request id sent to the server
+     * @param responseType the {@code type} of the expected response
+     * @param future       completed with the response, or exceptionally on disconnection
+     */
+    record Pending(long id, String responseType, CompletableFuture<JsonObject> future) {
+    }
+
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final Map<Long, Pending> byId = new ConcurrentHashMap<>();
+    private final Map<String, Queue<Pending>> byType = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a new request that expects a response of the given type.
+     *
+     * @param responseType the {@code type} field of the expected response
+     * @return the registered request with its id and future
+     */
+    Pending register(String responseType) {
+        Pending pending = new Pending(nextId.getAndIncrement(), responseType, new CompletableFuture<>());
+        byId.put(pending.id(), pending);
+        byType.computeIfAbsent(responseType, t -> new ConcurrentLinkedQueue<>()).add(pending);
+        return pending;
+    }
+
+    /**
+     * Routes a response to the request waiting for it.
+     *
+     * @param response the decrypted response received from the server
+     * @return true if a pending request received it, false if nobody was waiting for it
+     */
+    boolean complete(JsonObject response) {
+        Pending pending = null;
+        JsonElement requestId = response.get("request_id");
+        if (requestId != null && !requestId.isJsonNull()) {
+            pending = byId.remove(requestId.getAsLong());
+            if (pending != null) {
+                Queue<Pending> queue = byType.get(pending.responseType());
+                if (queue != null) queue.remove(pending);
+            }
+        } else {
+            JsonElement type = response.get("type");
+            Queue<Pending> queue = type == null ? null : byType.get(type.getAsString());
+            if (queue != null) {
+                pending = queue.poll();
+                if (pending != null) byId.remove(pending.id());
+            }
+        }
+        if (pending == null) return false;
+        return pending.future().complete(response);
+    }
+
+    /**
+     * Stops waiting for a request, for example after it timed out or could not be sent.
+     *
+     * @param pending the request to remove
+     */
+    void cancel(Pending pending) {
+        byId.remove(pending.id());
+        Queue<Pending> queue = byType.get(pending.responseType());
+        if (queue != null) queue.remove(pending);
+    }
+
+    /**
+     * Fails every pending request, typically because the connection was closed.
+     *
+     * @param cause the reason given to the waiting callers
+     */
+    void failAll(Throwable cause) {
+        for (Pending pending : byId.values()) {
+            cancel(pending);
+            pending.future().completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Returns the number of requests still waiting for a response.
+     *
+     * @return the number of pending requests
+     */
+    int size() {
+        return byId.size();
+    }
+}
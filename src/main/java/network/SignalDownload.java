@@ -0,0 +1,308 @@
+package network;
+
+import Events.ServerConnectedEvent;
+import Events.UIEventBus;
+import com.google.common.eventbus.Subscribe;
+import pojos.Signal;
+import ui.ECGFileReader;
+import ui.SignalCsvParser;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Download of a signal recording in fixed-size chunks.
+ * <p>
+ * The signal ZIP is requested one chunk at a time with {@code REQUEST_SIGNAL_CHUNK}; every
+ * chunk travels in its own encrypted message. From the first chunk on, a virtual thread
+ * inflates and parses the ZIP while the next chunks arrive (see {@link ChunkInputStream}),
+ * and hands the decoded samples to the {@link SignalCsvParser.SampleListener}s, so a
+ * recording can be drawn before it has been fully downloaded. In addition:
+ * </p>
+ * <ul>
+ *     <li>If the connection is lost ({@link Events.ServerDisconnectedEvent}), the download
+ *         keeps what it has and resumes from the first missing chunk when the session is ready
+ *         again, with a new token ({@link ServerConnectedEvent}).</li>
+ *     <li>A chunk that times out or fails is requested again, up to {@value #MAX_ATTEMPTS} times.</li>
+ *     <li>Until the server has answered a chunk, the first chunk probes whether it supports
+ *         chunked downloads, with the short {@link Client#getProbeTimeout()}. If it fails in any
+ *         way, the whole signal is requested at once with {@link Client#getSignalFromIdAsync(int)}.</li>
+ * </ul>
+ * <p>
+ * Instances are created and started by {@link Client#downloadSignal(int)}.
+ * </p>
+ */
+public class SignalDownload {
+
+    /**
+     * Receives the progress of a download. Called from a background thread.
+     */
+    public interface ProgressListener {
+        /**
+         * Called every time a chunk has been received.
+         *
+         * @param chunksReceived the number of chunks received so far
+         * @param totalChunks    the number of chunks of the signal
+         */
+        void onProgress(int chunksReceived, int totalChunks);
+    }
+
+    /**
+     * A chunk of the signal ZIP, as received from the server.
+     *
+     * @param index       the position of the chunk, starting at 0
+     * @param totalChunks the number of chunks of the signal
+     * @param data        the bytes of the chunk
+     * @param metadata    the signal metadata, sent with the first chunk only (may be null)
+     */
+    record Chunk(int index, int totalChunks, byte[] data, Signal metadata) {
+    }
+
+    static final int MAX_ATTEMPTS = 3;
+
+    private final Client client;
+    private final int signalId;
+    private final CompletableFuture<Signal> result = new CompletableFuture<>();
+    private final CompletableFuture<Signal> metadata = new CompletableFuture<>();
+    private final List<ProgressListener> listeners = new CopyOnWriteArrayList<>();
+    private final List<SignalCsvParser.SampleListener> sampleListeners = new CopyOnWriteArrayList<>();
+    private final ChunkInputStream zipStream = new ChunkInputStream();
+    //The CSV may be decoded before the end of the ZIP arrives: the result waits for both
+    private final CompletableFuture<Void> allChunksReceived = new CompletableFuture<>();
+    private int nextChunk = 0;
+    private int totalChunks = -1;
+    private int attempts = 0;
+    private boolean waitingForReconnect = false;
+
+    SignalDownload(Client client, int signalId) {
+        this.client = client;
+        this.signalId = signalId;
+    }
+
+    /**
+     * Starts the download. Progress listeners should be added before.
+     */
+    void start() {
+        UIEventBus.BUS.register(this);
+        result.whenComplete((signal, error) -> {
+            UIEventBus.BUS.unregister(this);
+            if (error != null) {
+                // Stops the decoding thread, if any
+                zipStream.fail(new IOException("Download of signal " + signalId + " failed", error));
+                metadata.completeExceptionally(error);
+            }
+        });
+        if (Boolean.FALSE.equals(client.isChunkedDownloadSupported())) {
+            downloadWhole();
+        } else {
+            requestNextChunk();
+        }
+    }
+
+    /**
+     * Adds a listener notified every time a chunk is received.
+     *
+     * @param listener the listener to add
+     * @return this download, to chain calls
+     */
+    public SignalDownload addProgressListener(ProgressListener listener) {
+        listeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Adds a listener that receives the samples while they are decoded. Listeners must
+     * be added before the download starts, see {@link Client#downloadSignal(int,
+     * ProgressListener, SignalCsvParser.SampleListener)}. They are not called when the
+     * whole signal is requested at once: the {@link #getMetadata() metadata} then already
+     * holds all the samples.
+     *
+     * @param listener the listener to add
+     * @return this download, to chain calls
+     */
+    SignalDownload addSampleListener(SignalCsvParser.SampleListener listener) {
+        sampleListeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Returns the future completed with the metadata of the signal (date, comments,
+     * frequency) as soon as the first chunk arrives, before its samples are available.
+     * If the whole signal was requested at once, it completes with the samples.
+     * It is the same {@link Signal} instance the {@link #getResult() result} completes with.
+     *
+     * @return the future of the signal metadata
+     */
+    public CompletableFuture<Signal> getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * Returns the future completed with the signal, samples included, once every chunk has
+     * been received and decoded.
+     *
+     * @return the future of the downloaded signal
+     */
+    public CompletableFuture<Signal> getResult() {
+        return result;
+    }
+
+    /**
+     * Stops the download. The result future is cancelled.
+     */
+    public void cancel() {
+        result.cancel(false);
+    }
+
+    /**
+     * Returns the number of chunks received so far.
+     *
+     * @return the number of chunks received
+     */
+    public synchronized int getChunksReceived() {
+        return nextChunk;
+    }
+
+    /**
+     * Returns the number of chunks of the signal.
+     *
+     * @return the number of chunks, or -1 while the first chunk has not arrived
+     */
+    public synchronized int getTotalChunks() {
+        return totalChunks;
+    }
+
+    /**
+     * Resumes a download interrupted by a disconnection.
+     *
+     * @param event the connection event
+     */
+    @Subscribe
+    public void onServerConnected(ServerConnectedEvent event) {
+        synchronized (this) {
+            if (!waitingForReconnect || result.isDone()) return;
+            waitingForReconnect = false;
+            attempts = 0;
+        }
+        System.out.println("Resuming download of signal " + signalId + " from chunk " + getChunksReceived());
+        requestNextChunk();
+    }
+
+    private void requestNextChunk() {
+        int index;
+        synchronized (this) {
+            if (result.isDone()) return;
+            index = nextChunk;
+            attempts++;
+        }
+        client.requestSignalChunkAsync(signalId, index).whenComplete((chunk, error) -> {
+            if (error == null) {
+                onChunk(chunk);
+            } else {
+                onChunkFailed(index, error instanceof CompletionException ? error.getCause() : error);
+            }
+        });
+    }
+
+    private void onChunk(Chunk chunk) {
+        int received;
+        int total;
+        boolean first;
+        synchronized (this) {
+            if (result.isDone()) return;
+            if (chunk.index() != nextChunk || chunk.totalChunks() <= 0
+                    || (chunk.index() == 0 && chunk.metadata() == null)) {
+                result.completeExceptionally(new ClientServerCommunicationError(
+                        "Unexpected chunk " + chunk.index() + " of signal " + signalId));
+                return;
+            }
+            zipStream.add(chunk.data());
+            totalChunks = chunk.totalChunks();
+            first = nextChunk == 0;
+            nextChunk++;
+            attempts = 0;
+            received = nextChunk;
+            total = totalChunks;
+        }
+        if (first) {
+            client.setChunkedDownloadSupported(true);
+            metadata.complete(chunk.metadata());
+            Thread.ofVirtual().name("signal-decoder-" + signalId).start(() -> decode(chunk.metadata()));
+        }
+        if (received == total) zipStream.end();
+        for (ProgressListener listener : listeners) {
+            listener.onProgress(received, total);
+        }
+        if (received < total) {
+            requestNextChunk();
+        } else {
+            allChunksReceived.complete(null);
+        }
+    }
+
+    private void onChunkFailed(int index, Throwable error) {
+        if (error instanceof CancellationException) return;
+        if (!client.isSessionReady()) {
+            // Connection lost, or the failure of the lost connection arrives while the client
+            // reconnects: keep the chunks received and wait for the new session
+            synchronized (this) {
+                waitingForReconnect = true;
+            }
+            System.out.println("Download of signal " + signalId + " paused at chunk " + index);
+            return;
+        }
+        boolean unsupported;
+        boolean retry;
+        synchronized (this) {
+            unsupported = index == 0 && client.isChunkedDownloadSupported() == null;
+            retry = attempts < MAX_ATTEMPTS;
+        }
+        if (unsupported) {
+            // Servers without REQUEST_SIGNAL_CHUNK answer with an error or not at all: request the whole signal instead
+            System.out.println("Chunked download not supported by the server: " + error.getMessage());
+            client.setChunkedDownloadSupported(false);
+            downloadWhole();
+        } else if (retry) {
+            System.out.println("Retrying chunk " + index + " of signal " + signalId + ": " + error.getMessage());
+            requestNextChunk();
+        } else {
+            result.completeExceptionally(error);
+        }
+    }
+
+    /**
+     * Inflates and parses the ZIP while its chunks arrive, then completes the result.
+     */
+    private void decode(Signal signal) {
+        try {
+            SignalCsvParser.SampleListener listener = (ecg, acc, from, to) -> {
+                for (SignalCsvParser.SampleListener l : sampleListeners) l.onSamples(ecg, acc, from, to);
+            };
+            Signal samples = ECGFileReader.readSignalFromZip(zipStream, signal.getFrequency(), listener);
+            signal.setEcg(samples.getEcg());
+            signal.setAcc(samples.getAcc());
+            allChunksReceived.thenRun(() -> result.complete(signal));
+        } catch (IOException | RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private void downloadWhole() {
+        client.getSignalFromIdAsync(signalId).whenComplete((signal, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+                return;
+            }
+            // Holds the samples already: the sample listeners would only copy them again
+            metadata.complete(signal);
+            for (ProgressListener listener : listeners) {
+                listener.onProgress(1, 1);
+            }
+            result.complete(signal);
+        });
+    }
+}
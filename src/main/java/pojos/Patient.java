@@ -19,6 +19,11 @@ public class Patient {
     private ArrayList<Report> symptoms;
     private ArrayList<Signal> recordings;
     private int doctor_id;
+    //Nested arrays received from the server, parsed the first time they are needed
+    private JsonArray recordingsJason;
+    private JsonArray symptomsJason;
+    //False for the summaries of a paged list, until the rest of the patient is loaded
+    private boolean detailsLoaded = true;
 
 
     public Patient() {
@@ -115,20 +120,65 @@ public class Patient {
 
     public void setSymptoms(ArrayList<Report> symptoms) {
         this.symptoms = symptoms;
+        this.symptomsJason = null;
     }
 
     public void setRecordings(ArrayList<Signal> recordings) {
         this.recordings = recordings;
+        this.recordingsJason = null;
     }
 
     public ArrayList<Report> getSymptoms() {
+        if (symptomsJason != null) {
+            ArrayList<Report> reports = new ArrayList<>(symptomsJason.size());
+            for (JsonElement elem : symptomsJason) {
+                reports.add(Report.fromJson(elem.getAsJsonObject()));
+            }
+            setSymptoms(reports);
+        }
         return symptoms;
     }
 
     public ArrayList<Signal> getRecordings() {
+        if (recordingsJason != null) {
+            ArrayList<Signal> signals = new ArrayList<>(recordingsJason.size());
+            for (JsonElement elem : recordingsJason) {
+                signals.add(Signal.fromJson(elem.getAsJsonObject()));
+            }
+            setRecordings(signals);
+        }
         return recordings;
     }
 
+    /**
+     * Returns whether all the data of the patient is available. Patients received as
+     * summaries in a paged list only have their id, name and surname (and email, if sent)
+     * until {@link #setDetails(Patient)} is called.
+     *
+     * @return false for a summary whose details have not been loaded yet
+     */
+    public boolean isDetailsLoaded() {
+        return detailsLoaded;
+    }
+
+    /**
+     * Completes a patient summary with the data of the full patient.
+     *
+     * @param details the same patient, with all its data
+     */
+    public void setDetails(Patient details) {
+        this.email = details.email;
+        this.phoneNumber = details.phoneNumber;
+        this.gender = details.gender;
+        this.dateOfBirth = details.dateOfBirth;
+        this.doctor_id = details.doctor_id;
+        this.recordings = details.recordings;
+        this.recordingsJason = details.recordingsJason;
+        this.symptoms = details.symptoms;
+        this.symptomsJason = details.symptomsJason;
+        this.detailsLoaded = true;
+    }
+
     @Override
     public String toString() {
         return "Patient{" +
@@ -154,32 +204,37 @@ public class Patient {
         patient.setGender(jason.get("gender").getAsString());
         patient.setDoctor_id(jason.get("doctorId").getAsInt());
 
-        // ----- SIGNALS -----
+        // ----- SIGNALS and SYMPTOMS / REPORTS -----
+        // Kept as JSON and parsed by the getters, only for the patients that are opened
         if (jason.has("signals")) {
-            JsonArray signalsJson = jason.getAsJsonArray("signals");
-            ArrayList<Signal> signals = new ArrayList<>();
-
-            for (JsonElement elem : signalsJson) {
-                JsonObject sJson = elem.getAsJsonObject();
-                signals.add(Signal.fromJson(sJson));
-            }
-            patient.setRecordings(signals);
+            patient.recordingsJason = jason.getAsJsonArray("signals");
         }
-
-        // ----- SYMPTOMS / REPORTS -----
         if (jason.has("reports")) {
-            JsonArray symptomsJson = jason.getAsJsonArray("reports");
-            ArrayList<Report> reports = new ArrayList<>();
-
-            for (JsonElement elem : symptomsJson) {
-                JsonObject rJson = elem.getAsJsonObject();
-                reports.add(Report.fromJson(rJson));
-            }
-            patient.setSymptoms(reports);
+            patient.symptomsJason = jason.getAsJsonArray("reports");
         }
         return patient;
     }
 
+    /**
+     * Creates a patient from the summary sent in a paged patient list: id, name, surname
+     * and optionally email. The rest of the data is loaded later with {@link #setDetails(Patient)}.
+     *
+     * @param jason the summary of the patient
+     * @return a patient whose details are not loaded
+     */
+    public static Patient summaryFromJason(JsonObject jason) {
+        Patient patient = new Patient();
+        patient.setId(jason.get("id").getAsInt());
+        patient.setName(jason.get("name").getAsString());
+        patient.setSurname(jason.get("surname").getAsString());
+        patient.setEmail(jason.has("email") ? jason.get("email").getAsString() : "");
+        patient.setPhoneNumber(0);
+        patient.setGender("");
+        patient.setDateOfBirth(null);
+        patient.detailsLoaded = false;
+        return patient;
+    }
+
     /**
      * Converts this {@code Patient} into a {@link JsonObject}. The JSON object specifies all public fields
      * except the {@code active} field //TODO: por que no lo especifica?
@@ -2,11 +2,7 @@ package pojos;
 
 import com.google.gson.JsonObject;
 
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
 import java.time.LocalDate;
-import java.util.Base64;
 
 public class Signal {
     private int id;
@@ -16,7 +12,6 @@ public class Signal {
     private String timestamp;
     private String comments;
     private LocalDate date;
-    private File zipFile;
     private int reportId;
 
 
@@ -30,17 +25,6 @@ public class Signal {
 
     }
 
-    public Signal(int id, LocalDate date, String comments, double samplingRate, File tempZip) {
-        this.id = id;
-        this.date = date;
-        this.comments = comments;
-        this.frequency = (int) samplingRate;
-        this.timestamp = "";
-        this.reportId = -1;
-        this.zipFile = tempZip;
-
-    }
-
     public Signal() {
         this.id = 0;
         this.date = LocalDate.now();
@@ -63,24 +47,6 @@ public class Signal {
         return new Signal(id, date, comments, samplingRate);
     }
 
-    public static Signal fromJasonWithZip(JsonObject json) throws IOException {
-        JsonObject meta = json.getAsJsonObject("metadata");
-        int id = meta.get("signal_id").getAsInt();
-        int patientId = meta.get("patient_id").getAsInt();
-        String comments = meta.get("comments").getAsString();
-        double samplingRate = meta.get("sampling_rate").getAsDouble();
-        LocalDate date = LocalDate.parse(meta.get("date").getAsString());
-        String base64Zip = json.get("dataBytes").getAsString();
-        byte[] zipBytes = Base64.getDecoder().decode(base64Zip);
-        File tempZip = File.createTempFile("signal_" + id + "_", ".zip");
-        try (FileOutputStream fos = new FileOutputStream(tempZip)) {
-            fos.write(zipBytes);
-        }
-        return new Signal(id, date, comments, samplingRate,tempZip);
-
-    }
-
-
     public int getId() { return id; }
     public void setId(int id) { this.id = id; }
 
@@ -131,9 +97,6 @@ public class Signal {
     public void setAcc(double[] acc) {
         this.acc = acc;
     }
-    public File getZipFile() {
-        return zipFile;
-    }
 
     /**
      * Creates a new {@code Signal} instance from a {@link JsonObject}
@@ -0,0 +1,157 @@
+package processing;
+
+import java.util.Arrays;
+
+/**
+ * Events found in a recording, such as the seizure candidates of {@link SeizureDetector}: the
+ * first and the last sample of every event and its score, in increasing order of start.
+ * <p>
+ * The events are kept in three primitive arrays, so even thousands of them take a few kilobytes,
+ * and the event to jump to from any sample is found by binary search. Immutable.
+ * </p>
+ */
+public final class EventIndex {
+    /** An index without events. */
+    public static final EventIndex EMPTY = new EventIndex(new int[0], new int[0], new double[0]);
+
+    private final int[] starts;
+    private final int[] ends;
+    private final double[] scores;
+
+    private EventIndex(int[] starts, int[] ends, double[] scores) {
+        this.starts = starts;
+        this.ends = ends;
+        this.scores = scores;
+    }
+
+    /**
+     * Returns the number of events.
+     *
+     * @return the number of events
+     */
+    public int size() {
+        return starts.length;
+    }
+
+    /**
+     * Returns the first sample of an event.
+     *
+     * @param event the index of the event
+     * @return the index of its first sample
+     */
+    public int start(int event) {
+        return starts[event];
+    }
+
+    /**
+     * Returns the end of an event.
+     *
+     * @param event the index of the event
+     * @return the index after its last sample
+     */
+    public int end(int event) {
+        return ends[event];
+    }
+
+    /**
+     * Returns the score of an event: how strongly it stands out, 1 being the least to be an event.
+     *
+     * @param event the index of the event
+     * @return the score
+     */
+    public double score(int event) {
+        return scores[event];
+    }
+
+    /**
+     * Returns the first event starting after a sample, to jump forward from it.
+     *
+     * @param sample the index of the sample
+     * @return the index of the event, or -1 if no event starts after the sample
+     */
+    public int next(int sample) {
+        int event = Arrays.binarySearch(starts, sample + 1);
+        if (event < 0) event = -event - 1;
+        // Several events may start on the same sample: take the first one
+        while (event > 0 && starts[event - 1] > sample) event--;
+        return event < starts.length ? event : -1;
+    }
+
+    /**
+     * Returns the last event starting before a sample, to jump backward from it.
+     *
+     * @param sample the index of the sample
+     * @return the index of the event, or -1 if no event starts before the sample
+     */
+    public int previous(int sample) {
+        int event = Arrays.binarySearch(starts, sample);
+        if (event < 0) event = -event - 1;
+        while (event > 0 && starts[event - 1] >= sample) event--;
+        return event - 1;
+    }
+
+    /**
+     * Returns the events from the highest score to the lowest.
+     *
+     * @return the indexes of the events, sorted by decreasing score
+     */
+    public int[] byScore() {
+        long[] keys = new long[starts.length];
+        for (int i = 0; i < keys.length; i++) {
+            // Scores are positive: their bits sort as the scores, and the index fits in the low bits
+            keys[i] = (Double.doubleToLongBits(scores[i]) & ~0xFFFFFFFFL) | (0xFFFFFFFFL - i);
+        }
+        Arrays.sort(keys);
+        int[] order = new int[keys.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = (int) (0xFFFFFFFFL - (keys[keys.length - 1 - i] & 0xFFFFFFFFL));
+        }
+        return order;
+    }
+
+    /**
+     * Collects events in increasing order of start. Not thread-safe.
+     */
+    public static class Builder {
+        private int[] starts = new int[8];
+        private int[] ends = new int[8];
+        private double[] scores = new double[8];
+        private int count;
+
+        /**
+         * Adds an event after those added before.
+         *
+         * @param start the index of its first sample
+         * @param end   the index after its last sample
+         * @param score its score
+         * @return this builder
+         * @throws IllegalArgumentException if the event is empty or starts before the previous one
+         */
+        public Builder add(int start, int end, double score) {
+            if (end <= start || (count > 0 && start < starts[count - 1])) {
+                throw new IllegalArgumentException("Event out of order: [" + start + ", " + end + ")");
+            }
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+                scores = Arrays.copyOf(scores, count * 2);
+            }
+            starts[count] = start;
+            ends[count] = end;
+            scores[count] = score;
+            count++;
+            return this;
+        }
+
+        /**
+         * Returns the index of the events added.
+         *
+         * @return the index
+         */
+        public EventIndex build() {
+            if (count == 0) return EMPTY;
+            return new EventIndex(Arrays.copyOf(starts, count), Arrays.copyOf(ends, count),
+                    Arrays.copyOf(scores, count));
+        }
+    }
+}
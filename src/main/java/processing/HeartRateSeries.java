@@ -0,0 +1,164 @@
+package processing;
+
+import java.util.Arrays;
+
+/**
+ * The beats of an ECG, found by {@link RPeakDetector}, with the RR intervals and the heart rate
+ * they give.
+ * <p>
+ * Only the sample index of every R peak is kept; the RR interval and the heart rate of a beat are
+ * computed from it and the previous one when asked for, so the series takes four bytes per beat,
+ * about 400 KB for a day. Immutable.
+ * </p>
+ */
+public final class HeartRateSeries {
+    private final int frequency;
+    private final int[] peaks;
+
+    /**
+     * Creates a series.
+     *
+     * @param frequency the sampling frequency of the ECG in Hz
+     * @param peaks     the sample index of every R peak, in increasing order; not copied
+     */
+    HeartRateSeries(int frequency, int[] peaks) {
+        this.frequency = frequency;
+        this.peaks = peaks;
+    }
+
+    /**
+     * Returns the sampling frequency of the ECG.
+     *
+     * @return the frequency in Hz
+     */
+    public int getFrequency() {
+        return frequency;
+    }
+
+    /**
+     * Returns the number of beats.
+     *
+     * @return the number of R peaks found
+     */
+    public int size() {
+        return peaks.length;
+    }
+
+    /**
+     * Returns the sample index of the R peak of a beat.
+     *
+     * @param beat the index of the beat
+     * @return the index of its R peak in the ECG
+     */
+    public int peak(int beat) {
+        return peaks[beat];
+    }
+
+    /**
+     * Returns the time of the R peak of a beat.
+     *
+     * @param beat the index of the beat
+     * @return the seconds from the start of the recording
+     */
+    public double time(int beat) {
+        return (double) peaks[beat] / frequency;
+    }
+
+    /**
+     * Returns the RR interval ending at a beat.
+     *
+     * @param beat the index of the beat, at least 1
+     * @return the milliseconds since the previous R peak
+     */
+    public double rrInterval(int beat) {
+        return 1000.0 * (peaks[beat] - peaks[beat - 1]) / frequency;
+    }
+
+    /**
+     * Returns the instantaneous heart rate at a beat.
+     *
+     * @param beat the index of the beat, at least 1
+     * @return the beats per minute given by the RR interval ending at it
+     */
+    public double heartRate(int beat) {
+        return 60.0 * frequency / (peaks[beat] - peaks[beat - 1]);
+    }
+
+    /**
+     * Returns all the RR intervals.
+     *
+     * @return the RR interval ending at every beat but the first, in milliseconds
+     */
+    public double[] rrIntervals() {
+        double[] intervals = new double[Math.max(0, peaks.length - 1)];
+        for (int i = 0; i < intervals.length; i++) intervals[i] = rrInterval(i + 1);
+        return intervals;
+    }
+
+    /**
+     * Returns the heart rate over time.
+     *
+     * @return the instantaneous heart rate at every beat but the first, in beats per minute
+     */
+    public double[] heartRates() {
+        double[] rates = new double[Math.max(0, peaks.length - 1)];
+        for (int i = 0; i < rates.length; i++) rates[i] = heartRate(i + 1);
+        return rates;
+    }
+
+    /**
+     * Returns the heart rate at a sample of the ECG: that of the beat ending the RR interval the
+     * sample falls in.
+     *
+     * @param sample the index of the sample
+     * @return the beats per minute, NaN outside the first and the last R peaks
+     */
+    public double heartRateAt(int sample) {
+        int beat = Arrays.binarySearch(peaks, sample);
+        if (beat < 0) beat = -beat - 1;
+        return beat > 0 && beat < peaks.length ? heartRate(beat) : Double.NaN;
+    }
+
+    /**
+     * Returns the mean heart rate: the beats per minute between the first and the last R peaks.
+     *
+     * @return the mean heart rate, NaN if there are less than two beats
+     */
+    public double meanHeartRate() {
+        if (peaks.length < 2) return Double.NaN;
+        return 60.0 * frequency * (peaks.length - 1) / (peaks[peaks.length - 1] - peaks[0]);
+    }
+
+    /**
+     * Returns the standard deviation of the RR intervals (SDNN).
+     *
+     * @return the SDNN in milliseconds, NaN if there are less than two beats
+     */
+    public double sdnn() {
+        if (peaks.length < 2) return Double.NaN;
+        double mean = 0;
+        double m2 = 0;
+        for (int i = 1; i < peaks.length; i++) {
+            double rr = rrInterval(i);
+            double delta = rr - mean;
+            mean += delta / i;
+            m2 += delta * (rr - mean);
+        }
+        return Math.sqrt(m2 / (peaks.length - 1));
+    }
+
+    /**
+     * Returns the root mean square of the differences between successive RR intervals (RMSSD).
+     *
+     * @return the RMSSD in milliseconds, NaN if there are less than three beats
+     */
+    public double rmssd() {
+        if (peaks.length < 3) return Double.NaN;
+        double sum = 0;
+        for (int i = 2; i < peaks.length; i++) {
+            double difference = rrInterval(i) - rrInterval(i - 1);
+            sum += difference * difference;
+        }
+        return Math.sqrt(sum / (peaks.length - 2));
+    }
+}
@@ -0,0 +1,428 @@
+package processing;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+
+/**
+ * Detects the R peaks of an ECG with the method of Pan and Tompkins, reading the samples once,
+ * in order, as they arrive.
+ * <p>
+ * Every sample goes through a 5-15 Hz band-pass filter (two biquads), the five-point derivative,
+ * squaring and a moving-window integration over {@value #INTEGRATION_SECONDS} s. The local maxima
+ * of the integrated signal are classified as QRS complexes or noise with the two adaptive
+ * thresholds of the method: a peak above the signal threshold is a beat, unless it falls within
+ * the {@value #REFRACTORY_SECONDS} s refractory period or is a T wave (a peak within
+ * {@value #T_WAVE_SECONDS} s of the last beat with less than half its slope). When no beat is
+ * found for 1.66 times the average RR interval, the largest noise peak since the last beat is
+ * taken if it passes half the threshold. The thresholds are learnt from the first
+ * {@value #LEARNING_SECONDS} s, whose peaks are kept and classified once they are known.
+ * </p>
+ * The R peak of a beat is the sample deviating most from the mean in the window of raw samples
+ * that the integration covered. Only those last samples are kept, so the memory used besides the
+ * detected beats does not depend on the length of the signal, and every sample costs the same
+ * few operations. Not thread-safe.
+ */
+public class RPeakDetector {
+    static final double LOW_CUTOFF = 5;
+    static final double HIGH_CUTOFF = 15;
+    static final double INTEGRATION_SECONDS = 0.150;
+    static final double REFRACTORY_SECONDS = 0.200;
+    static final double T_WAVE_SECONDS = 0.360;
+    static final double LEARNING_SECONDS = 2;
+    private static final int RR_HISTORY = 8;
+
+    private final int frequency;
+    // Band-pass filter: high-pass then low-pass biquads, in transposed direct form II
+    private final double hb0, hb1, hb2, ha1, ha2;
+    private final double lb0, lb1, lb2, la1, la2;
+    private double hz1, hz2, lz1, lz2;
+    // Previous filtered samples, for the derivative
+    private double f1, f2, f3, f4;
+    // Moving-window integration of the squared derivative
+    private final double[] squares;
+    private int squareNext;
+    private double squareSum;
+    // Last raw samples and squared slopes, to locate the R peak of a detected peak
+    private final double[] raw;
+    private final double[] slopes;
+    private final int lookback;
+    private int bufferNext;
+    // Peak picking on the integrated signal
+    private double lastIntegrated;
+    private boolean rising;
+    private int n;
+    // Adaptive thresholds, and the peaks found while learning them
+    private final int learningEnd;
+    private boolean learning = true;
+    private double learningMax;
+    private double learningSum;
+    private double[] learningPeaks = new double[16];
+    private int[] learningIndexes = new int[32];
+    private int learningCount;
+    private double signalLevel;
+    private double noiseLevel;
+    // Located peak, set by locate
+    private int locatedIndex;
+    private double locatedSlope;
+    // Beats
+    private final int refractory;
+    private final int tWave;
+    private int[] beats = new int[64];
+    private int beatCount;
+    private int lastBeatPeak;
+    private double lastBeatValue;
+    private double lastBeatSlope;
+    private final int[] rrHistory = new int[RR_HISTORY];
+    private int rrCount;
+    private int rrNext;
+    private long rrSum;
+    // Largest noise peak since the last beat, for the search back
+    private double missedValue;
+    private int missedPeak;
+    private int missedIndex;
+    private double missedSlope;
+
+    /**
+     * Creates a detector for an ECG sampled at the given frequency.
+     *
+     * @param frequency the sampling frequency in Hz
+     */
+    public RPeakDetector(int frequency) {
+        if (frequency <= 0) throw new IllegalArgumentException("Invalid sampling frequency: " + frequency);
+        this.frequency = frequency;
+        double[] high = biquad(LOW_CUTOFF, frequency, false);
+        hb0 = high[0];
+        hb1 = high[1];
+        hb2 = high[2];
+        ha1 = high[3];
+        ha2 = high[4];
+        // Below the Nyquist frequency for low sampling frequencies
+        double[] low = biquad(Math.min(HIGH_CUTOFF, 0.45 * frequency), frequency, true);
+        lb0 = low[0];
+        lb1 = low[1];
+        lb2 = low[2];
+        la1 = low[3];
+        la2 = low[4];
+        int window = Math.max(1, (int) Math.round(INTEGRATION_SECONDS * frequency));
+        squares = new double[window];
+        // The integrated peak lags the R peak by up to the window plus the filter delay
+        lookback = window + Math.max(2, (int) Math.round(0.1 * frequency));
+        raw = new double[lookback + 1];
+        slopes = new double[lookback + 1];
+        learningEnd = Math.max(1, (int) Math.round(LEARNING_SECONDS * frequency));
+        refractory = (int) Math.round(REFRACTORY_SECONDS * frequency);
+        tWave = (int) Math.round(T_WAVE_SECONDS * frequency);
+    }
+
+    /**
+     * Detects the R peaks of a whole ECG.
+     *
+     * @param ecg       the samples, read by absolute index
+     * @param length    the number of samples
+     * @param frequency the sampling frequency in Hz
+     * @return the beats found
+     */
+    public static HeartRateSeries detect(DoubleBuffer ecg, int length, int frequency) {
+        RPeakDetector detector = new RPeakDetector(frequency);
+        detector.process(ecg, 0, length);
+        return detector.finish();
+    }
+
+    /**
+     * Processes the next samples of the ECG. Successive calls must pass consecutive samples.
+     *
+     * @param samples the samples, read by absolute index
+     * @param from    index of the first sample
+     * @param to      index after the last sample
+     */
+    public void process(DoubleBuffer samples, int from, int to) {
+        if (samples.hasArray()) {
+            int offset = samples.arrayOffset();
+            process(samples.array(), from + offset, to + offset);
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            step(samples.get(i));
+        }
+    }
+
+    /**
+     * Processes the next samples of the ECG. Successive calls must pass consecutive samples.
+     *
+     * @param samples the samples
+     * @param from    index of the first sample
+     * @param to      index after the last sample
+     */
+    public void process(double[] samples, int from, int to) {
+        for (int i = from; i < to; i++) {
+            step(samples[i]);
+        }
+    }
+
+    /**
+     * Returns the beats found in the samples processed so far. Samples processed afterwards are
+     * not reflected in the returned series.
+     *
+     * @return the beats found
+     */
+    public HeartRateSeries finish() {
+        if (learning) endLearning();
+        searchBack(n);
+        return new HeartRateSeries(frequency, Arrays.copyOf(beats, beatCount));
+    }
+
+    /**
+     * Returns the number of beats found so far. The last one may still move to a higher peak
+     * found within the refractory period.
+     */
+    int beatCount() {
+        return beatCount;
+    }
+
+    /**
+     * Returns the sample index of the R peak of a beat found so far.
+     */
+    int beat(int index) {
+        return beats[index];
+    }
+
+    private void step(double x) {
+        if (n == 0) {
+            // Start the high-pass filter at rest on the first sample, to avoid a step response
+            hz2 = hb2 * x;
+            hz1 = (hb1 + hb2) * x;
+        }
+        double high = hb0 * x + hz1;
+        hz1 = hb1 * x - ha1 * high + hz2;
+        hz2 = hb2 * x - ha2 * high;
+        double filtered = lb0 * high + lz1;
+        lz1 = lb1 * high - la1 * filtered + lz2;
+        lz2 = lb2 * high - la2 * filtered;
+
+        double derivative = 2 * filtered + f1 - f3 - 2 * f4;
+        f4 = f3;
+        f3 = f2;
+        f2 = f1;
+        f1 = filtered;
+        double square = derivative * derivative;
+
+        squareSum += square - squares[squareNext];
+        squares[squareNext] = square;
+        if (++squareNext == squares.length) {
+            // Once per turn, sum the window again so that rounding errors do not pile up
+            squareNext = 0;
+            squareSum = 0;
+            for (double v : squares) squareSum += v;
+        }
+        double integrated = squareSum;
+
+        raw[bufferNext] = x;
+        slopes[bufferNext] = square;
+        if (++bufferNext == raw.length) bufferNext = 0;
+
+        if (integrated < lastIntegrated) {
+            if (rising) peak(lastIntegrated, n - 1);
+            rising = false;
+        } else if (integrated > lastIntegrated) {
+            rising = true;
+        }
+        lastIntegrated = integrated;
+
+        n++;
+        if (learning) {
+            learningSum += integrated;
+            if (integrated > learningMax) learningMax = integrated;
+            if (n == learningEnd) endLearning();
+        }
+    }
+
+    /**
+     * Handles a local maximum of the integrated signal.
+     *
+     * @param value the integrated value
+     * @param peak  its index
+     */
+    private void peak(double value, int peak) {
+        if (learning) {
+            // Classified once the thresholds are known
+            locate(peak);
+            if (learningCount == learningPeaks.length) {
+                learningPeaks = Arrays.copyOf(learningPeaks, learningCount * 2);
+                learningIndexes = Arrays.copyOf(learningIndexes, learningCount * 4);
+            }
+            learningPeaks[learningCount] = value;
+            learningIndexes[2 * learningCount] = peak;
+            learningIndexes[2 * learningCount + 1] = locatedIndex;
+            learningCount++;
+            return;
+        }
+        classify(value, peak, -1, 0);
+    }
+
+    private void endLearning() {
+        learning = false;
+        signalLevel = learningMax / 3;
+        noiseLevel = n > 0 ? learningSum / n / 2 : 0;
+        for (int i = 0; i < learningCount; i++) {
+            classify(learningPeaks[i], learningIndexes[2 * i], learningIndexes[2 * i + 1], Double.NaN);
+        }
+        learningPeaks = null;
+        learningIndexes = null;
+    }
+
+    /**
+     * Classifies a peak of the integrated signal as a beat or noise.
+     *
+     * @param value the integrated value
+     * @param peak  its index
+     * @param index the index of its R peak, or -1 to locate it when needed
+     * @param slope the steepest squared slope before it, NaN if unknown to skip the T wave test
+     */
+    private void classify(double value, int peak, int index, double slope) {
+        searchBack(peak);
+        if (beatCount > 0 && peak - lastBeatPeak < refractory) {
+            if (value > lastBeatValue) relocateLastBeat(value, peak, index, slope);
+            return;
+        }
+        double threshold = noiseLevel + 0.25 * (signalLevel - noiseLevel);
+        if (value > threshold) {
+            if (index < 0) {
+                locate(peak);
+                index = locatedIndex;
+                slope = locatedSlope;
+            }
+            if (beatCount > 0 && peak - lastBeatPeak < tWave && slope < 0.25 * lastBeatSlope) {
+                // T wave: less than half the slope of the beat before, squared
+                noiseLevel = 0.125 * value + 0.875 * noiseLevel;
+                return;
+            }
+            signalLevel = 0.125 * value + 0.875 * signalLevel;
+            addBeat(value, peak, index, slope);
+        } else {
+            noiseLevel = 0.125 * value + 0.875 * noiseLevel;
+            if (value > missedValue) {
+                if (index < 0) {
+                    locate(peak);
+                    index = locatedIndex;
+                    slope = locatedSlope;
+                }
+                missedValue = value;
+                missedPeak = peak;
+                missedIndex = index;
+                missedSlope = slope;
+            }
+        }
+    }
+
+    /**
+     * Takes the largest noise peak since the last beat as a beat if no beat has been found for
+     * too long and it passes half the threshold.
+     *
+     * @param now the index of the current peak
+     */
+    private void searchBack(int now) {
+        if (rrCount == 0 || missedValue == 0) return;
+        if (now - lastBeatPeak <= 1.66 * rrSum / rrCount) return;
+        double threshold = noiseLevel + 0.25 * (signalLevel - noiseLevel);
+        if (missedValue > 0.5 * threshold) {
+            signalLevel = 0.25 * missedValue + 0.75 * signalLevel;
+            addBeat(missedValue, missedPeak, missedIndex, missedSlope);
+        }
+        missedValue = 0;
+    }
+
+    private void addBeat(double value, int peak, int index, double slope) {
+        if (beatCount > 0) {
+            int rr = index - beats[beatCount - 1];
+            if (rr <= 0) return;
+            if (rrCount == RR_HISTORY) {
+                rrSum -= rrHistory[rrNext];
+            } else {
+                rrCount++;
+            }
+            rrHistory[rrNext] = rr;
+            rrSum += rr;
+            rrNext = (rrNext + 1) % RR_HISTORY;
+        }
+        if (beatCount == beats.length) beats = Arrays.copyOf(beats, beatCount + (beatCount >> 1));
+        beats[beatCount++] = index;
+        lastBeatPeak = peak;
+        lastBeatValue = value;
+        // Unknown for the beats of the learning period: no T wave test after them
+        lastBeatSlope = Double.isNaN(slope) ? 0 : slope;
+        missedValue = 0;
+    }
+
+    /**
+     * Moves the last beat to a higher peak of the integrated signal found within the refractory
+     * period. The integrated signal of a noisy QRS complex may have two maxima, and the window of
+     * samples searched for the R peak before the first one may end before it.
+     */
+    private void relocateLastBeat(double value, int peak, int index, double slope) {
+        if (index < 0) {
+            locate(peak);
+            index = locatedIndex;
+            slope = locatedSlope;
+        }
+        int previous = beatCount > 1 ? beats[beatCount - 2] : -1;
+        if (index <= previous) return;
+        if (previous >= 0) {
+            int last = (rrNext + RR_HISTORY - 1) % RR_HISTORY;
+            int rr = index - previous;
+            rrSum += rr - rrHistory[last];
+            rrHistory[last] = rr;
+        }
+        beats[beatCount - 1] = index;
+        lastBeatPeak = peak;
+        lastBeatValue = value;
+        if (!Double.isNaN(slope)) lastBeatSlope = Math.max(lastBeatSlope, slope);
+    }
+
+    /**
+     * Finds the R peak and the steepest squared slope in the window of samples that the
+     * integration covered at a peak of the integrated signal, and stores them in
+     * {@link #locatedIndex} and {@link #locatedSlope}.
+     *
+     * @param peak the index of the peak of the integrated signal, one of the last samples
+     */
+    private void locate(int peak) {
+        int count = Math.min(lookback, peak + 1);
+        // Slot of the first sample of the window, counting back from the slot of sample n
+        int slot = bufferNext - 1 - (n - peak) - (count - 1);
+        while (slot < 0) slot += raw.length;
+        double mean = 0;
+        for (int i = 0, s = slot; i < count; i++) {
+            mean += raw[s];
+            if (++s == raw.length) s = 0;
+        }
+        mean /= count;
+        double deviation = -1;
+        double slope = 0;
+        int best = 0;
+        for (int i = 0, s = slot; i < count; i++) {
+            double d = Math.abs(raw[s] - mean);
+            if (d > deviation) {
+                deviation = d;
+                best = i;
+            }
+            if (slopes[s] > slope) slope = slopes[s];
+            if (++s == raw.length) s = 0;
+        }
+        locatedIndex = peak - count + 1 + best;
+        locatedSlope = slope;
+    }
+
+    /**
+     * Computes the normalized coefficients {b0, b1, b2, a1, a2} of a second-order Butterworth
+     * filter (the biquads of the Audio EQ Cookbook, with Q = 1/sqrt(2)).
+     */
+    private static double[] biquad(double cutoff, int frequency, boolean lowPass) {
+        double w0 = 2 * Math.PI * cutoff / frequency;
+        double cos = Math.cos(w0);
+        double alpha = Math.sin(w0) / Math.sqrt(2);
+        double a0 = 1 + alpha;
+        double b1 = lowPass ? 1 - cos : -(1 + cos);
+        double b0 = Math.abs(b1) / 2;
+        return new double[]{b0 / a0, b1 / a0, b0 / a0, -2 * cos / a0, (1 - alpha) / a0};
+    }
+}
@@ -0,0 +1,159 @@
+package processing;
+
+/**
+ * Centers the samples of a signal one by one, as they arrive, without needing the whole
+ * signal first.
+ * <p>
+ * The mean of all the samples seen is kept incrementally, as in Welford's algorithm, which is
+ * numerically stable however long the signal is, together with the extremes, so that the
+ * normalization of a signal that is still streaming can be updated sample by sample (see
+ * {@link #statistics()}). The baseline subtracted from each sample is either that running mean
+ * or, if a baseline window is given, the mean of the last samples, kept in a circular buffer of
+ * that length. The sliding baseline follows slow drifts of the signal, such as the baseline
+ * wander of an ECG, so the samples stay centered on any window. Memory does not depend on the
+ * length of the signal, so it also works chunk by chunk over recordings that do not fit in
+ * memory.
+ * </p>
+ * Not thread-safe.
+ */
+public class RunningNormalizer {
+    // Running statistics of all the samples
+    private long count;
+    private double mean;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    // Last samples, for the sliding baseline
+    private final double[] window;
+    private int windowCount;
+    private int windowNext;
+    private double windowSum;
+
+    /**
+     * Creates a normalizer.
+     *
+     * @param baselineWindow the number of samples averaged for the sliding baseline, or 0 to
+     *                       center the samples on the running mean of all of them
+     */
+    public RunningNormalizer(int baselineWindow) {
+        if (baselineWindow < 0) throw new IllegalArgumentException("Negative baseline window: " + baselineWindow);
+        this.window = new double[baselineWindow];
+    }
+
+    /**
+     * Adds a sample to the running statistics and to the sliding baseline, without centering it.
+     *
+     * @param x the sample
+     */
+    public void add(double x) {
+        count++;
+        mean += (x - mean) / count;
+        if (x < min) min = x;
+        if (x > max) max = x;
+        if (window.length == 0) return;
+        if (windowCount == window.length) {
+            windowSum -= window[windowNext];
+        } else {
+            windowCount++;
+        }
+        window[windowNext] = x;
+        windowSum += x;
+        windowNext = windowNext + 1 == window.length ? 0 : windowNext + 1;
+        if (windowNext == 0) {
+            // Once per turn, sum the window again so that rounding errors do not pile up
+            windowSum = 0;
+            for (double v : window) windowSum += v;
+        }
+    }
+
+    /**
+     * Adds a sample and returns it minus the baseline, which then includes it.
+     *
+     * @param x the sample
+     * @return the centered sample
+     */
+    public double center(double x) {
+        add(x);
+        return x - baseline();
+    }
+
+    /**
+     * Returns the current baseline: the mean of the last samples added, or the running mean if
+     * there is no baseline window. Adding a few samples ahead before reading it centers the
+     * baseline on a sample instead of trailing it.
+     *
+     * @return the baseline, 0 if there are no samples
+     */
+    public double baseline() {
+        if (window.length == 0 || windowCount == 0) return mean;
+        return windowSum / windowCount;
+    }
+
+    /**
+     * Returns the number of samples averaged by the sliding baseline.
+     *
+     * @return the length of the baseline window, 0 if the baseline is the running mean
+     */
+    public int baselineWindow() {
+        return window.length;
+    }
+
+    /**
+     * Returns the number of samples seen.
+     *
+     * @return the number of samples
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns the running mean of all the samples seen.
+     *
+     * @return the mean, 0 if there are no samples
+     */
+    public double mean() {
+        return mean;
+    }
+
+    /**
+     * Returns the smallest sample seen.
+     *
+     * @return the minimum, positive infinity if there are no samples
+     */
+    public double min() {
+        return min;
+    }
+
+    /**
+     * Returns the largest sample seen.
+     *
+     * @return the maximum, negative infinity if there are no samples
+     */
+    public double max() {
+        return max;
+    }
+
+    /**
+     * Returns the statistics of all the samples seen, which center and scale them as
+     * {@link SignalPreprocessor} does for a whole signal.
+     *
+     * @return the statistics, {@link SignalPreprocessor.Statistics#EMPTY} if there are no samples
+     */
+    public SignalPreprocessor.Statistics statistics() {
+        if (count == 0) return SignalPreprocessor.Statistics.EMPTY;
+        return new SignalPreprocessor.Statistics(count, mean * count, min, max);
+    }
+
+    /**
+     * Forgets every sample seen, keeping the baseline window.
+     */
+    public void reset() {
+        count = 0;
+        mean = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+        windowCount = 0;
+        windowNext = 0;
+        windowSum = 0;
+    }
+}
@@ -0,0 +1,200 @@
+package processing;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * Flags the parts of a recording where the heart rate and the movement rise sharply together,
+ * as they do during convulsive seizures, reading the ECG and the ACC once, in order.
+ * <p>
+ * The ECG goes through an {@link RPeakDetector} and the ACC through a {@link RunningNormalizer}
+ * that removes its one-second baseline (gravity and the posture). Every second gives the heart
+ * rate of the beats found in it and the activity, the RMS of the centered ACC. Both are compared
+ * with their baselines, exponential averages over {@value #BASELINE_SECONDS} s of the quiet
+ * seconds, learnt during the first {@value #WARMUP_SECONDS} s. A second is active when the heart
+ * rate is at least {@value #MIN_HEART_RATE_RISE} bpm above its baseline and the activity at least
+ * {@value #MIN_ACTIVITY_RATIO} times its baseline; its score is the smaller of both rises, each
+ * divided by its minimum, so that walking or a tachycardia at rest alone are not flagged.
+ * </p>
+ * Active seconds less than {@value #MERGE_GAP_SECONDS} s apart make up one event, kept if it
+ * lasts at least {@value #MIN_EVENT_SECONDS} s, with the highest score of its seconds. The state
+ * kept is that of the current second, so memory does not depend on the length of the recording.
+ * Not thread-safe.
+ */
+public class SeizureDetector {
+    static final int BASELINE_SECONDS = 300;
+    static final int WARMUP_SECONDS = 60;
+    static final double MIN_HEART_RATE_RISE = 10;
+    static final double MIN_ACTIVITY_RATIO = 3;
+    static final int MERGE_GAP_SECONDS = 10;
+    static final int MIN_EVENT_SECONDS = 10;
+
+    private final int frequency;
+    private final RPeakDetector peaks;
+    private final RunningNormalizer acc;
+    // Current second
+    private int second;
+    private int samples;
+    private int samplesInSecond;
+    private double activitySum;
+    private int beatsSeen;
+    private double heartRate = Double.NaN;
+    // Baselines of the quiet seconds
+    private double heartRateBaseline;
+    private double activityBaseline;
+    private int baselineSeconds;
+    // Event being built, -1 if none
+    private int eventStart = -1;
+    private int lastActive;
+    private double eventScore;
+    private final EventIndex.Builder events = new EventIndex.Builder();
+    private HeartRateSeries heartRateSeries;
+
+    /**
+     * Creates a detector for a recording sampled at the given frequency.
+     *
+     * @param frequency the sampling frequency of both channels in Hz
+     */
+    public SeizureDetector(int frequency) {
+        this.frequency = frequency;
+        this.peaks = new RPeakDetector(frequency);
+        this.acc = new RunningNormalizer(frequency);
+    }
+
+    /**
+     * Processes the next samples of the recording. Successive calls must pass consecutive
+     * samples.
+     *
+     * @param ecg  the ECG samples, read by absolute index
+     * @param acc  the ACC samples, read by absolute index
+     * @param from index of the first sample
+     * @param to   index after the last sample
+     */
+    public void process(DoubleBuffer ecg, DoubleBuffer acc, int from, int to) {
+        for (int i = from; i < to; ) {
+            int end = Math.min(to, i + frequency - samplesInSecond);
+            peaks.process(ecg, i, end);
+            double sum = 0;
+            for (int j = i; j < end; j++) {
+                double centered = this.acc.center(acc.get(j));
+                sum += centered * centered;
+            }
+            activitySum += sum;
+            samplesInSecond += end - i;
+            samples += end - i;
+            i = end;
+            if (samplesInSecond == frequency) endSecond();
+        }
+    }
+
+    /**
+     * Processes the next samples of the recording. Successive calls must pass consecutive
+     * samples.
+     *
+     * @param ecg  the ECG samples
+     * @param acc  the ACC samples
+     * @param from index of the first sample
+     * @param to   index after the last sample
+     */
+    public void process(double[] ecg, double[] acc, int from, int to) {
+        process(DoubleBuffer.wrap(ecg), DoubleBuffer.wrap(acc), from, to);
+    }
+
+    /**
+     * Ends the recording: the last second and the last event are closed.
+     *
+     * @return the seizure candidates found
+     */
+    public EventIndex finish() {
+        if (heartRateSeries != null) return events.build();
+        if (samplesInSecond > 0) endSecond();
+        closeEvent();
+        heartRateSeries = peaks.finish();
+        return events.build();
+    }
+
+    /**
+     * Returns the beats found in the ECG, once {@link #finish()} has been called.
+     *
+     * @return the heart rate series, or null before the end of the recording
+     */
+    public HeartRateSeries getHeartRate() {
+        return heartRateSeries;
+    }
+
+    private void endSecond() {
+        double activity = Math.sqrt(activitySum / samplesInSecond);
+        updateHeartRate();
+        if (second < WARMUP_SECONDS) {
+            // Plain means of the first seconds
+            if (!Double.isNaN(heartRate)) {
+                baselineSeconds++;
+                heartRateBaseline += (heartRate - heartRateBaseline) / baselineSeconds;
+                activityBaseline += (activity - activityBaseline) / baselineSeconds;
+            }
+        } else {
+            double score = score(activity);
+            if (score > 0) {
+                if (eventStart < 0) {
+                    eventStart = second;
+                    eventScore = 0;
+                }
+                lastActive = second;
+                eventScore = Math.max(eventScore, score);
+            } else {
+                if (eventStart >= 0 && second - lastActive >= MERGE_GAP_SECONDS) closeEvent();
+                if (!Double.isNaN(heartRate)) {
+                    if (baselineSeconds++ == 0) {
+                        heartRateBaseline = heartRate;
+                        activityBaseline = activity;
+                    } else {
+                        heartRateBaseline += (heartRate - heartRateBaseline) / BASELINE_SECONDS;
+                        activityBaseline += (activity - activityBaseline) / BASELINE_SECONDS;
+                    }
+                }
+            }
+        }
+        second++;
+        samplesInSecond = 0;
+        activitySum = 0;
+    }
+
+    /**
+     * Scores a second against the baselines.
+     *
+     * @return the smaller of the rises of the heart rate and the activity, each divided by its
+     *         minimum, or 0 if the second is not active
+     */
+    private double score(double activity) {
+        if (Double.isNaN(heartRate) || baselineSeconds == 0) return 0;
+        double heartRateRise = (heartRate - heartRateBaseline) / MIN_HEART_RATE_RISE;
+        double activityRise = activity / Math.max(activityBaseline, Double.MIN_NORMAL) / MIN_ACTIVITY_RATIO;
+        double score = Math.min(heartRateRise, activityRise);
+        return score >= 1 ? score : 0;
+    }
+
+    /**
+     * Sets the heart rate of the second to the mean of the beats found since the previous one,
+     * or keeps the previous rate if there are none.
+     */
+    private void updateHeartRate() {
+        int count = peaks.beatCount();
+        // The last beat seen may have moved: take its interval again
+        int first = Math.max(1, beatsSeen - 1);
+        if (count > first) {
+            double sum = 0;
+            for (int i = first; i < count; i++) {
+                sum += 60.0 * frequency / (peaks.beat(i) - peaks.beat(i - 1));
+            }
+            heartRate = sum / (count - first);
+        }
+        beatsSeen = count;
+    }
+
+    private void closeEvent() {
+        if (eventStart < 0) return;
+        if (lastActive - eventStart + 1 >= MIN_EVENT_SECONDS) {
+            events.add(eventStart * frequency, Math.min(samples, (lastActive + 1) * frequency), eventScore);
+        }
+        eventStart = -1;
+    }
+}
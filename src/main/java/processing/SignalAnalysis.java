@@ -0,0 +1,97 @@
+package processing;
+
+import java.nio.DoubleBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Analyses run on a decoded recording in the background, so that opening a recording never
+ * waits for them.
+ * <p>
+ * Every analysis is a single pass over the samples and runs on one daemon thread shared by the
+ * whole application: recordings opened one after the other are analysed in order, and at most
+ * one core is kept busy while the user browses the graphs.
+ * </p>
+ */
+public final class SignalAnalysis {
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("signal-analysis").daemon().factory());
+
+    private SignalAnalysis() {
+    }
+
+    /**
+     * Results of the analysis of a recording.
+     *
+     * @param heartRate          the beats of the ECG, with the RR intervals and the heart rate
+     * @param seizureCandidates  the parts of the recording where the heart rate and the movement
+     *                           rose together, by {@link SeizureDetector}
+     */
+    public record Result(HeartRateSeries heartRate, EventIndex seizureCandidates) {
+    }
+
+    /**
+     * Analyzes a recording in the background, in a single pass over both channels.
+     *
+     * @param ecg       the ECG samples, read by absolute index; must not change until the future completes
+     * @param acc       the ACC samples, read by absolute index; must not change until the future completes
+     * @param length    the number of samples of each channel
+     * @param frequency the sampling frequency in Hz
+     * @return a future completed with the heart rate and the seizure candidates
+     */
+    public static CompletableFuture<Result> analyzeAsync(DoubleBuffer ecg, DoubleBuffer acc, int length, int frequency) {
+        return CompletableFuture.supplyAsync(() -> analyze(ecg, acc, length, frequency), EXECUTOR);
+    }
+
+    /**
+     * Analyzes a recording in the background, in a single pass over both channels.
+     *
+     * @param ecg       the ECG samples; must not change until the future completes
+     * @param acc       the ACC samples; must not change until the future completes
+     * @param frequency the sampling frequency in Hz
+     * @return a future completed with the heart rate and the seizure candidates
+     */
+    public static CompletableFuture<Result> analyzeAsync(double[] ecg, double[] acc, int frequency) {
+        return analyzeAsync(DoubleBuffer.wrap(ecg), DoubleBuffer.wrap(acc), Math.min(ecg.length, acc.length), frequency);
+    }
+
+    /**
+     * Analyzes a recording on the calling thread.
+     *
+     * @param ecg       the ECG samples, read by absolute index
+     * @param acc       the ACC samples, read by absolute index
+     * @param length    the number of samples of each channel
+     * @param frequency the sampling frequency in Hz
+     * @return the heart rate and the seizure candidates
+     */
+    public static Result analyze(DoubleBuffer ecg, DoubleBuffer acc, int length, int frequency) {
+        SeizureDetector detector = new SeizureDetector(frequency);
+        detector.process(ecg, acc, 0, length);
+        EventIndex events = detector.finish();
+        return new Result(detector.getHeartRate(), events);
+    }
+
+    /**
+     * Detects the beats of an ECG in the background.
+     *
+     * @param ecg       the samples, read by absolute index; must not change until the future completes
+     * @param length    the number of samples
+     * @param frequency the sampling frequency in Hz
+     * @return a future completed with the beats, the RR intervals and the heart rate
+     */
+    public static CompletableFuture<HeartRateSeries> heartRateAsync(DoubleBuffer ecg, int length, int frequency) {
+        return CompletableFuture.supplyAsync(() -> RPeakDetector.detect(ecg, length, frequency), EXECUTOR);
+    }
+
+    /**
+     * Detects the beats of an ECG in the background.
+     *
+     * @param ecg       the samples; must not change until the future completes
+     * @param frequency the sampling frequency in Hz
+     * @return a future completed with the beats, the RR intervals and the heart rate
+     */
+    public static CompletableFuture<HeartRateSeries> heartRateAsync(double[] ecg, int frequency) {
+        return heartRateAsync(DoubleBuffer.wrap(ecg), ecg.length, frequency);
+    }
+}
@@ -0,0 +1,297 @@
+package processing;
+
+import java.nio.DoubleBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Centering and normalization of the samples of a signal, split across the common
+ * {@link ForkJoinPool} for long signals.
+ * <p>
+ * The mean and the extremes are computed in a single pass ({@link #statistics(DoubleBuffer, int, int)}),
+ * and the normalized samples are written in a second one, either in place or into a buffer
+ * reused between calls ({@link #normalize(double[], double[])}). Signals longer than
+ * {@value #PARALLEL_THRESHOLD} samples are split in blocks processed in parallel, and the
+ * loops over each block are plain counted loops over arrays that the JIT compiler can unroll
+ * and vectorize.
+ * </p>
+ */
+public final class SignalPreprocessor {
+    /** Length under which a range of samples is processed by a single thread. */
+    static final int PARALLEL_THRESHOLD = 1 << 18;
+
+    private SignalPreprocessor() {
+    }
+
+    /**
+     * Sum and extremes of some samples.
+     *
+     * @param count the number of samples
+     * @param sum   the sum of the samples
+     * @param min   the minimum sample, positive infinity if there are none
+     * @param max   the maximum sample, negative infinity if there are none
+     */
+    public record Statistics(long count, double sum, double min, double max) {
+        /** Statistics of no samples. */
+        public static final Statistics EMPTY =
+                new Statistics(0, 0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY);
+
+        /**
+         * Returns the mean of the samples.
+         *
+         * @return the mean, 0 if there are no samples
+         */
+        public double mean() {
+            return count == 0 ? 0 : sum / count;
+        }
+
+        /**
+         * Returns the largest distance of a sample to the mean, which scales the centered
+         * samples to [-1, 1].
+         *
+         * @return the scale, 0 if all the samples are equal or there are none
+         */
+        public double scale() {
+            if (count == 0) return 0;
+            double mean = mean();
+            return Math.max(max - mean, mean - min);
+        }
+
+        /**
+         * Combines these statistics with those of other samples.
+         *
+         * @param other the statistics of the other samples
+         * @return the statistics of both sets of samples
+         */
+        public Statistics merge(Statistics other) {
+            return new Statistics(count + other.count, sum + other.sum,
+                    Math.min(min, other.min), Math.max(max, other.max));
+        }
+    }
+
+    /**
+     * Computes the sum and the extremes of a range of samples in one pass.
+     *
+     * @param samples the samples, read by absolute index
+     * @param from    index of the first sample
+     * @param to      index after the last sample
+     * @return the statistics of the range
+     */
+    public static Statistics statistics(DoubleBuffer samples, int from, int to) {
+        if (to - from <= PARALLEL_THRESHOLD) return sequentialStatistics(samples, from, to);
+        return ForkJoinPool.commonPool().invoke(new StatisticsTask(samples, from, to));
+    }
+
+    /**
+     * Computes the sum and the extremes of a range of an array in one pass.
+     *
+     * @param samples the samples
+     * @param from    index of the first sample
+     * @param to      index after the last sample
+     * @return the statistics of the range
+     */
+    public static Statistics statistics(double[] samples, int from, int to) {
+        return statistics(DoubleBuffer.wrap(samples), from, to);
+    }
+
+    /**
+     * Centers a signal on its mean and divides it by the largest distance to the mean, so that
+     * the result lies in [-1, 1].
+     *
+     * @param signal the samples to normalize
+     * @param into   the array receiving the result: the signal itself to normalize it in place,
+     *               a buffer kept between calls, or null to allocate a new one. A buffer that is
+     *               too short is replaced by a new array
+     * @return the array holding the normalized samples in its first {@code signal.length} values
+     */
+    public static double[] normalize(double[] signal, double[] into) {
+        int n = signal.length;
+        double[] result = into != null && into.length >= n ? into : new double[n];
+        if (n == 0) return result;
+        Statistics stats = statistics(signal, 0, n);
+        double scale = stats.scale();
+        normalize(signal, result, 0, n, stats.mean(), scale > 0 ? scale : 1);
+        return result;
+    }
+
+    /**
+     * Writes {@code (signal[i] - offset) / scale} for every sample of a range.
+     *
+     * @param signal the samples
+     * @param into   the array receiving the result, may be the signal itself
+     * @param from   index of the first sample
+     * @param to     index after the last sample
+     * @param offset the value subtracted from every sample
+     * @param scale  the value the centered samples are divided by
+     */
+    public static void normalize(double[] signal, double[] into, int from, int to, double offset, double scale) {
+        if (to - from <= PARALLEL_THRESHOLD) {
+            sequentialNormalize(signal, into, from, to, offset, scale);
+        } else {
+            ForkJoinPool.commonPool().invoke(new NormalizeTask(signal, into, from, to, offset, scale));
+        }
+    }
+
+    /**
+     * Action run on a block of a range split by {@link #forEachBlock(int, int, int, BlockAction)}.
+     */
+    @FunctionalInterface
+    public interface BlockAction {
+        /**
+         * Processes a block.
+         *
+         * @param from index of the first element of the block
+         * @param to   index after the last element of the block
+         */
+        void run(int from, int to);
+    }
+
+    /**
+     * Splits a range in blocks of at least {@code minBlock} elements and runs an action on every
+     * block in the common {@link ForkJoinPool}, returning once all of them are done.
+     *
+     * @param from     index of the first element
+     * @param to       index after the last element
+     * @param minBlock the length under which a block is not split further
+     * @param action   the action run on every block, from several threads
+     */
+    public static void forEachBlock(int from, int to, int minBlock, BlockAction action) {
+        if (to - from <= minBlock) {
+            action.run(from, to);
+        } else {
+            ForkJoinPool.commonPool().invoke(new BlockTask(from, to, Math.max(1, minBlock), action));
+        }
+    }
+
+    private static Statistics sequentialStatistics(DoubleBuffer samples, int from, int to) {
+        if (to <= from) return Statistics.EMPTY;
+        if (samples.hasArray()) {
+            int offset = samples.arrayOffset();
+            return arrayStatistics(samples.array(), from + offset, to + offset);
+        }
+        double sum = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            double v = samples.get(i);
+            sum += v;
+            if (v < min) min = v;
+            if (v > max) max = v;
+        }
+        return new Statistics(to - from, sum, min, max);
+    }
+
+    private static Statistics arrayStatistics(double[] x, int from, int to) {
+        // Four independent accumulators, so that consecutive samples do not wait for each other
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        double min0 = Double.POSITIVE_INFINITY, min1 = min0, min2 = min0, min3 = min0;
+        double max0 = Double.NEGATIVE_INFINITY, max1 = max0, max2 = max0, max3 = max0;
+        int i = from;
+        for (; i + 3 < to; i += 4) {
+            double a = x[i], b = x[i + 1], c = x[i + 2], d = x[i + 3];
+            s0 += a;
+            s1 += b;
+            s2 += c;
+            s3 += d;
+            if (a < min0) min0 = a;
+            if (b < min1) min1 = b;
+            if (c < min2) min2 = c;
+            if (d < min3) min3 = d;
+            if (a > max0) max0 = a;
+            if (b > max1) max1 = b;
+            if (c > max2) max2 = c;
+            if (d > max3) max3 = d;
+        }
+        for (; i < to; i++) {
+            s0 += x[i];
+            if (x[i] < min0) min0 = x[i];
+            if (x[i] > max0) max0 = x[i];
+        }
+        return new Statistics(to - from, (s0 + s1) + (s2 + s3),
+                Math.min(Math.min(min0, min1), Math.min(min2, min3)),
+                Math.max(Math.max(max0, max1), Math.max(max2, max3)));
+    }
+
+    private static void sequentialNormalize(double[] signal, double[] into, int from, int to,
+                                            double offset, double scale) {
+        for (int i = from; i < to; i++) {
+            into[i] = (signal[i] - offset) / scale;
+        }
+    }
+
+    private static class StatisticsTask extends RecursiveTask<Statistics> {
+        private final DoubleBuffer samples;
+        private final int from;
+        private final int to;
+
+        StatisticsTask(DoubleBuffer samples, int from, int to) {
+            this.samples = samples;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Statistics compute() {
+            if (to - from <= PARALLEL_THRESHOLD) return sequentialStatistics(samples, from, to);
+            int middle = (from + to) >>> 1;
+            StatisticsTask right = new StatisticsTask(samples, middle, to);
+            right.fork();
+            Statistics left = new StatisticsTask(samples, from, middle).compute();
+            return left.merge(right.join());
+        }
+    }
+
+    private static class NormalizeTask extends RecursiveAction {
+        private final double[] signal;
+        private final double[] into;
+        private final int from;
+        private final int to;
+        private final double offset;
+        private final double scale;
+
+        NormalizeTask(double[] signal, double[] into, int from, int to, double offset, double scale) {
+            this.signal = signal;
+            this.into = into;
+            this.from = from;
+            this.to = to;
+            this.offset = offset;
+            this.scale = scale;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                sequentialNormalize(signal, into, from, to, offset, scale);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new NormalizeTask(signal, into, from, middle, offset, scale),
+                    new NormalizeTask(signal, into, middle, to, offset, scale));
+        }
+    }
+
+    private static class BlockTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final int minBlock;
+        private final BlockAction action;
+
+        BlockTask(int from, int to, int minBlock, BlockAction action) {
+            this.from = from;
+            this.to = to;
+            this.minBlock = minBlock;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= minBlock) {
+                action.run(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new BlockTask(from, middle, minBlock, action), new BlockTask(middle, to, minBlock, action));
+        }
+    }
+}
@@ -5,8 +5,6 @@ import com.google.gson.JsonParser;
 import pojos.Signal;
 
 import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.zip.ZipEntry;
@@ -40,64 +38,97 @@ public class ECGFileReader {
         return result;
     }
 
+    /**
+     * Reads the ECG and ACC samples of a recording ZIP file.
+     * <p>
+     * The CSV entry is decoded straight from the {@link ZipInputStream}; nothing is
+     * extracted to disk.
+     * </p>
+     *
+     * @param zipFile the ZIP file containing the signal CSV
+     * @param freq    the sampling frequency in Hz
+     * @return a {@link Signal} with the ECG, ACC and frequency set
+     * @throws IOException if the ZIP cannot be read or contains no CSV
+     */
     public static Signal readSignalFromZip(File zipFile,int freq) throws IOException {
-        System.out.println("Soy el servidor y voy a leer el zip "+zipFile.getAbsolutePath());
-        // 1) Crear carpeta temporal donde descomprimir
-        Path tempDir = Files.createTempDirectory("signal_unzip_");
-        File extractedCSV = null;
+        System.out.println("Reading signal ZIP "+zipFile.getAbsolutePath());
+        try (InputStream in = new BufferedInputStream(new FileInputStream(zipFile))) {
+            return readSignalFromZip(in, freq);
+        }
+    }
 
-        // 2) Descomprimir ZIP
-        try (ZipInputStream zis = new ZipInputStream(new FileInputStream(zipFile))) {
-            ZipEntry entry;
+    /**
+     * Reads the ECG and ACC samples of a recording ZIP from a stream, in memory.
+     * <p>
+     * Entries are walked with a {@link ZipInputStream} and the first {@code .csv}
+     * entry is parsed directly into the sample arrays by a {@link SignalCsvParser}.
+     * Other entries are skipped. The stream is closed once the CSV has been read.
+     * </p>
+     *
+     * @param zipStream the ZIP content
+     * @param freq      the sampling frequency in Hz
+     * @return a {@link Signal} with the ECG, ACC and frequency set
+     * @throws IOException if the ZIP cannot be read or contains no CSV
+     */
+    public static Signal readSignalFromZip(InputStream zipStream, int freq) throws IOException {
+        return readSignalFromZip(zipStream, freq, null);
+    }
 
+    /**
+     * Same as {@link #readSignalFromZip(InputStream, int)}, handing the samples to a
+     * listener while they are decoded. Used to draw a recording that is still arriving.
+     *
+     * @param zipStream the ZIP content
+     * @param freq      the sampling frequency in Hz
+     * @param listener  receives the samples of every decoded block, may be null
+     * @return a {@link Signal} with the ECG, ACC and frequency set
+     * @throws IOException if the ZIP cannot be read or contains no CSV
+     */
+    public static Signal readSignalFromZip(InputStream zipStream, int freq, SignalCsvParser.SampleListener listener) throws IOException {
+        try (ZipInputStream zis = new ZipInputStream(zipStream)) {
+            ZipEntry entry;
             while ((entry = zis.getNextEntry()) != null) {
-                File outFile = new File(tempDir.toFile(), entry.getName());
-
-                try (FileOutputStream fos = new FileOutputStream(outFile)) {
-                    zis.transferTo(fos);
-                }
-
-                if (entry.getName().endsWith(".csv")) {
-                    extractedCSV = outFile;
+                if (!entry.isDirectory() && entry.getName().endsWith(".csv")) {
+                    Signal s = new SignalCsvParser(entry.getSize()).setSampleListener(listener).parse(zis, freq);
+                    System.out.println("CSV entry "+entry.getName()+" read: "+s.getEcg().length+" samples");
+                    return s;
                 }
             }
         }
-
-        if (extractedCSV == null) {
-            throw new IOException("CSV file not found inside ZIP");
-        }
-        System.out.println("CSV extraido en "+extractedCSV.getAbsolutePath());
-        // 3) Leer el CSV para obtener ECG + ACC
-        return readSignalFromCsv(extractedCSV,freq);
+        throw new IOException("CSV file not found inside ZIP");
     }
-    public static Signal readSignalFromCsv(File csvFile, int freq) throws IOException {
-        List<Double> ecgList = new ArrayList<>();
-        List<Double> accX = new ArrayList<>();
-        List<Double> accY = new ArrayList<>();
-        List<Double> accZ = new ArrayList<>();
-        List<Double> accMagnitude = new ArrayList<>();
-        System.out.println("Leyendo CSV "+csvFile.getAbsolutePath());
-        try (BufferedReader br = new BufferedReader(new FileReader(csvFile))) {
-            String line;
-
-            while ((line = br.readLine()) != null) {
-                System.out.println("Linea leida: "+line);
-                String[] parts = line.split(";");
 
-                if (parts.length > 4) continue;
-
-                ecgList.add(Double.parseDouble(parts[0]));
-                System.out.println("ecg "+parts[0]);
-                accMagnitude.add(Double.parseDouble(parts[1]));
-            }
+    /**
+     * Reads the ECG and ACC samples stored in a signal CSV file.
+     * <p>
+     * The file is streamed through a {@link SignalCsvParser}, which writes the samples
+     * directly into primitive arrays without creating a String or Double per sample.
+     * </p>
+     *
+     * @param csvFile the CSV file ({@code ecg;acc} per line)
+     * @param freq    the sampling frequency in Hz
+     * @return a {@link Signal} with the ECG, ACC and frequency set
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static Signal readSignalFromCsv(File csvFile, int freq) throws IOException {
+        try (InputStream in = new FileInputStream(csvFile)) {
+            Signal s = new SignalCsvParser(csvFile.length()).parse(in, freq);
+            System.out.println("CSV read: " + s.getEcg().length + " samples from " + csvFile.getAbsolutePath());
+            return s;
         }
+    }
 
-        // Construimos un Signal temporal
-        Signal s = new Signal();
-        s.setEcg(ecgList.stream().mapToDouble(Double::doubleValue).toArray());
-        s.setAcc(accMagnitude.stream().mapToDouble(Double::doubleValue).toArray());
-        s.setFrequency(freq);
-        return s;
+    /**
+     * Reads the ECG and ACC samples from a stream with the signal CSV layout.
+     * The stream is not closed.
+     *
+     * @param in   the CSV content
+     * @param freq the sampling frequency in Hz
+     * @return a {@link Signal} with the ECG, ACC and frequency set
+     * @throws IOException if the stream cannot be read or is malformed
+     */
+    public static Signal readSignalFromCsv(InputStream in, int freq) throws IOException {
+        return new SignalCsvParser().parse(in, freq);
     }
 
 
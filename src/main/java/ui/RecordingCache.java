@@ -0,0 +1,367 @@
+package ui;
+
+import pojos.Signal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of the decoded samples of the recordings already downloaded, so that a
+ * recording opened again is shown without downloading and decoding it.
+ * <p>
+ * Every recording is stored in its own file, named after the signal id, in a flat
+ * little-endian binary format: a header of {@value #HEADER_BYTES} bytes followed by the ECG
+ * samples and the ACC samples as doubles. The header holds the sampling frequency, the number
+ * of samples, a SHA-256 hash of the samples and the sum, minimum and maximum of each channel,
+ * which is everything the graphs need before reading a single sample.
+ * </p>
+ * <p>
+ * {@link #open(int)} maps the samples with {@link FileChannel#map}: opening a recording does
+ * not read it nor copy it to the heap, and the operating system pages in only the parts that
+ * are drawn, which also works for recordings larger than the JVM heap. The hash is checked
+ * against the samples in the background the first time a recording is opened in a session
+ * ({@link #verify(int)}), and a corrupted file is deleted so that the recording is downloaded
+ * again the next time.
+ * </p>
+ * <p>
+ * The total size of the files is bounded: when a new recording does not fit, the least
+ * recently opened ones are deleted. The order survives restarts because opening a recording
+ * updates the modification time of its file.
+ * </p>
+ */
+public class RecordingCache {
+
+    /**
+     * One channel of a cached recording.
+     *
+     * @param samples the mapped samples, read-only
+     * @param sum     the sum of the samples
+     * @param min     the minimum sample
+     * @param max     the maximum sample
+     */
+    public record Channel(DoubleBuffer samples, double sum, double min, double max) {
+    }
+
+    /**
+     * A recording opened from the cache.
+     *
+     * @param signalId    the id of the signal
+     * @param frequency   the sampling frequency in Hz
+     * @param contentHash the SHA-256 hash of the samples, ECG then ACC, as stored, checked by {@link #verify(int)}
+     * @param ecg         the ECG channel
+     * @param acc         the ACC channel
+     */
+    public record CachedRecording(int signalId, int frequency, byte[] contentHash, Channel ecg, Channel acc) {
+    }
+
+    static final int HEADER_BYTES = 128;
+    // The hash follows the magic, the version, the id, the frequency and the number of samples
+    private static final int HASH_OFFSET = 5 * Integer.BYTES;
+    private static final int MAGIC = 0x4E475243; // "NGRC"
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".rec";
+    /** Default limit of the total size of the cache: 2 GB. */
+    public static final long DEFAULT_MAX_BYTES = 2L * 1024 * 1024 * 1024;
+
+    private final Path directory;
+    private final long maxBytes;
+    // Signal id -> file size, from least to most recently used
+    private final LinkedHashMap<Integer, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    // Signal id -> check of its file started in this session
+    private final Map<Integer, CompletableFuture<Boolean>> verifications = new HashMap<>();
+
+    /**
+     * Creates a cache in the given directory, loading the recordings it already holds.
+     *
+     * @param directory the directory of the cache, created if needed
+     * @param maxBytes  the maximum total size of the cached files
+     * @throws IOException if the directory cannot be created or listed
+     */
+    public RecordingCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path f : (Iterable<Path>) files::iterator) {
+                // Left by a write that did not finish
+                if (f.getFileName().toString().endsWith(".tmp")) Files.deleteIfExists(f);
+            }
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(f -> f.getFileName().toString().endsWith(SUFFIX))
+                    .sorted(Comparator.comparing(RecordingCache::lastModified))
+                    .forEach(f -> {
+                        Integer id = signalIdOf(f);
+                        if (id == null) return;
+                        long size = f.toFile().length();
+                        entries.put(id, size);
+                        totalBytes += size;
+                    });
+        }
+    }
+
+    /**
+     * Returns the default cache, kept in {@code .nightguardian/recordings} inside the user's
+     * home directory.
+     *
+     * @return the default cache
+     * @throws IOException if the directory cannot be created or listed
+     */
+    public static RecordingCache openDefault() throws IOException {
+        Path directory = Paths.get(System.getProperty("user.home"), ".nightguardian", "recordings");
+        return new RecordingCache(directory, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Opens a cached recording, and starts checking its hash if it was not checked before in
+     * this session.
+     *
+     * @param signalId the id of the signal
+     * @return the mapped recording, or empty if it is not cached or the file is not valid
+     */
+    public synchronized Optional<CachedRecording> open(int signalId) {
+        if (!entries.containsKey(signalId)) return Optional.empty();
+        Path file = fileOf(signalId);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) ;
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION
+                    || header.getInt() != signalId) {
+                throw new IOException("Invalid cache file " + file);
+            }
+            int frequency = header.getInt();
+            int count = header.getInt();
+            byte[] hash = new byte[32];
+            header.get(hash);
+            long channelBytes = (long) count * Double.BYTES;
+            if (count < 0 || channel.size() != HEADER_BYTES + 2 * channelBytes) {
+                throw new IOException("Truncated cache file " + file);
+            }
+            // The mappings stay valid after the channel is closed
+            Channel ecg = new Channel(map(channel, HEADER_BYTES, channelBytes),
+                    header.getDouble(), header.getDouble(), header.getDouble());
+            Channel acc = new Channel(map(channel, HEADER_BYTES + channelBytes, channelBytes),
+                    header.getDouble(), header.getDouble(), header.getDouble());
+            entries.get(signalId); // most recently used
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            verify(signalId);
+            return Optional.of(new CachedRecording(signalId, frequency, hash, ecg, acc));
+        } catch (IOException e) {
+            System.out.println("Discarding cached recording " + signalId + ": " + e.getMessage());
+            remove(signalId);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores the samples of a downloaded signal, replacing any previous copy, and deletes the
+     * least recently used recordings if the cache exceeds its size. Writing an 8 h recording
+     * takes a moment, so this should not be called on the EDT.
+     *
+     * @param signal the signal, with its ECG and ACC samples
+     * @throws IOException if the file cannot be written
+     */
+    public void put(Signal signal) throws IOException {
+        double[] ecg = signal.getEcg();
+        double[] acc = signal.getAcc();
+        if (ecg == null || acc == null || ecg.length != acc.length) {
+            throw new IllegalArgumentException("Signal " + signal.getId() + " has no samples to cache");
+        }
+        long size = HEADER_BYTES + 2L * ecg.length * Double.BYTES;
+        if (size > maxBytes) return;
+
+        // Written to a temporary file first, so a failure never leaves a partial recording
+        Path temp = Files.createTempFile(directory, "signal-" + signal.getId() + "-", ".tmp");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.position(HEADER_BYTES);
+                ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+                writeSamples(channel, buffer, digest, ecg);
+                writeSamples(channel, buffer, digest, acc);
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putInt(signal.getId()).putInt(signal.getFrequency())
+                        .putInt(ecg.length).put(digest.digest());
+                putStatistics(header, ecg);
+                putStatistics(header, acc);
+                header.clear();
+                channel.write(header, 0);
+            }
+            synchronized (this) {
+                remove(signal.getId());
+                Files.move(temp, fileOf(signal.getId()), StandardCopyOption.ATOMIC_MOVE);
+                entries.put(signal.getId(), size);
+                totalBytes += size;
+                evict(signal.getId());
+            }
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Checks on a virtual thread that the samples of a cached recording still match the
+     * SHA-256 hash stored when they were written. A file that does not match, or cannot be
+     * read, is deleted. Every file is checked once per session: later calls return the same
+     * future, until the recording is stored again.
+     *
+     * @param signalId the id of the signal
+     * @return a future completed with true if the samples match, false if the recording was
+     *         corrupted or is not cached
+     */
+    public synchronized CompletableFuture<Boolean> verify(int signalId) {
+        if (!entries.containsKey(signalId)) return CompletableFuture.completedFuture(false);
+        CompletableFuture<Boolean> verification = verifications.get(signalId);
+        if (verification != null) return verification;
+        CompletableFuture<Boolean> started = new CompletableFuture<>();
+        verifications.put(signalId, started);
+        Path file = fileOf(signalId);
+        Thread.ofVirtual().name("recording-cache-verify-" + signalId).start(() -> {
+            boolean valid = hashMatches(file);
+            if (!valid) {
+                synchronized (this) {
+                    // Unless a new copy was stored meanwhile
+                    if (verifications.get(signalId) == started) {
+                        System.out.println("Discarding corrupted cached recording " + signalId);
+                        remove(signalId);
+                    }
+                }
+            }
+            started.complete(valid);
+        });
+        return started;
+    }
+
+    /**
+     * Returns whether a recording is cached.
+     *
+     * @param signalId the id of the signal
+     * @return true if the recording is in the cache
+     */
+    public synchronized boolean contains(int signalId) {
+        return entries.containsKey(signalId);
+    }
+
+    /**
+     * Returns the total size of the cached files.
+     *
+     * @return the size in bytes
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    private static void writeSamples(FileChannel channel, ByteBuffer buffer, MessageDigest digest, double[] samples)
+            throws IOException {
+        DoubleBuffer doubles = buffer.clear().asDoubleBuffer();
+        for (int from = 0; from < samples.length; from += doubles.capacity()) {
+            int n = Math.min(doubles.capacity(), samples.length - from);
+            doubles.clear();
+            doubles.put(samples, from, n);
+            buffer.clear().limit(n * Double.BYTES);
+            digest.update(buffer.duplicate());
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+    }
+
+    private static boolean hashMatches(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            byte[] stored = new byte[32];
+            channel.read(ByteBuffer.wrap(stored), HASH_OFFSET);
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            channel.position(HEADER_BYTES);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            while (channel.read(buffer) >= 0) {
+                digest.update(buffer.flip());
+                buffer.clear();
+            }
+            return MessageDigest.isEqual(stored, digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            return false;
+        }
+    }
+
+    private static void putStatistics(ByteBuffer header, double[] samples) {
+        double sum = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (double v : samples) {
+            sum += v;
+            if (v < min) min = v;
+            if (v > max) max = v;
+        }
+        header.putDouble(sum).putDouble(min).putDouble(max);
+    }
+
+    private static DoubleBuffer map(FileChannel channel, long position, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size)
+                .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+    }
+
+    /**
+     * Deletes the least recently used recordings until the cache fits in its maximum size.
+     */
+    private void evict(int keep) {
+        Iterator<Map.Entry<Integer, Long>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<Integer, Long> eldest = it.next();
+            if (eldest.getKey() == keep) continue;
+            try {
+                Files.deleteIfExists(fileOf(eldest.getKey()));
+            } catch (IOException e) {
+                // Still mapped on some platforms: it will be deleted on a later eviction
+                continue;
+            }
+            totalBytes -= eldest.getValue();
+            verifications.remove(eldest.getKey());
+            it.remove();
+        }
+    }
+
+    private void remove(int signalId) {
+        Long size = entries.remove(signalId);
+        if (size != null) totalBytes -= size;
+        verifications.remove(signalId);
+        try {
+            Files.deleteIfExists(fileOf(signalId));
+        } catch (IOException e) {
+            System.out.println("Could not delete cached recording " + signalId + ": " + e.getMessage());
+        }
+    }
+
+    private Path fileOf(int signalId) {
+        return directory.resolve("signal-" + signalId + SUFFIX);
+    }
+
+    private static Integer signalIdOf(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Integer.parseInt(name.substring("signal-".length(), name.length() - SUFFIX.length()));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
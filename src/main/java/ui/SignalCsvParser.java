@@ -0,0 +1,291 @@
+package ui;
+
+import pojos.Signal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Streaming parser for the signal CSV files stored inside the recording ZIPs.
+ * <p>
+ * Each data line has the layout {@code ecg;acc[;...]}. Lines with more than four
+ * fields are skipped, exactly like the original {@code String.split(";")} based reader.
+ * The parser scans the raw bytes of the stream and writes the samples straight into
+ * growable primitive {@code double[]} buffers, so no {@link String} or {@link Double}
+ * is created per line or per sample.
+ * </p>
+ * <p>
+ * Numbers are decoded with an exact fast path (mantissa up to 2<sup>53</sup> and a
+ * decimal exponent up to 22, which is a single correctly rounded IEEE operation).
+ * Anything else falls back to {@link Double#parseDouble(String)}, so the parsed values
+ * are always bit-identical to the ones produced by the previous implementation.
+ * </p>
+ *
+ * @see ECGFileReader#readSignalFromCsv(InputStream, int)
+ */
+public final class SignalCsvParser {
+
+    /**
+     * Receives the samples while they are parsed, for example to draw a recording
+     * while it is still being downloaded.
+     */
+    public interface SampleListener {
+        /**
+         * Called after every block of input with the samples parsed from it.
+         * <p>
+         * The arrays are the internal buffers of the parser, holding every sample parsed so
+         * far: only the range {@code [from, to)} is new. The parser only appends, so the
+         * samples below {@code to} never change and the arrays may be read in place, also
+         * from another thread once handed over safely (for example with
+         * {@link javax.swing.SwingUtilities#invokeLater(Runnable)}). When they are full, the
+         * parser copies them to larger arrays, passed to the next calls.
+         * </p>
+         *
+         * @param ecg  the ECG buffer
+         * @param acc  the ACC buffer
+         * @param from index of the first new sample
+         * @param to   index after the last new sample
+         */
+        void onSamples(double[] ecg, double[] acc, int from, int to);
+    }
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int DEFAULT_CAPACITY = 16 * 1024;
+    /** Rough size in bytes of a line such as {@code 512.0;1.0234}. Used to presize the buffers. */
+    private static final int ESTIMATED_BYTES_PER_LINE = 12;
+    private static final int MAX_FIELDS = 4;
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private byte[] buffer = new byte[READ_BUFFER_SIZE];
+    private double[] ecg;
+    private double[] acc;
+    private int size;
+    private long lineNumber;
+    private SampleListener sampleListener;
+    private int notified;
+
+    /**
+     * Creates a parser whose sample buffers are presized for the given amount of input.
+     *
+     * @param expectedBytes expected length of the CSV in bytes, or a negative value if unknown
+     */
+    public SignalCsvParser(long expectedBytes) {
+        int capacity = DEFAULT_CAPACITY;
+        if (expectedBytes > 0) {
+            capacity = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(DEFAULT_CAPACITY, expectedBytes / ESTIMATED_BYTES_PER_LINE));
+        }
+        ecg = new double[capacity];
+        acc = new double[capacity];
+    }
+
+    /**
+     * Creates a parser with default buffer sizes.
+     */
+    public SignalCsvParser() {
+        this(-1);
+    }
+
+    /**
+     * Sets the listener notified with the samples parsed from every block of input.
+     *
+     * @param sampleListener the listener, or null to remove it
+     * @return this parser, to chain calls
+     */
+    public SignalCsvParser setSampleListener(SampleListener sampleListener) {
+        this.sampleListener = sampleListener;
+        return this;
+    }
+
+    /**
+     * Reads the whole stream and returns a {@link Signal} holding the ECG and ACC samples.
+     * The stream is not closed.
+     *
+     * @param in   the CSV content
+     * @param freq sampling frequency in Hz stored in the resulting signal
+     * @return a signal with its {@code ecg}, {@code acc} and {@code frequency} set
+     * @throws IOException           if the stream cannot be read or a line has a single field
+     * @throws NumberFormatException if a sample is not a valid number
+     */
+    public Signal parse(InputStream in, int freq) throws IOException {
+        int start = 0; // first byte not yet scanned; the current line always begins at 0
+        int limit = 0; // end of valid data in buffer
+        int read;
+        while ((read = in.read(buffer, limit, buffer.length - limit)) != -1) {
+            limit += read;
+            int lineStart = 0;
+            for (int i = start; i < limit; i++) {
+                if (buffer[i] == '\n') {
+                    parseLine(lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+            notifySamples();
+            // Move the incomplete last line to the front so it can be completed by the next read
+            int remaining = limit - lineStart;
+            if (remaining == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            } else if (lineStart > 0) {
+                System.arraycopy(buffer, lineStart, buffer, 0, remaining);
+            }
+            start = remaining;
+            limit = remaining;
+        }
+        if (limit > 0) parseLine(0, limit);
+        notifySamples();
+
+        Signal s = new Signal();
+        s.setEcg(Arrays.copyOf(ecg, size));
+        s.setAcc(Arrays.copyOf(acc, size));
+        s.setFrequency(freq);
+        return s;
+    }
+
+    /**
+     * Returns the number of samples parsed so far.
+     *
+     * @return the number of ECG/ACC sample pairs
+     */
+    public int size() {
+        return size;
+    }
+
+    private void notifySamples() {
+        if (sampleListener != null && size > notified) {
+            sampleListener.onSamples(ecg, acc, notified, size);
+            notified = size;
+        }
+    }
+
+    /**
+     * Parses the line stored in {@code buffer[from, to)}. The line terminator is not included.
+     */
+    private void parseLine(int from, int to) throws IOException {
+        lineNumber++;
+        if (to > from && buffer[to - 1] == '\r') to--;
+
+        // Locate the first two fields and count fields the way String.split(";") does,
+        // which drops trailing empty fields.
+        int firstEnd = -1;
+        int secondStart = -1;
+        int secondEnd = -1;
+        int field = 0;
+        int fieldStart = from;
+        int lastNonEmptyField = -1;
+        for (int i = from; i <= to; i++) {
+            if (i == to || buffer[i] == ';') {
+                if (i > fieldStart) lastNonEmptyField = field;
+                if (field == 0) {
+                    firstEnd = i;
+                } else if (field == 1) {
+                    secondStart = fieldStart;
+                    secondEnd = i;
+                }
+                field++;
+                fieldStart = i + 1;
+            }
+        }
+
+        if (lastNonEmptyField < 0) return; // blank line
+        if (lastNonEmptyField + 1 > MAX_FIELDS) return;
+        if (lastNonEmptyField == 0) {
+            throw new IOException("Malformed CSV line " + lineNumber + ": expected at least two fields");
+        }
+
+        if (size == ecg.length) grow();
+        ecg[size] = parseDouble(buffer, from, firstEnd);
+        acc[size] = parseDouble(buffer, secondStart, secondEnd);
+        size++;
+    }
+
+    private void grow() {
+        int newCapacity = size + (size >> 1) + 1;
+        ecg = Arrays.copyOf(ecg, newCapacity);
+        acc = Arrays.copyOf(acc, newCapacity);
+    }
+
+    /**
+     * Parses an ASCII decimal number stored in {@code bytes[from, to)} without allocating.
+     * Returns the same value as {@link Double#parseDouble(String)} for the same text.
+     *
+     * @param bytes the source buffer
+     * @param from  first byte of the number (inclusive)
+     * @param to    last byte of the number (exclusive)
+     * @return the parsed value
+     * @throws NumberFormatException if the text is not a valid number
+     */
+    static double parseDouble(byte[] bytes, int from, int to) {
+        // Double.parseDouble trims leading and trailing whitespace
+        int i = from;
+        int end = to;
+        while (i < end && (bytes[i] & 0xFF) <= ' ') i++;
+        while (end > i && (bytes[end - 1] & 0xFF) <= ' ') end--;
+        if (i == end) throw new NumberFormatException("empty String");
+
+        boolean negative = false;
+        if (bytes[i] == '-' || bytes[i] == '+') {
+            negative = bytes[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean dot = false;
+        for (; i < end; i++) {
+            byte b = bytes[i];
+            if (b >= '0' && b <= '9') {
+                digits++;
+                if (mantissa == 0 && b == '0') {
+                    if (dot) exponent--;
+                    continue;
+                }
+                if (++significantDigits > 18) return fallback(bytes, from, to);
+                mantissa = mantissa * 10 + (b - '0');
+                if (dot) exponent--;
+            } else if (b == '.' && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) return fallback(bytes, from, to);
+
+        if (i < end) {
+            if (bytes[i] != 'e' && bytes[i] != 'E') return fallback(bytes, from, to);
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+                negativeExponent = bytes[i] == '-';
+                i++;
+            }
+            if (i == end) return fallback(bytes, from, to);
+            int exp = 0;
+            for (; i < end; i++) {
+                byte b = bytes[i];
+                if (b < '0' || b > '9' || exp > 10_000) return fallback(bytes, from, to);
+                exp = exp * 10 + (b - '0');
+            }
+            exponent += negativeExponent ? -exp : exp;
+        }
+
+        if (mantissa == 0) return negative ? -0.0 : 0.0;
+        if (mantissa > MAX_EXACT_MANTISSA || exponent < -22 || exponent > 22) {
+            return fallback(bytes, from, to);
+        }
+        double value = exponent >= 0
+                ? mantissa * POWERS_OF_TEN[exponent]
+                : mantissa / POWERS_OF_TEN[-exponent];
+        return negative ? -value : value;
+    }
+
+    private static double fallback(byte[] bytes, int from, int to) {
+        return Double.parseDouble(new String(bytes, from, to - from, StandardCharsets.ISO_8859_1));
+    }
+}
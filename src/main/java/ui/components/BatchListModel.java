@@ -0,0 +1,103 @@
+package ui.components;
+
+import javax.swing.*;
+import java.util.List;
+
+/**
+ * {@link ListModel} that shows a list it does not copy, replaced or filtered all at once.
+ * <p>
+ * A {@link DefaultListModel} refilled element by element notifies its {@link JList} once per
+ * element, and the list lays itself out again every time. This model fires a single removal and
+ * a single addition when its contents are replaced, and a single addition when the list it shows
+ * grows at the end, whatever the number of elements.
+ * </p>
+ * <p>
+ * A filtered view is given as the positions of the elements to show, in the order they are
+ * shown ({@link #showIndexes(int[])}), so filtering does not copy the elements either. The
+ * positions stay valid while the list only grows at the end.
+ * </p>
+ * Like the other Swing models, it must only be used on the EDT.
+ *
+ * @param <E> the type of the elements
+ */
+public class BatchListModel<E> extends AbstractListModel<E> {
+    private List<? extends E> elements = List.of();
+    //Positions of the elements shown, or null to show all of them
+    private int[] view;
+    //Size announced to the listeners, which the list may have outgrown
+    private int size;
+
+    /**
+     * Shows every element of a list. The list is not copied: if it grows at the end later,
+     * {@link #elementsAppended()} shows the new elements.
+     *
+     * @param elements the list to show
+     */
+    public void setElements(List<? extends E> elements) {
+        this.elements = elements == null ? List.of() : elements;
+        this.view = null;
+        replaced(this.elements.size());
+    }
+
+    /**
+     * Shows some elements of the current list, in the given order.
+     *
+     * @param indexes the positions of the elements to show; the array is not copied
+     */
+    public void showIndexes(int[] indexes) {
+        this.view = indexes;
+        replaced(indexes.length);
+    }
+
+    /**
+     * Shows every element of the current list again, removing the filter.
+     */
+    public void showAll() {
+        setElements(elements);
+    }
+
+    /**
+     * Returns whether a filter is applied.
+     *
+     * @return true if only some elements are shown
+     */
+    public boolean isFiltered() {
+        return view != null;
+    }
+
+    /**
+     * Notifies that elements were added at the end of the list shown. Nothing changes if a
+     * filter is applied.
+     */
+    public void elementsAppended() {
+        if (view != null || elements.size() <= size) return;
+        int from = size;
+        size = elements.size();
+        fireIntervalAdded(this, from, size - 1);
+    }
+
+    /**
+     * Removes every element shown.
+     */
+    public void clear() {
+        setElements(List.of());
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public E getElementAt(int index) {
+        return elements.get(view == null ? index : view[index]);
+    }
+
+    private void replaced(int newSize) {
+        int oldSize = size;
+        size = 0;
+        if (oldSize > 0) fireIntervalRemoved(this, 0, oldSize - 1);
+        size = newSize;
+        if (newSize > 0) fireIntervalAdded(this, 0, newSize - 1);
+    }
+}
@@ -0,0 +1,282 @@
+package ui.components;
+
+import processing.SignalPreprocessor;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+
+/**
+ * Level-of-detail index used to draw long signals with a bounded number of points.
+ * <p>
+ * The signal is split in buckets of {@value #BASE_BUCKET} samples and the minimum and maximum
+ * of every bucket are stored. Each upper level groups {@value #FACTOR} buckets of the level
+ * below, up to a single bucket covering the whole signal. To draw any range of the signal,
+ * {@link #decimate(double[], int, int, int, double[], double[])} picks the coarsest level whose
+ * buckets still fit in one pixel column and returns the minimum and maximum of every column,
+ * so the cost depends on the width of the chart and not on the length of the range: showing
+ * one second or a whole night takes the same time.
+ * </p>
+ * <p>
+ * Samples are added with {@link #append(double[], int, int)}, so the index can grow while a
+ * recording is downloading. The samples may also be read from a {@link DoubleBuffer}, such as a
+ * recording mapped from the disk cache. The extremes are stored as floats, which is enough for drawing and
+ * keeps the index at about a sixth of the size of the signal.
+ * </p>
+ */
+public class MinMaxPyramid {
+    /** Number of samples summarized by each bucket of the first level. */
+    static final int BASE_BUCKET = 16;
+    /** Number of buckets of a level grouped by one bucket of the level above. */
+    static final int FACTOR = 4;
+
+    private float[][] mins = new float[0][];
+    private float[][] maxs = new float[0][];
+    private int length;
+
+    /**
+     * Returns the number of samples indexed.
+     *
+     * @return the number of samples added so far
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Builds the index of a whole signal, splitting the first level, which holds most of the
+     * work, across the common {@link java.util.concurrent.ForkJoinPool}. Gives the same index
+     * as {@link #append(DoubleBuffer, int, int)} with all the samples, and can be called from
+     * any thread.
+     *
+     * @param samples the signal, read by absolute index
+     * @param length  the number of samples
+     * @return the index of the signal
+     */
+    public static MinMaxPyramid build(DoubleBuffer samples, int length) {
+        MinMaxPyramid pyramid = new MinMaxPyramid();
+        if (length <= 0) return pyramid;
+        pyramid.length = length;
+        pyramid.ensureLevels();
+        float[] min0 = pyramid.mins[0];
+        float[] max0 = pyramid.maxs[0];
+        // Blocks of 64k buckets, about a million samples
+        SignalPreprocessor.forEachBlock(0, pyramid.bucketCount(0), 1 << 16, (from, to) -> {
+            for (int b = from; b < to; b++) {
+                int start = b * BASE_BUCKET;
+                int end = Math.min(start + BASE_BUCKET, length);
+                double min = samples.get(start);
+                double max = min;
+                for (int i = start + 1; i < end; i++) {
+                    double v = samples.get(i);
+                    if (v < min) min = v;
+                    if (v > max) max = v;
+                }
+                min0[b] = (float) min;
+                max0[b] = (float) max;
+            }
+        });
+        pyramid.updateUpperLevels(0, (length - 1) / BASE_BUCKET);
+        return pyramid;
+    }
+
+    /**
+     * Adds the next samples of the signal to the index.
+     *
+     * @param samples buffer holding the new samples
+     * @param from    index of the first new sample in the buffer
+     * @param to      index after the last new sample in the buffer
+     */
+    public void append(double[] samples, int from, int to) {
+        append(DoubleBuffer.wrap(samples), from, to);
+    }
+
+    /**
+     * Adds the next samples of the signal to the index.
+     *
+     * @param samples buffer holding the new samples, read by absolute index
+     * @param from    index of the first new sample in the buffer
+     * @param to      index after the last new sample in the buffer
+     */
+    public void append(DoubleBuffer samples, int from, int to) {
+        if (to <= from) return;
+        int oldLength = length;
+        length += to - from;
+        ensureLevels();
+
+        // First level, straight from the samples
+        float[] min0 = mins[0];
+        float[] max0 = maxs[0];
+        for (int i = from, g = oldLength; i < to; i++, g++) {
+            int b = g / BASE_BUCKET;
+            float v = (float) samples.get(i);
+            if (g % BASE_BUCKET == 0) {
+                min0[b] = v;
+                max0[b] = v;
+            } else {
+                if (v < min0[b]) min0[b] = v;
+                if (v > max0[b]) max0[b] = v;
+            }
+        }
+
+        updateUpperLevels(oldLength / BASE_BUCKET, (length - 1) / BASE_BUCKET);
+    }
+
+    /**
+     * Recomputes the buckets of the upper levels covering a range of buckets of the first level.
+     *
+     * @param firstChanged the first bucket of the first level that changed
+     * @param lastChanged  the last bucket of the first level that changed
+     */
+    private void updateUpperLevels(int firstChanged, int lastChanged) {
+        for (int level = 1; level < mins.length; level++) {
+            float[] lowerMin = mins[level - 1];
+            float[] lowerMax = maxs[level - 1];
+            int lowerCount = bucketCount(level - 1);
+            firstChanged /= FACTOR;
+            lastChanged /= FACTOR;
+            for (int b = firstChanged; b <= lastChanged; b++) {
+                int lo = b * FACTOR;
+                int hi = Math.min(lo + FACTOR, lowerCount);
+                float min = lowerMin[lo];
+                float max = lowerMax[lo];
+                for (int k = lo + 1; k < hi; k++) {
+                    if (lowerMin[k] < min) min = lowerMin[k];
+                    if (lowerMax[k] > max) max = lowerMax[k];
+                }
+                mins[level][b] = min;
+                maxs[level][b] = max;
+            }
+        }
+    }
+
+    /**
+     * Reduces a range of the signal to at most two points per pixel column: the minimum and
+     * the maximum of the samples falling in that column, so that no peak is lost. When the range
+     * has few samples per column they are returned as they are.
+     * <p>
+     * The x values written are sample indexes; the y values are taken from {@code samples} or
+     * from the index, in the same units as the samples appended.
+     * </p>
+     *
+     * @param samples the indexed signal, used when a column holds less than a bucket
+     * @param start   index of the first sample of the range
+     * @param end     index after the last sample of the range
+     * @param columns number of pixel columns available to draw the range
+     * @param xs      receives the x value of every point, must hold {@code 2 * columns} values
+     * @param ys      receives the y value of every point, must hold {@code 2 * columns} values
+     * @return the number of points written
+     */
+    public int decimate(double[] samples, int start, int end, int columns, double[] xs, double[] ys) {
+        return decimate(DoubleBuffer.wrap(samples), start, end, columns, xs, ys);
+    }
+
+    /**
+     * Same as {@link #decimate(double[], int, int, int, double[], double[])}, reading the
+     * samples from a buffer by absolute index.
+     *
+     * @param samples the indexed signal, used when a column holds less than a bucket
+     * @param start   index of the first sample of the range
+     * @param end     index after the last sample of the range
+     * @param columns number of pixel columns available to draw the range
+     * @param xs      receives the x value of every point, must hold {@code 2 * columns} values
+     * @param ys      receives the y value of every point, must hold {@code 2 * columns} values
+     * @return the number of points written
+     */
+    public int decimate(DoubleBuffer samples, int start, int end, int columns, double[] xs, double[] ys) {
+        start = Math.max(0, start);
+        end = Math.min(end, length);
+        if (end <= start || columns <= 0) return 0;
+
+        int count = end - start;
+        if (count <= 2 * columns) {
+            for (int i = 0; i < count; i++) {
+                xs[i] = start + i;
+                ys[i] = samples.get(start + i);
+            }
+            return count;
+        }
+
+        // Coarsest level whose buckets are not wider than a column (-1 means raw samples)
+        double samplesPerColumn = (double) count / columns;
+        int level = -1;
+        long bucketSize = 1;
+        while (level + 1 < mins.length && bucketSize(level + 1) <= samplesPerColumn) {
+            level++;
+            bucketSize = bucketSize(level);
+        }
+
+        int firstBucket = (int) (start / bucketSize);
+        int buckets = (int) ((end - 1) / bucketSize) + 1 - firstBucket;
+        int points = 0;
+        double previous = Double.NaN;
+        for (int c = 0; c < columns; c++) {
+            int lo = firstBucket + (int) ((long) c * buckets / columns);
+            int hi = firstBucket + (int) ((long) (c + 1) * buckets / columns);
+            if (hi <= lo) continue;
+            double min;
+            double max;
+            if (level < 0) {
+                min = max = samples.get(lo);
+                for (int i = lo + 1; i < hi; i++) {
+                    double v = samples.get(i);
+                    if (v < min) min = v;
+                    if (v > max) max = v;
+                }
+            } else {
+                float[] levelMin = mins[level];
+                float[] levelMax = maxs[level];
+                min = levelMin[lo];
+                max = levelMax[lo];
+                for (int b = lo + 1; b < hi; b++) {
+                    if (levelMin[b] < min) min = levelMin[b];
+                    if (levelMax[b] > max) max = levelMax[b];
+                }
+            }
+            double x = Math.min(Math.max((lo + hi) * bucketSize / 2.0, start), end - 1);
+            // Start with the extreme closest to the previous point to avoid crossing lines
+            boolean maxFirst = !Double.isNaN(previous) && Math.abs(previous - max) < Math.abs(previous - min);
+            xs[points] = x;
+            ys[points++] = maxFirst ? max : min;
+            xs[points] = x;
+            ys[points++] = maxFirst ? min : max;
+            previous = ys[points - 1];
+        }
+        return points;
+    }
+
+    private static long bucketSize(int level) {
+        long size = BASE_BUCKET;
+        for (int i = 0; i < level; i++) size *= FACTOR;
+        return size;
+    }
+
+    private int bucketCount(int level) {
+        return (int) ((length + bucketSize(level) - 1) / bucketSize(level));
+    }
+
+    /**
+     * Adds levels until the top one has a single bucket and grows the arrays of every level
+     * to hold the current length.
+     */
+    private void ensureLevels() {
+        int levels = 1;
+        while (bucketCount(levels - 1) > 1) levels++;
+        if (levels > mins.length) {
+            int oldLevels = mins.length;
+            mins = Arrays.copyOf(mins, levels);
+            maxs = Arrays.copyOf(maxs, levels);
+            for (int level = oldLevels; level < levels; level++) {
+                mins[level] = new float[0];
+                maxs[level] = new float[0];
+            }
+        }
+        for (int level = 0; level < levels; level++) {
+            int needed = bucketCount(level);
+            if (mins[level].length < needed) {
+                int capacity = Math.max(needed, mins[level].length * 2);
+                mins[level] = Arrays.copyOf(mins[level], capacity);
+                maxs[level] = Arrays.copyOf(maxs[level], capacity);
+            }
+        }
+    }
+}
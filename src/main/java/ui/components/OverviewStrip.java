@@ -0,0 +1,177 @@
+package ui.components;
+
+import org.jfree.chart.ChartPanel;
+import processing.EventIndex;
+import ui.windows.Application;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.function.IntConsumer;
+
+/**
+ * Overview of a whole recording drawn under its graph: the envelope of the signal from its
+ * {@link SecondSummary}, the marked events and the window currently shown.
+ * <p>
+ * Clicking or dragging on the strip asks to show the samples under the mouse, so any time of the
+ * recording is one click away. The envelope of each pixel column is computed when the width or
+ * the summary changes, and painting the strip only draws those columns, so moving the window
+ * does not read the summary again.
+ * </p>
+ */
+public class OverviewStrip extends JComponent {
+    private static final Color ENVELOPE_COLOR = Application.dark_turquoise;
+    private static final Color EVENT_COLOR = new Color(220, 40, 40, 90);
+    private static final Color WINDOW_BORDER = Application.dark_purple;
+    private static final Color WINDOW_FILL = new Color(WINDOW_BORDER.getRed(), WINDOW_BORDER.getGreen(),
+            WINDOW_BORDER.getBlue(), 50);
+
+    private final IntConsumer seek;
+    private SecondSummary summary;
+    private EventIndex events = EventIndex.EMPTY;
+    private int windowStart;
+    private int windowEnd;
+    // Envelope of the pixel columns, and the width and the summary it was computed for
+    private float[] columnMin = new float[0];
+    private float[] columnMax = new float[0];
+    private int columns;
+    private float low;
+    private float high;
+    private int envelopeWidth = -1;
+    private int envelopeLength = -1;
+    private SecondSummary envelopeSummary;
+
+    /**
+     * Creates an empty strip.
+     *
+     * @param seek called on the EDT with the sample the user clicked on
+     */
+    public OverviewStrip(IntConsumer seek) {
+        this.seek = seek;
+        setOpaque(true);
+        setBackground(Color.white);
+        setPreferredSize(new Dimension(ChartPanel.DEFAULT_WIDTH, 40));
+        setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                seekTo(e.getX());
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                seekTo(e.getX());
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+    }
+
+    /**
+     * Sets the summary of the signal drawn. Must be called on the EDT, also after samples are
+     * appended to the summary.
+     *
+     * @param summary the summary, or null to draw nothing
+     */
+    public void setSummary(SecondSummary summary) {
+        this.summary = summary;
+        repaint();
+    }
+
+    /**
+     * Sets the events marked on the strip. Must be called on the EDT.
+     *
+     * @param events the events, with their sample indexes
+     */
+    public void setEvents(EventIndex events) {
+        this.events = events;
+        repaint();
+    }
+
+    /**
+     * Sets the window shown by the graph. Must be called on the EDT.
+     *
+     * @param start the first sample of the window
+     * @param end   the index after the last sample of the window
+     */
+    public void setWindow(int start, int end) {
+        if (start == windowStart && end == windowEnd) return;
+        windowStart = start;
+        windowEnd = end;
+        repaint();
+    }
+
+    private void seekTo(int x) {
+        if (summary == null || summary.length() == 0 || getWidth() <= 0) return;
+        int x0 = Math.max(0, Math.min(x, getWidth() - 1));
+        seek.accept((int) ((long) x0 * summary.length() / getWidth()));
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        int width = getWidth();
+        int height = getHeight();
+        g.setColor(getBackground());
+        g.fillRect(0, 0, width, height);
+        if (summary == null || summary.length() == 0 || width <= 0) return;
+        long length = summary.length();
+
+        updateEnvelope(width);
+        if (high > low) {
+            g.setColor(ENVELOPE_COLOR);
+            double scale = (height - 3) / (high - low);
+            for (int c = 0; c < columns; c++) {
+                int top = 1 + (int) ((high - columnMax[c]) * scale);
+                int bottom = 1 + (int) ((high - columnMin[c]) * scale);
+                g.drawLine(c, top, c, bottom);
+            }
+        }
+
+        g.setColor(EVENT_COLOR);
+        for (int i = 0; i < events.size(); i++) {
+            int x0 = (int) ((long) events.start(i) * width / length);
+            int x1 = (int) ((long) events.end(i) * width / length);
+            g.fillRect(x0, 0, Math.max(2, x1 - x0), height);
+        }
+
+        int x0 = (int) ((long) windowStart * width / length);
+        int x1 = (int) (Math.min(windowEnd, length) * width / length);
+        int w = Math.max(3, x1 - x0);
+        g.setColor(WINDOW_FILL);
+        g.fillRect(x0, 0, w, height);
+        g.setColor(WINDOW_BORDER);
+        g.drawRect(x0, 0, w - 1, height - 1);
+    }
+
+    /**
+     * Computes the envelope of every pixel column again if the width or the summary changed.
+     */
+    private void updateEnvelope(int width) {
+        if (width == envelopeWidth && summary == envelopeSummary && summary.length() == envelopeLength) return;
+        if (columnMin.length < width) {
+            columnMin = new float[width];
+            columnMax = new float[width];
+        }
+        // Fewer columns than pixels for short signals: one per second at most
+        columns = summary.envelope(Math.min(width, summary.seconds()), columnMin, columnMax);
+        if (columns < width) {
+            // Stretch the seconds over the width
+            for (int c = width - 1; c >= 0; c--) {
+                int s = (int) ((long) c * columns / width);
+                columnMin[c] = columnMin[s];
+                columnMax[c] = columnMax[s];
+            }
+            columns = width;
+        }
+        low = Float.POSITIVE_INFINITY;
+        high = Float.NEGATIVE_INFINITY;
+        for (int c = 0; c < columns; c++) {
+            low = Math.min(low, columnMin[c]);
+            high = Math.max(high, columnMax[c]);
+        }
+        envelopeWidth = width;
+        envelopeSummary = summary;
+        envelopeLength = summary.length();
+    }
+}
@@ -65,19 +65,21 @@ public class PatientCell implements ListCellRenderer<Patient> {
         JLabel ageHeading = new JLabel("Birthday:");
         ageHeading.setForeground(titleColor);
         ageHeading.setFont(titleFont);
-        JLabel ageText = new JLabel(value.getDateOfBirth().toString());
+        //Summaries of a paged list only have the name until the patient is opened
+        boolean loaded = value.isDetailsLoaded();
+        JLabel ageText = new JLabel(loaded ? value.getDateOfBirth().toString() : "-");
         ageText.setForeground(contentColor);
         ageText.setFont(contentFont);
         JLabel genderHeading = new JLabel("Gender:");
         genderHeading.setForeground(titleColor);
         genderHeading.setFont(titleFont);
-        JLabel genderText = new JLabel(value.getGender());
+        JLabel genderText = new JLabel(loaded ? value.getGender() : "-");
         genderText.setForeground(contentColor);
         genderText.setFont(contentFont);
         JLabel phoneHeading = new JLabel("Phone Number:");
         phoneHeading.setForeground(titleColor);
         phoneHeading.setFont(titleFont);
-        JLabel phoneText = new JLabel(Integer.toString(value.getPhoneNumber()));
+        JLabel phoneText = new JLabel(loaded ? Integer.toString(value.getPhoneNumber()) : "-");
         phoneText.setForeground(contentColor);
         phoneText.setFont(contentFont);
         JLabel emailHeading = new JLabel("Email:");
@@ -0,0 +1,249 @@
+package ui.components;
+
+import pojos.Patient;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * In-memory index used to search a doctor's patients by name, surname and email.
+ * <p>
+ * Every field is folded to lowercase without accents ("Núñez" is indexed as "nunez") and split
+ * in words, and every word is stored in a sorted dictionary together with the patient and the
+ * field it comes from. A query is folded the same way and each of its words is looked up as a
+ * prefix with a binary search. Only the patients having a word that starts with the most
+ * selective word of the query are then visited, instead of every patient: typing "gar" finds
+ * "García" without scanning the list.
+ * </p>
+ * <p>
+ * A patient matches when every word of the query is the prefix of one of its words. The matches
+ * are ranked by where the words were found, surname first, then name, then email, with exact
+ * words above prefixes; patients with the same rank keep the order of the list.
+ * </p>
+ * The index is immutable once built and can be queried from any thread.
+ */
+public class PatientSearchIndex {
+    // Points given to a query word by the field it matches, for a prefix and for a whole word
+    private static final int[] PREFIX_SCORE = {5, 3, 1};
+    private static final int[] EXACT_SCORE = {6, 4, 2};
+    private static final int SURNAME = 0;
+    private static final int NAME = 1;
+    private static final int EMAIL = 2;
+
+    private final List<Patient> patients;
+    private final int indexedSize;
+    // Dictionary sorted by word; entry i says that patients[owners[i]] has the word terms[i]
+    private final String[] terms;
+    private final int[] owners;
+    // The words of every patient, with their fields
+    private final String[][] patientTerms;
+    private final byte[][] patientFields;
+
+    /**
+     * Builds the index of a list of patients. Building it for 50,000 patients takes some tens of
+     * milliseconds, so large lists should be indexed off the EDT.
+     *
+     * @param patients the patients to index; the list is not copied and must not change
+     */
+    public PatientSearchIndex(List<Patient> patients) {
+        this.patients = patients;
+        this.indexedSize = patients.size();
+        List<Entry> entries = new ArrayList<>(indexedSize * 4);
+        patientTerms = new String[indexedSize][];
+        patientFields = new byte[indexedSize][];
+        for (int i = 0; i < indexedSize; i++) {
+            Patient p = patients.get(i);
+            int before = entries.size();
+            addWords(entries, p.getSurname(), i, SURNAME);
+            addWords(entries, p.getName(), i, NAME);
+            addWords(entries, p.getEmail(), i, EMAIL);
+            patientTerms[i] = new String[entries.size() - before];
+            patientFields[i] = new byte[entries.size() - before];
+            for (int k = before; k < entries.size(); k++) {
+                patientTerms[i][k - before] = entries.get(k).term;
+                patientFields[i][k - before] = entries.get(k).field;
+            }
+        }
+        Entry[] sorted = entries.toArray(new Entry[0]);
+        Arrays.sort(sorted);
+        terms = new String[sorted.length];
+        owners = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            terms[i] = sorted[i].term;
+            owners[i] = sorted[i].owner;
+        }
+    }
+
+    /**
+     * Returns the number of patients indexed.
+     *
+     * @return the size of the indexed list
+     */
+    public int size() {
+        return indexedSize;
+    }
+
+    /**
+     * Returns whether this index was built from the given list, as it is now.
+     *
+     * @param list a list of patients
+     * @return true if it is the same list and has not grown since it was indexed
+     */
+    public boolean covers(List<Patient> list) {
+        return list == patients && list.size() == indexedSize;
+    }
+
+    /**
+     * Searches the patients matching a query, best matches first.
+     *
+     * @param query the words typed by the user, in any case and with or without accents
+     * @return the matching patients; every patient, in order, if the query has no words
+     */
+    public List<Patient> search(String query) {
+        int[] positions = searchIndexes(query);
+        List<Patient> result = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            result.add(patients.get(position));
+        }
+        return result;
+    }
+
+    /**
+     * Same as {@link #search(String)}, returning the positions of the matching patients in the
+     * indexed list instead of the patients, as expected by {@link BatchListModel#showIndexes(int[])}.
+     *
+     * @param query the words typed by the user, in any case and with or without accents
+     * @return the positions of the matching patients, best matches first
+     */
+    public int[] searchIndexes(String query) {
+        String[] words = split(fold(query == null ? "" : query));
+        if (words.length == 0) {
+            int[] all = new int[indexedSize];
+            for (int i = 0; i < all.length; i++) all[i] = i;
+            return all;
+        }
+
+        // Candidates from the dictionary range of the most selective word, the other words are
+        // checked against the few words of each candidate
+        int[] range = null;
+        for (String word : words) {
+            int[] r = prefixRange(word);
+            if (range == null || r[1] - r[0] < range[1] - range[0]) range = r;
+        }
+        BitSet seen = new BitSet(indexedSize);
+        long[] keys = new long[range[1] - range[0]];
+        int found = 0;
+        for (int i = range[0]; i < range[1]; i++) {
+            int p = owners[i];
+            if (seen.get(p)) continue;
+            seen.set(p);
+            int score = score(p, words);
+            if (score > 0) {
+                // Packed to sort primitives: by score, then by position in the list
+                keys[found++] = ((long) (Integer.MAX_VALUE - score) << 32) | p;
+            }
+        }
+        Arrays.sort(keys, 0, found);
+        int[] result = new int[found];
+        for (int i = 0; i < found; i++) {
+            result[i] = (int) keys[i];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the score of a patient for a query: the sum, for every word of the query, of the
+     * best field of the patient starting with it, or 0 if some word is not found.
+     */
+    private int score(int patient, String[] query) {
+        String[] words = patientTerms[patient];
+        byte[] wordFields = patientFields[patient];
+        int total = 0;
+        for (String q : query) {
+            int best = 0;
+            for (int i = 0; i < words.length; i++) {
+                if (words[i].startsWith(q)) {
+                    best = Math.max(best, words[i].length() == q.length()
+                            ? EXACT_SCORE[wordFields[i]] : PREFIX_SCORE[wordFields[i]]);
+                }
+            }
+            if (best == 0) return 0;
+            total += best;
+        }
+        return total;
+    }
+
+    /**
+     * Folds a text for searching: lowercase and without diacritics.
+     *
+     * @param text the text to fold
+     * @return the folded text
+     */
+    static String fold(String text) {
+        boolean ascii = true;
+        for (int i = 0; i < text.length() && ascii; i++) {
+            ascii = text.charAt(i) < 128;
+        }
+        if (!ascii) {
+            // Decompose the accented letters and drop the accents
+            text = Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+        }
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Splits a folded text in words, at every character that is not a letter or a digit.
+     */
+    private static String[] split(String folded) {
+        List<String> words = new ArrayList<>(4);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean inWord = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (inWord && start < 0) {
+                start = i;
+            } else if (!inWord && start >= 0) {
+                words.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return words.toArray(new String[0]);
+    }
+
+    private static void addWords(List<Entry> entries, String text, int owner, int field) {
+        if (text == null || text.isEmpty()) return;
+        for (String word : split(fold(text))) {
+            entries.add(new Entry(word, owner, (byte) field));
+        }
+    }
+
+    /**
+     * Returns the range of the dictionary holding the words that start with a prefix.
+     */
+    private int[] prefixRange(String prefix) {
+        // Every word starting with the prefix sorts before the prefix followed by the last char
+        return new int[]{lowerBound(prefix), lowerBound(prefix + Character.MAX_VALUE)};
+    }
+
+    private int lowerBound(String word) {
+        int lo = 0;
+        int hi = terms.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (terms[mid].compareTo(word) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private record Entry(String term, int owner, byte field) implements Comparable<Entry> {
+        @Override
+        public int compareTo(Entry o) {
+            int c = term.compareTo(o.term);
+            return c != 0 ? c : Integer.compare(owner, o.owner);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package ui.components;
+
+import processing.SignalPreprocessor;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+
+/**
+ * Per-second index of a signal: the minimum and the maximum of the samples of every second.
+ * <p>
+ * It is what the {@link OverviewStrip} draws, and what maps a time of the recording to its
+ * samples: the second of any sample is its index divided by the sampling frequency, so finding
+ * where to jump takes constant time whatever the length of the recording. Built once from the
+ * whole signal with {@link #build(DoubleBuffer, int, int)}, split across the cores, or second
+ * by second with {@link #append(double[], int, int)} while a recording is downloading. The
+ * extremes are stored as floats, 8 bytes per second, less than 700 KB for a day.
+ * </p>
+ */
+public class SecondSummary {
+    private final int frequency;
+    private float[] mins = new float[64];
+    private float[] maxs = new float[64];
+    private int length;
+
+    /**
+     * Creates an empty summary.
+     *
+     * @param frequency the sampling frequency of the signal in Hz
+     */
+    public SecondSummary(int frequency) {
+        if (frequency <= 0) throw new IllegalArgumentException("Invalid sampling frequency: " + frequency);
+        this.frequency = frequency;
+    }
+
+    /**
+     * Builds the summary of a whole signal, splitting the seconds across the common
+     * {@link java.util.concurrent.ForkJoinPool}. Gives the same summary as
+     * {@link #append(DoubleBuffer, int, int)} with all the samples, and can be called from any
+     * thread.
+     *
+     * @param samples   the signal, read by absolute index
+     * @param length    the number of samples
+     * @param frequency the sampling frequency in Hz
+     * @return the summary of the signal
+     */
+    public static SecondSummary build(DoubleBuffer samples, int length, int frequency) {
+        SecondSummary summary = new SecondSummary(frequency);
+        if (length <= 0) return summary;
+        int seconds = (int) ((length + (long) frequency - 1) / frequency);
+        summary.mins = new float[seconds];
+        summary.maxs = new float[seconds];
+        summary.length = length;
+        float[] mins = summary.mins;
+        float[] maxs = summary.maxs;
+        // Blocks of about a million samples
+        SignalPreprocessor.forEachBlock(0, seconds, Math.max(1, (1 << 20) / frequency), (from, to) -> {
+            for (int s = from; s < to; s++) {
+                int start = s * frequency;
+                int end = (int) Math.min((long) start + frequency, length);
+                double min = samples.get(start);
+                double max = min;
+                for (int i = start + 1; i < end; i++) {
+                    double v = samples.get(i);
+                    if (v < min) min = v;
+                    if (v > max) max = v;
+                }
+                mins[s] = (float) min;
+                maxs[s] = (float) max;
+            }
+        });
+        return summary;
+    }
+
+    /**
+     * Adds the next samples of the signal to the summary.
+     *
+     * @param samples buffer holding the new samples
+     * @param from    index of the first new sample in the buffer
+     * @param to      index after the last new sample in the buffer
+     */
+    public void append(double[] samples, int from, int to) {
+        append(DoubleBuffer.wrap(samples), from, to);
+    }
+
+    /**
+     * Adds the next samples of the signal to the summary.
+     *
+     * @param samples buffer holding the new samples, read by absolute index
+     * @param from    index of the first new sample in the buffer
+     * @param to      index after the last new sample in the buffer
+     */
+    public void append(DoubleBuffer samples, int from, int to) {
+        if (to <= from) return;
+        int seconds = (int) ((length + (long) (to - from) + frequency - 1) / frequency);
+        if (seconds > mins.length) {
+            int capacity = Math.max(seconds, mins.length * 2);
+            mins = Arrays.copyOf(mins, capacity);
+            maxs = Arrays.copyOf(maxs, capacity);
+        }
+        for (int i = from, g = length; i < to; i++, g++) {
+            int s = g / frequency;
+            float v = (float) samples.get(i);
+            if (g % frequency == 0) {
+                mins[s] = v;
+                maxs[s] = v;
+            } else {
+                if (v < mins[s]) mins[s] = v;
+                if (v > maxs[s]) maxs[s] = v;
+            }
+        }
+        length += to - from;
+    }
+
+    /**
+     * Returns the sampling frequency of the signal.
+     *
+     * @return the frequency in Hz
+     */
+    public int getFrequency() {
+        return frequency;
+    }
+
+    /**
+     * Returns the number of samples summarized.
+     *
+     * @return the number of samples added so far
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns the number of seconds summarized, the last one possibly incomplete.
+     *
+     * @return the number of seconds
+     */
+    public int seconds() {
+        return (int) ((length + (long) frequency - 1) / frequency);
+    }
+
+    /**
+     * Returns the second a sample belongs to.
+     *
+     * @param sample the index of the sample
+     * @return the index of its second
+     */
+    public int secondOf(int sample) {
+        return sample / frequency;
+    }
+
+    /**
+     * Returns the first sample of a second.
+     *
+     * @param second the index of the second
+     * @return the index of its first sample
+     */
+    public int sampleOf(int second) {
+        return (int) Math.min((long) second * frequency, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the smallest sample of a second.
+     *
+     * @param second the index of the second
+     * @return the minimum
+     */
+    public float min(int second) {
+        return mins[second];
+    }
+
+    /**
+     * Returns the largest sample of a second.
+     *
+     * @param second the index of the second
+     * @return the maximum
+     */
+    public float max(int second) {
+        return maxs[second];
+    }
+
+    /**
+     * Computes the minimum and the maximum of the seconds under each of a number of columns
+     * spread over the whole signal, as drawn by the {@link OverviewStrip}.
+     *
+     * @param columns the number of columns
+     * @param min     receives the minimum of every column, at least {@code columns} long
+     * @param max     receives the maximum of every column, at least {@code columns} long
+     * @return the number of columns filled: {@code columns}, or 0 if the summary is empty
+     */
+    public int envelope(int columns, float[] min, float[] max) {
+        int seconds = seconds();
+        if (seconds == 0 || columns <= 0) return 0;
+        for (int c = 0; c < columns; c++) {
+            int from = (int) ((long) c * seconds / columns);
+            int to = Math.max(from + 1, (int) ((long) (c + 1) * seconds / columns));
+            float lo = mins[from];
+            float hi = maxs[from];
+            for (int s = from + 1; s < to; s++) {
+                if (mins[s] < lo) lo = mins[s];
+                if (maxs[s] > hi) hi = maxs[s];
+            }
+            min[c] = lo;
+            max[c] = hi;
+        }
+        return columns;
+    }
+}
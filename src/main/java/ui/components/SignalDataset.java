@@ -0,0 +1,130 @@
+package ui.components;
+
+import org.jfree.data.xy.AbstractXYDataset;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * JFreeChart dataset that reads the displayed window of a signal straight from its
+ * {@code double[]} (or from a {@link DoubleBuffer} mapped from the recording cache),
+ * without creating an object per point.
+ * <p>
+ * The x value of a sample is its index divided by the sampling frequency, and its y value
+ * is normalized on the fly as {@code (sample - offset) / scale}. This way the raw arrays of a
+ * {@link pojos.Signal} are displayed as they are, without a normalized copy. The window is
+ * either a range of the samples ({@link #showSamples(int, int)}) or a list of points computed
+ * by a {@link MinMaxPyramid} ({@link #showPoints(double[], double[], int)}), whose arrays are
+ * also read in place.
+ * </p>
+ * Must only be used on the EDT.
+ */
+public class SignalDataset extends AbstractXYDataset {
+    private final String key;
+    private final double frequency;
+    private DoubleBuffer samples = DoubleBuffer.allocate(0);
+    private double offset;
+    private double scale = 1;
+    //Window: a range of the samples, or decimated points whose x values are sample indexes
+    private int start;
+    private int count;
+    private double[] pointX;
+    private double[] pointY;
+
+    /**
+     * Creates an empty dataset.
+     *
+     * @param key               the name of the series
+     * @param samplingFrequency the sampling frequency of the signal in Hz
+     */
+    public SignalDataset(String key, int samplingFrequency) {
+        this.key = key;
+        this.frequency = samplingFrequency;
+    }
+
+    /**
+     * Sets the buffer holding the samples of the signal, read by absolute index. It is not copied.
+     *
+     * @param samples the raw samples
+     */
+    public void setSamples(DoubleBuffer samples) {
+        this.samples = samples;
+    }
+
+    /**
+     * Sets the normalization applied to the y values and notifies the chart.
+     *
+     * @param offset value subtracted from every sample
+     * @param scale  value the centered samples are divided by; ignored if it is not positive
+     */
+    public void setNormalization(double offset, double scale) {
+        this.offset = offset;
+        this.scale = scale > 0 ? scale : 1;
+        fireDatasetChanged();
+    }
+
+    /**
+     * Shows a range of the samples, one point per sample.
+     *
+     * @param from index of the first sample
+     * @param to   index after the last sample
+     */
+    public void showSamples(int from, int to) {
+        this.pointX = null;
+        this.pointY = null;
+        this.start = from;
+        this.count = Math.max(0, to - from);
+        fireDatasetChanged();
+    }
+
+    /**
+     * Shows a list of points. The arrays are not copied and must not change until the next
+     * call that changes the window.
+     *
+     * @param xs     the sample index of every point
+     * @param ys     the raw value of every point
+     * @param points the number of points
+     */
+    public void showPoints(double[] xs, double[] ys, int points) {
+        this.pointX = xs;
+        this.pointY = ys;
+        this.start = 0;
+        this.count = points;
+        fireDatasetChanged();
+    }
+
+    @Override
+    public int getSeriesCount() {
+        return 1;
+    }
+
+    @Override
+    public Comparable getSeriesKey(int series) {
+        return key;
+    }
+
+    @Override
+    public int getItemCount(int series) {
+        return count;
+    }
+
+    @Override
+    public double getXValue(int series, int item) {
+        return (pointX != null ? pointX[item] : start + item) / frequency;
+    }
+
+    @Override
+    public double getYValue(int series, int item) {
+        double raw = pointY != null ? pointY[item] : samples.get(start + item);
+        return (raw - offset) / scale;
+    }
+
+    @Override
+    public Number getX(int series, int item) {
+        return getXValue(series, item);
+    }
+
+    @Override
+    public Number getY(int series, int item) {
+        return getYValue(series, item);
+    }
+}
@@ -2,46 +2,130 @@ package ui.components;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.io.IOException;
-import java.util.Date;
+import java.nio.DoubleBuffer;
+import java.util.concurrent.CompletableFuture;
 
 import net.miginfocom.swing.MigLayout;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
-import org.jfree.chart.axis.DateAxis;
 import org.jfree.chart.axis.NumberAxis;
 import org.jfree.chart.plot.XYPlot;
-import org.jfree.data.time.Millisecond;
-import org.jfree.data.time.TimeSeries;
-import org.jfree.data.time.TimeSeriesCollection;
-import org.jfree.data.xy.XYSeries;
-import org.jfree.data.xy.XYSeriesCollection;
+import org.jfree.data.Range;
+import processing.EventIndex;
+import processing.RunningNormalizer;
+import processing.SignalPreprocessor;
 import ui.ECGFileReader;
+import ui.RecordingCache;
 import ui.windows.Application;
 /**
  * A panel that displays a biosignal over time using a scrolling
  * time–series graph. The panel preprocesses the raw signal, initializes a
  * JFreeChart time-series plot, and provides navigation controls to scroll
  * through the signal window.
+ * <p>
+ * The panel can also be created empty and filled with {@link #appendSamples(double[], int)}
+ * while a recording is still downloading. The first window is drawn as soon as its samples
+ * arrive, normalized with the statistics of the samples received so far, kept sample by sample
+ * by a {@link RunningNormalizer}, and the navigation
+ * buttons are enabled once the data they need is available. {@link #finishLoading(double[])}
+ * switches to the final normalization of the whole signal.
+ * </p>
+ * <p>
+ * The chart never holds more than two points per pixel column: a {@link MinMaxPyramid} built
+ * over the signal gives the minimum and maximum of the samples under each column, so any
+ * window, from one second to the whole recording, is drawn in the same time. The window can
+ * be zoomed with the zoom buttons, the mouse wheel or by dragging over the chart.
+ * </p>
+ * <p>
+ * The chart reads the samples from the array given to the panel through a {@link SignalDataset},
+ * which normalizes them as they are drawn: the signal is never copied, and scrolling does not
+ * create any object per point. A recording opened from the {@link RecordingCache} is read in
+ * the same way from its memory-mapped file.
+ * </p>
+ * <p>
+ * Indexing a whole recording (its statistics and its pyramid) reads every sample, which for an
+ * 8 h recording takes a while, so it is done in the background with
+ * {@link SignalPreprocessor} and {@link MinMaxPyramid#build(DoubleBuffer, int)}, which split
+ * the work across the cores. Until it finishes, the panel shows the first window normalized
+ * with its own statistics, like a recording that is still downloading.
+ * </p>
+ * <p>
+ * The "Adapt Baseline" button switches to a normalization of each window on its own: the points
+ * drawn go through a {@link RunningNormalizer} that subtracts a sliding baseline of
+ * {@value #BASELINE_SECONDS} seconds (or an eighth of the window if longer), centered on each
+ * point so that the edges of the window are not flattened, and are scaled to the
+ * largest deviation of the window. It removes the baseline wander of the signal and only reads
+ * the points drawn, so it works the same while streaming and on recordings mapped from the cache.
+ * </p>
+ * <p>
+ * Under the chart, an {@link OverviewStrip} draws the whole recording from a {@link SecondSummary},
+ * built with the pyramid, and marks the window shown and the events set with
+ * {@link #setEvents(EventIndex)}. Clicking on it, {@link #seekTo(double)} and the event buttons
+ * move the window straight to any time or event: the sample to show is computed from the time
+ * and the window is drawn once, however far it is from the current one.
+ * </p>
  *
  *  @author MamenCortes
  */
 public class SignalGraphPanel extends JPanel {
-    private TimeSeries ecgSeries;
-    private int windowSize = 1000;  // show 10,000 samples (~10s at 1kHz)
+    private static final int DEFAULT_WINDOW = 1000;  // 1,000 samples (1s at 1kHz)
+    /** Minimum duration of the sliding baseline of the adaptive normalization, in seconds. */
+    public static final int BASELINE_SECONDS = 2;
+    /** Seconds shown before and after an event by {@link #showEvent(int)}. */
+    public static final int EVENT_MARGIN_SECONDS = 30;
+    private SignalDataset dataset;
+    private int windowSize = DEFAULT_WINDOW;
     private int currentIndex = 0;
     private int sf;
-    private double[] fullData;
+    //Raw samples: the signal's own array or mapped file, or while it streams, the buffer the
+    //decoder fills, read in place up to sampleCount
+    private DoubleBuffer samples;
+    private int sampleCount;
+    private boolean loading;
+    //Statistics used to center and normalize the samples
+    private SignalPreprocessor.Statistics statistics = SignalPreprocessor.Statistics.EMPTY;
+    //Running statistics of the samples received while streaming
+    private final RunningNormalizer received = new RunningNormalizer(0);
+    //Whether every window is normalized on its own, with a sliding baseline
+    private boolean adaptive;
+    //Sliding baseline of the adaptive normalization, reused while its length does not change
+    private RunningNormalizer windowBaseline;
+    //Min/max index over the raw samples and the points of the current window
+    private MinMaxPyramid pyramid = new MinMaxPyramid();
+    //Extremes of every second, drawn by the overview strip
+    private SecondSummary summary;
+    private OverviewStrip overview;
+    //Events marked on the overview, and the one shown, -1 if the window moved since
+    private EventIndex events = EventIndex.EMPTY;
+    private int currentEvent = -1;
+    private JButton previousEvent;
+    private JButton nextEvent;
+    private double[] windowX = new double[0];
+    private double[] windowY = new double[0];
+    private ChartPanel chartPanel;
+    private NumberAxis domainAxis;
+    private boolean updatingAxis;
+    private JButton left;
+    private JButton right;
     private final Font titleFont = new Font("sansserif", 3, 15);
     private final Color titleColor = Application.dark_purple;
     private final Font contentFont = new Font("sansserif", 1, 12);
     private final Color contentColor = Application.dark_turquoise;
     private ImageIcon icon  = new ImageIcon(getClass().getResource("/icons/ekg-monitor64_02.png"));
+
+    //Result of indexing the whole signal in the background
+    private record SignalIndex(SignalPreprocessor.Statistics statistics, MinMaxPyramid pyramid, SecondSummary summary) {
+    }
+
     /**
      * Creates a new graph panel for displaying a time–series physiological signal.
-     * The signal is preprocessed (centered and normalized), displayed in a
-     * time–windowed chart, and presented with navigation buttons to scroll the data.
+     * The signal is displayed centered and normalized in a time–windowed chart, and
+     * presented with navigation buttons to scroll the data. The array is displayed in
+     * place and must not be modified afterwards.
      *
      * @param rawData the raw signal samples
      * @param samplingFrequency the sampling frequency of the signal in Hz
@@ -49,73 +133,442 @@ public class SignalGraphPanel extends JPanel {
      */
     public SignalGraphPanel(double[] rawData, int samplingFrequency, String title) {
         sf = samplingFrequency;
-        //Process the signal: center and normalize
-        this.fullData = preprocessSignal(rawData);
-        System.out.println("Signal Preprocessed");
+        //Statistics to center and normalize the signal
+        this.samples = DoubleBuffer.wrap(rawData);
+        this.sampleCount = rawData.length;
+        initPanel(title);
+        indexInBackground(null);
+    }
+
+    /**
+     * Creates a graph panel for a channel of a recording opened from the
+     * {@link RecordingCache}. The samples stay in the mapped file and the normalization
+     * uses the statistics stored with them, so only the pyramid is built from the samples,
+     * in the background.
+     *
+     * @param channel the cached channel to display
+     * @param samplingFrequency the sampling frequency of the signal in Hz
+     * @param title the title to display on the chart
+     */
+    public SignalGraphPanel(RecordingCache.Channel channel, int samplingFrequency, String title) {
+        sf = samplingFrequency;
+        this.samples = channel.samples();
+        this.sampleCount = samples.limit();
+        SignalPreprocessor.Statistics stored =
+                new SignalPreprocessor.Statistics(sampleCount, channel.sum(), channel.min(), channel.max());
+        this.statistics = stored;
+        initPanel(title);
+        indexInBackground(stored);
+    }
+
+    /**
+     * Creates an empty graph panel for a signal that is still being received.
+     * Samples are added with {@link #appendSamples(double[], int)}.
+     *
+     * @param samplingFrequency the sampling frequency of the signal in Hz
+     * @param title the title to display on the chart
+     */
+    public SignalGraphPanel(int samplingFrequency, String title) {
+        sf = samplingFrequency;
+        this.samples = DoubleBuffer.wrap(new double[0]);
+        this.summary = new SecondSummary(samplingFrequency);
+        this.loading = true;
+        initPanel(title);
+    }
 
-        this.setLayout(new MigLayout("fill, inset 20, gap 0, wrap 3", "[]", "[95%][5%]"));
+    private void initPanel(String title) {
+        this.setLayout(new MigLayout("fill, inset 20, gap 0, wrap 3", "[]", "[90%][][5%]"));
         this.setBackground(Color.white);
 
-        ecgSeries = new TimeSeries("ECG");
-        TimeSeriesCollection dataset = new TimeSeriesCollection(ecgSeries);
-        JFreeChart chart = ChartFactory.createTimeSeriesChart(
-                title, "Time", "Normalized Amplitude", dataset);
-        ChartPanel chartPanel = new ChartPanel(chart);
+        dataset = new SignalDataset("ECG", sf);
+        dataset.setSamples(samples);
+        updateNormalization();
+        JFreeChart chart = ChartFactory.createXYLineChart(
+                title, "Time (s)", "Normalized Amplitude", dataset);
+        chartPanel = new ChartPanel(chart);
+        chartPanel.setMouseWheelEnabled(true);
         add(chartPanel, "cell 0 0, alignx center");
 
+        overview = new OverviewStrip(this::seekToSample);
+        overview.setSummary(summary);
+        add(overview, "cell 0 1, growx, h 40!, gapy 5");
+
         //Change aesthetics and axis limits
         XYPlot plot = chart.getXYPlot();
         NumberAxis rangeAxis = (NumberAxis) plot.getRangeAxis(); // eje Y
         rangeAxis.setAutoRange(false); // desactiva que el eje se ajuste automáticamente
         rangeAxis.setRange(-1, 1);
 
-        DateAxis domainAxis = (DateAxis) plot.getDomainAxis();
-        domainAxis.setDateFormatOverride(new java.text.SimpleDateFormat("s.S")); // show seconds.milliseconds
-        domainAxis.setLabel("Time (s)");
+        domainAxis = (NumberAxis) plot.getDomainAxis();
+        // Zooming with the mouse changes the axis: redraw the samples of the new range
+        domainAxis.addChangeListener(e -> onDomainAxisChanged());
+        // The number of points drawn depends on the width of the chart
+        chartPanel.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                updateWindow(currentIndex, currentIndex + windowSize);
+            }
+        });
 
         // initial window
-        updateWindow(0, windowSize);
+        showRange(0, windowSize);
 
         // add buttons to scroll left/right
-        JButton left = new MyButton("←");
-        JButton right = new MyButton("→");
+        left = new MyButton("←");
+        right = new MyButton("→");
+        JButton zoomIn = new MyButton("+");
+        JButton zoomOut = new MyButton("−");
         JButton resetZoom = new MyButton("Reset Zoom");
+        JButton adaptButton = new MyButton("Adapt Baseline");
+        previousEvent = new MyButton("◀ Event");
+        nextEvent = new MyButton("Event ▶");
+        previousEvent.setVisible(false);
+        nextEvent.setVisible(false);
         JPanel nav = new JPanel();
         nav.setBackground(Color.white);
         nav.add(left);
         nav.add(right);
+        nav.add(zoomIn);
+        nav.add(zoomOut);
         nav.add(resetZoom);
-        add(nav, "cell 0 1, alignx center");
+        nav.add(adaptButton);
+        nav.add(previousEvent);
+        nav.add(nextEvent);
+        add(nav, "cell 0 2, alignx center");
 
         left.addActionListener(e -> scroll(-windowSize / 2));
         right.addActionListener(e -> scroll(windowSize / 2));
+        zoomIn.addActionListener(e -> zoom(0.5));
+        zoomOut.addActionListener(e -> zoom(2));
+        previousEvent.addActionListener(e -> {
+            int event = currentEvent >= 0 ? currentEvent - 1 : events.previous(currentIndex + windowSize / 2);
+            if (event >= 0) showEvent(event);
+        });
+        nextEvent.addActionListener(e -> {
+            int event = currentEvent >= 0 ? currentEvent + 1 : events.next(currentIndex + windowSize / 2);
+            if (event >= 0 && event < events.size()) showEvent(event);
+        });
+        adaptButton.addActionListener(e -> {
+            setAdaptiveNormalization(!adaptive);
+            adaptButton.setText(adaptive ? "Fixed Baseline" : "Adapt Baseline");
+        });
         resetZoom.addActionListener(e -> {
             // Get the plot
             XYPlot plot2 = chart.getXYPlot();
             // Set the y-axis range to [-1, 1]
             plot2.getRangeAxis().setRange(-1.0, 1.0);
-            // Optionally reset the x-axis to auto or some fixed range
-            plot.getDomainAxis().setAutoRange(true);
+            // Back to the default window at the current position
+            showRange(currentIndex, currentIndex + DEFAULT_WINDOW);
         });
 
+        updateNavigation();
         //pack();
         setVisible(true);
     }
+
     /**
-     * Updates the displayed segment of the signal by clearing the current time series
-     * and repopulating it with samples from the indicated range.
+     * Shows the samples received so far while the signal is streaming. Must be called on the EDT.
+     * <p>
+     * The samples are not copied: the panel reads them in place from the buffer the decoder
+     * fills (see {@link ui.SignalCsvParser.SampleListener}), which must hold the first
+     * {@code count} samples of the signal and never change them. When the decoder moves to a
+     * larger buffer, the panel follows it on the next call. Only the samples after those of the
+     * previous call are indexed, the displayed samples are normalized again with the statistics
+     * of all the samples received, and the current window is recomputed only while it is not
+     * complete yet.
+     * </p>
+     *
+     * @param buffer the buffer holding the samples received so far
+     * @param count  the number of samples received so far
+     */
+    public void appendSamples(double[] buffer, int count) {
+        if (!loading || count <= sampleCount) return;
+        int from = sampleCount;
+        if (samples.array() != buffer) {
+            samples = DoubleBuffer.wrap(buffer);
+            dataset.setSamples(samples);
+        }
+        for (int i = from; i < count; i++) received.add(buffer[i]);
+        statistics = received.statistics();
+        pyramid.append(buffer, from, count);
+        summary.append(buffer, from, count);
+        overview.setSummary(summary);
+        boolean windowIncomplete = sampleCount < currentIndex + windowSize;
+        sampleCount = count;
+        if (windowIncomplete) updateWindow(currentIndex, currentIndex + windowSize);
+        updateNormalization();
+        updateNavigation();
+    }
+
+    /**
+     * Ends the streaming: the panel switches to the array of the complete signal, normalized
+     * as in {@link #SignalGraphPanel(double[], int, String)}, and the current window is redrawn.
+     * If some samples were not streamed, the complete signal is indexed again in the background.
+     * Must be called on the EDT.
+     *
+     * @param rawData all the raw samples of the signal
+     */
+    public void finishLoading(double[] rawData) {
+        loading = false;
+        boolean complete = rawData.length == sampleCount;
+        // The decoder's buffer is released in favour of the signal's own array
+        samples = DoubleBuffer.wrap(rawData);
+        sampleCount = rawData.length;
+        dataset.setSamples(samples);
+        if (!complete) {
+            // Some samples were not streamed: index the complete signal again
+            pyramid = new MinMaxPyramid();
+            summary = null;
+            overview.setSummary(null);
+            statistics = SignalPreprocessor.statistics(samples, 0, Math.min(sampleCount, currentIndex + windowSize));
+            indexInBackground(null);
+        }
+        updateNormalization();
+        updateWindow(currentIndex, currentIndex + windowSize);
+        updateNavigation();
+    }
+
+    /**
+     * Computes the statistics, the pyramid and the per-second summary of the whole signal off
+     * the EDT, then normalizes and redraws the window with them and draws the overview.
+     * Meanwhile the first window is drawn from the samples.
+     *
+     * @param known the statistics of the whole signal if they are already known, or null
+     */
+    private void indexInBackground(SignalPreprocessor.Statistics known) {
+        DoubleBuffer indexed = samples;
+        int count = sampleCount;
+        if (known == null) {
+            statistics = SignalPreprocessor.statistics(indexed, 0, Math.min(count, windowSize));
+            updateNormalization();
+        }
+        CompletableFuture.supplyAsync(() -> new SignalIndex(
+                known != null ? known : SignalPreprocessor.statistics(indexed, 0, count),
+                MinMaxPyramid.build(indexed, count),
+                SecondSummary.build(indexed, count, sf))
+        ).whenComplete((index, ex) -> SwingUtilities.invokeLater(() -> {
+            if (ex != null) {
+                System.out.println("Could not index the signal: " + ex.getMessage());
+                return;
+            }
+            if (samples != indexed) return; // replaced by another signal meanwhile
+            statistics = index.statistics();
+            pyramid = index.pyramid();
+            summary = index.summary();
+            overview.setSummary(summary);
+            updateNormalization();
+            updateWindow(currentIndex, currentIndex + windowSize);
+        }));
+    }
+
+    /**
+     * Returns the number of samples that can be displayed.
+     */
+    private int availableSamples() {
+        return sampleCount;
+    }
+
+    /**
+     * Centers the samples on their mean and scales them by the largest distance to it, which
+     * gives the same values as {@link #preprocessSignal(double[])}. While streaming, the
+     * statistics are those of the samples received so far.
+     */
+    private void updateNormalization() {
+        if (adaptive) {
+            // The points of the window are already normalized
+            dataset.setNormalization(0, 1);
+            return;
+        }
+        if (statistics.count() == 0) return;
+        dataset.setNormalization(statistics.mean(), statistics.scale());
+    }
+
+    /**
+     * Enables each navigation button only if the samples it would show have arrived.
+     */
+    private void updateNavigation() {
+        int available = availableSamples();
+        left.setEnabled(currentIndex > 0);
+        right.setEnabled(Math.min(currentIndex + windowSize / 2, available - windowSize) > currentIndex);
+    }
+    /**
+     * Updates the displayed segment of the signal: the samples of the indicated range when
+     * they fit in the chart, or else the minimum and maximum of the samples under each pixel
+     * column.
      *
      * @param start the starting sample index of the window
      * @param end the ending sample index of the window (exclusive)
      */
     private void updateWindow(int start, int end) {
-        ecgSeries.clear();
-        double msPerSample = 1000.0 / sf;  // 10 ms per sample for 100 Hz
+        int columns = chartPanel.getWidth() > 0 ? chartPanel.getWidth() : ChartPanel.DEFAULT_WIDTH;
+        end = Math.min(end, sampleCount);
+        if (end - start <= 2 * columns && !adaptive) {
+            dataset.showSamples(start, end);
+            return;
+        }
+        if (windowX.length < 2 * columns) {
+            windowX = new double[2 * columns];
+            windowY = new double[2 * columns];
+        }
+        int points;
+        if (end - start <= 2 * columns) {
+            // Few samples: copied as they are, even before the pyramid is built
+            points = Math.max(0, end - start);
+            for (int i = 0; i < points; i++) {
+                windowX[i] = start + i;
+                windowY[i] = samples.get(start + i);
+            }
+        } else {
+            points = pyramid.decimate(samples, start, end, columns, windowX, windowY);
+        }
+        if (adaptive) normalizeWindow(points, end - start);
+        dataset.showPoints(windowX, windowY, points);
+    }
+
+    /**
+     * Normalizes the points of the window in place: subtracts a sliding baseline and divides by
+     * the largest remaining deviation, so that they fill [-1, 1]. The baseline of each point is
+     * the mean of the points around it, so that the first points of the window, which have no
+     * points before them, are not centered on themselves.
+     *
+     * @param points  the number of points of the window
+     * @param samples the number of samples the points cover
+     */
+    private void normalizeWindow(int points, int samples) {
+        if (points == 0) return;
+        long baselineSamples = Math.max((long) BASELINE_SECONDS * sf, samples / 8);
+        int baselinePoints = (int) Math.max(1, Math.min(points, baselineSamples * points / Math.max(1, samples)));
+        if (windowBaseline == null || windowBaseline.baselineWindow() != baselinePoints) {
+            windowBaseline = new RunningNormalizer(baselinePoints);
+        } else {
+            windowBaseline.reset();
+        }
+        // The baseline runs half a window ahead of the point it centers
+        int ahead = baselinePoints / 2;
+        for (int i = 0; i < ahead; i++) windowBaseline.add(windowY[i]);
+        double maxAbs = 0;
+        for (int i = 0; i < points; i++) {
+            if (i + ahead < points) windowBaseline.add(windowY[i + ahead]);
+            windowY[i] -= windowBaseline.baseline();
+            maxAbs = Math.max(maxAbs, Math.abs(windowY[i]));
+        }
+        if (maxAbs > 0) {
+            for (int i = 0; i < points; i++) windowY[i] /= maxAbs;
+        }
+    }
+
+    /**
+     * Switches between the normalization of the whole signal and the normalization of each
+     * window on its own, with a sliding baseline. Must be called on the EDT.
+     *
+     * @param adaptive true to normalize each window on its own
+     */
+    public void setAdaptiveNormalization(boolean adaptive) {
+        this.adaptive = adaptive;
+        updateNormalization();
+        updateWindow(currentIndex, currentIndex + windowSize);
+    }
+
+    /**
+     * Shows the given range of samples: moves the time axis to it and redraws the window.
+     * Must be called on the EDT.
+     *
+     * @param start the starting sample index of the range
+     * @param end the ending sample index of the range (exclusive)
+     */
+    public void showRange(int start, int end) {
+        windowSize = Math.max(2, end - start);
+        currentIndex = Math.max(0, Math.min(start, availableSamples() - windowSize));
+        currentEvent = -1;
+        overview.setWindow(currentIndex, currentIndex + windowSize);
+        updatingAxis = true;
+        try {
+            domainAxis.setRange((double) currentIndex / sf, (double) (currentIndex + windowSize) / sf);
+        } finally {
+            updatingAxis = false;
+        }
+        updateWindow(currentIndex, currentIndex + windowSize);
+        if (left != null) updateNavigation();
+    }
+
+    /**
+     * Moves the window, keeping its duration, so that it is centered on a time of the recording.
+     * Must be called on the EDT.
+     *
+     * @param seconds the time from the start of the recording, in seconds
+     */
+    public void seekTo(double seconds) {
+        seekToSample((int) Math.min(Math.round(seconds * sf), Integer.MAX_VALUE));
+    }
+
+    /**
+     * Moves the window, keeping its duration, so that it is centered on a sample. Must be
+     * called on the EDT.
+     *
+     * @param sample the index of the sample
+     */
+    public void seekToSample(int sample) {
+        int start = sample - windowSize / 2;
+        showRange(start, start + windowSize);
+    }
+
+    /**
+     * Sets the events marked on the overview and reached with the event buttons, which are
+     * shown if there are any. Must be called on the EDT.
+     *
+     * @param events the events, with the sample indexes of this signal
+     */
+    public void setEvents(EventIndex events) {
+        this.events = events;
+        currentEvent = -1;
+        overview.setEvents(events);
+        previousEvent.setVisible(events.size() > 0);
+        nextEvent.setVisible(events.size() > 0);
+        revalidate();
+    }
+
+    /**
+     * Shows an event set with {@link #setEvents(EventIndex)}, with the
+     * {@value #EVENT_MARGIN_SECONDS} seconds around it. Must be called on the EDT.
+     *
+     * @param event the index of the event
+     */
+    public void showEvent(int event) {
+        int margin = EVENT_MARGIN_SECONDS * sf;
+        int start = Math.max(0, events.start(event) - margin);
+        showRange(start, (int) Math.min((long) events.end(event) + margin, Integer.MAX_VALUE));
+        currentEvent = event;
+    }
 
-        for (int i = start; i < end && i < fullData.length; i++) {
-            long timeMillis = Math.round(i * msPerSample);
-            ecgSeries.addOrUpdate(new Millisecond(new Date(timeMillis)), fullData[i]);
+    /**
+     * Follows the zoom done with the mouse on the chart. Restoring the automatic range of
+     * the time axis shows the whole signal.
+     */
+    private void onDomainAxisChanged() {
+        if (updatingAxis) return;
+        if (domainAxis.isAutoRange()) {
+            showRange(0, availableSamples());
+            return;
         }
+        Range range = domainAxis.getRange();
+        currentIndex = Math.max(0, (int) Math.floor(range.getLowerBound() * sf));
+        windowSize = Math.max(2, (int) Math.ceil(range.getUpperBound() * sf) - currentIndex);
+        currentEvent = -1;
+        overview.setWindow(currentIndex, currentIndex + windowSize);
+        updateWindow(currentIndex, currentIndex + windowSize);
+        updateNavigation();
+    }
+
+    /**
+     * Changes the duration of the window around its center, between one second and the
+     * whole signal.
+     *
+     * @param factor the ratio between the new and the current window size
+     */
+    private void zoom(double factor) {
+        int size = (int) Math.min(Math.max(windowSize * factor, sf), Math.max(availableSamples(), sf));
+        int center = currentIndex + windowSize / 2;
+        showRange(center - size / 2, center - size / 2 + size);
     }
     /**
      * Scrolls the signal window by a given offset. The method adjusts the current
@@ -125,8 +578,7 @@ public class SignalGraphPanel extends JPanel {
      * @param delta the number of samples to shift the window by (positive or negative)
      */
     private void scroll(int delta) {
-        currentIndex = Math.max(0, Math.min(currentIndex + delta, fullData.length - windowSize));
-        updateWindow(currentIndex, currentIndex + windowSize);
+        showRange(currentIndex + delta, currentIndex + delta + windowSize);
     }
 
     /**
@@ -135,29 +587,19 @@ public class SignalGraphPanel extends JPanel {
      * @return Processed signal (centered around 0, normalized between -1 and 1)
      */
     public static double[] preprocessSignal(double[] signal) {
-        int n = signal.length;
-        double[] processed = new double[n];
-
-        // Step 1: Compute the mean (centering)
-        double sum = 0;
-        for (double v : signal) sum += v;
-        double mean = sum / n;
-
-        // Step 2: Center the signal
-        double maxAbs = 0; // to find max absolute value for normalization
-        for (int i = 0; i < n; i++) {
-            processed[i] = signal[i] - mean;
-            if (Math.abs(processed[i]) > maxAbs) maxAbs = Math.abs(processed[i]);
-        }
-
-        // Step 3: Normalize to [-1, 1]
-        if (maxAbs > 0) {
-            for (int i = 0; i < n; i++) {
-                processed[i] /= maxAbs;
-            }
-        }
+        return preprocessSignal(signal, null);
+    }
 
-        return processed;
+    /**
+     * Centers and normalizes a signal into a reusable buffer, with
+     * {@link SignalPreprocessor#normalize(double[], double[])}: one pass for the mean and the
+     * extremes and one for the result, split across the cores for long signals.
+     * @param signal Original signal values
+     * @param into Array receiving the result (the signal itself to work in place), or null to allocate it
+     * @return Processed signal (centered around 0, normalized between -1 and 1)
+     */
+    public static double[] preprocessSignal(double[] signal, double[] into) {
+        return SignalPreprocessor.normalize(signal, into);
     }
 
     /**
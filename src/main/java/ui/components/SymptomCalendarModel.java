@@ -0,0 +1,117 @@
+package ui.components;
+
+import pojos.Report;
+import pojos.SymptomType;
+
+import javax.swing.table.AbstractTableModel;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Table model of a month calendar showing the symptoms reported every day.
+ * <p>
+ * The reports of the patient are indexed once, when the model is created, in a map from each
+ * date to the set of symptom types reported that day. Showing a month then takes one lookup per
+ * day, however many reports the patient has, and every cell holds a {@link Day} with the
+ * {@link EnumSet} of its symptoms, ready for the renderer.
+ * </p>
+ * The weeks start on Sunday and a month takes at most {@value #WEEKS} rows; the cells outside
+ * the month are null.
+ */
+public class SymptomCalendarModel extends AbstractTableModel {
+
+    /**
+     * A day of the calendar.
+     *
+     * @param date     the date
+     * @param symptoms the symptom types reported that day, empty if none; must not be modified
+     */
+    public record Day(LocalDate date, Set<SymptomType> symptoms) {
+    }
+
+    private static final String[] COLUMNS = {"Sun", "Mon", "Tue", "Wed", "Thu", "Fri", "Sat"};
+    static final int WEEKS = 6;
+    private static final Set<SymptomType> NO_SYMPTOMS = Collections.unmodifiableSet(EnumSet.noneOf(SymptomType.class));
+
+    private final Map<LocalDate, Set<SymptomType>> symptomsByDate;
+    private final Day[][] cells = new Day[WEEKS][COLUMNS.length];
+    private YearMonth month;
+
+    /**
+     * Creates the model, indexing the symptoms of the given reports by date.
+     *
+     * @param reports the reports of the patient
+     */
+    public SymptomCalendarModel(List<Report> reports) {
+        Map<LocalDate, EnumSet<SymptomType>> index = new HashMap<>();
+        for (Report report : reports) {
+            if (report.getDate() == null || report.getSymptoms() == null || report.getSymptoms().isEmpty()) continue;
+            index.computeIfAbsent(report.getDate(), d -> EnumSet.noneOf(SymptomType.class))
+                    .addAll(report.getSymptoms());
+        }
+        symptomsByDate = new HashMap<>(index.size() * 2);
+        index.forEach((date, symptoms) -> symptomsByDate.put(date, Collections.unmodifiableSet(symptoms)));
+    }
+
+    /**
+     * Shows a month and notifies the table.
+     *
+     * @param month the month to show
+     */
+    public void setMonth(YearMonth month) {
+        this.month = month;
+        for (Day[] week : cells) Arrays.fill(week, null);
+        int startCol = month.atDay(1).getDayOfWeek().getValue() % 7; // Sunday=0
+        for (int day = 1; day <= month.lengthOfMonth(); day++) {
+            int cell = startCol + day - 1;
+            LocalDate date = month.atDay(day);
+            cells[cell / 7][cell % 7] = new Day(date, getSymptoms(date));
+        }
+        fireTableDataChanged();
+    }
+
+    /**
+     * Returns the month shown.
+     *
+     * @return the month, or null before {@link #setMonth(YearMonth)} is called
+     */
+    public YearMonth getMonth() {
+        return month;
+    }
+
+    /**
+     * Returns the symptom types reported on a date.
+     *
+     * @param date the date
+     * @return the symptom types, empty if none; the set must not be modified
+     */
+    public Set<SymptomType> getSymptoms(LocalDate date) {
+        return symptomsByDate.getOrDefault(date, NO_SYMPTOMS);
+    }
+
+    @Override
+    public int getRowCount() {
+        return WEEKS;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        return Day.class;
+    }
+
+    @Override
+    public Day getValueAt(int rowIndex, int columnIndex) {
+        return cells[rowIndex][columnIndex];
+    }
+}
@@ -0,0 +1,141 @@
+package ui.components;
+
+import pojos.SymptomType;
+
+import javax.swing.*;
+import javax.swing.table.TableCellRenderer;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Renderer of the days of a {@link SymptomCalendarModel}: the day number and a colored square
+ * for every symptom type reported that day.
+ * <p>
+ * The cell is painted directly in {@link #paintComponent(Graphics)} instead of being built from
+ * labels and panels, and the color of every symptom type is looked up by its ordinal in an array
+ * filled once. Rendering a cell therefore creates no components and allocates nothing, which
+ * matters because the table renders every visible cell on each repaint, when it is resized or
+ * scrolled. The tooltip text is only built when the table asks for it.
+ * </p>
+ */
+public class SymptomCellRenderer extends JComponent implements TableCellRenderer {
+    private static final int BOX_SIZE = 15;
+    private static final int GAP = 2;
+
+    private static final SymptomType[] TYPES = SymptomType.values();
+
+    private final Color[] colorsByOrdinal;
+    private final Font dayFont;
+    private final Color dayColor;
+    private final Map<?, ?> textHints;
+    // Day shown, with its text cached for the 31 possible days
+    private final String[] dayNumbers = new String[32];
+    private int dayOfMonth;
+    private Set<SymptomType> symptoms = Set.of();
+
+    /**
+     * Creates the renderer.
+     *
+     * @param symptomColors the color of every symptom type, by name; missing ones are drawn in light gray
+     */
+    public SymptomCellRenderer(Map<String, Color> symptomColors) {
+        colorsByOrdinal = new Color[TYPES.length];
+        for (SymptomType type : TYPES) {
+            colorsByOrdinal[type.ordinal()] = symptomColors.getOrDefault(type.name(), Color.LIGHT_GRAY);
+        }
+        JLabel label = new JLabel();
+        dayFont = label.getFont().deriveFont(Font.BOLD, 12f);
+        dayColor = label.getForeground();
+        // Antialias the text as the labels do
+        textHints = (Map<?, ?>) Toolkit.getDefaultToolkit().getDesktopProperty("awt.font.desktophints");
+        for (int day = 1; day < dayNumbers.length; day++) {
+            dayNumbers[day] = Integer.toString(day);
+        }
+        setOpaque(true);
+        setBackground(Color.WHITE);
+    }
+
+    @Override
+    public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                   boolean hasFocus, int row, int column) {
+        if (value instanceof SymptomCalendarModel.Day day) {
+            dayOfMonth = day.date().getDayOfMonth();
+            symptoms = day.symptoms();
+        } else {
+            dayOfMonth = 0;
+            symptoms = Set.of();
+        }
+        return this;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        g.setColor(getBackground());
+        g.fillRect(0, 0, getWidth(), getHeight());
+        if (dayOfMonth == 0) return;
+
+        if (textHints != null && g instanceof Graphics2D g2) g2.addRenderingHints(textHints);
+        g.setFont(dayFont);
+        g.setColor(dayColor);
+        FontMetrics metrics = g.getFontMetrics();
+        g.drawString(dayNumbers[dayOfMonth], 0, metrics.getAscent());
+
+        // Squares in rows, left to right, below the day number. Going through the types in
+        // order avoids creating an iterator of the set
+        int x = GAP;
+        int y = metrics.getHeight() + GAP;
+        for (SymptomType symptom : TYPES) {
+            if (!symptoms.contains(symptom)) continue;
+            if (x + BOX_SIZE > getWidth() && x > GAP) {
+                x = GAP;
+                y += BOX_SIZE + GAP;
+            }
+            g.setColor(colorsByOrdinal[symptom.ordinal()]);
+            g.fillRect(x, y, BOX_SIZE, BOX_SIZE);
+            x += BOX_SIZE + GAP;
+        }
+    }
+
+    @Override
+    public String getToolTipText() {
+        if (symptoms.isEmpty()) return null;
+        StringJoiner text = new StringJoiner(", ");
+        for (SymptomType symptom : symptoms) {
+            text.add(symptom.name());
+        }
+        return text.toString();
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent event) {
+        return getToolTipText();
+    }
+
+    // Like DefaultTableCellRenderer, skip the repaint requests made while rendering
+    @Override
+    public void invalidate() {
+    }
+
+    @Override
+    public void validate() {
+    }
+
+    @Override
+    public void revalidate() {
+    }
+
+    @Override
+    public void repaint(long tm, int x, int y, int width, int height) {
+    }
+
+    @Override
+    public void repaint(Rectangle r) {
+    }
+
+    @Override
+    public void repaint() {
+    }
+}
@@ -8,6 +8,7 @@ import network.Client;
 import pojos.SymptomType;
 import pojos.*;
 import ui.ECGFileReader;
+import ui.RecordingCache;
 import ui.components.*;
 
 import javax.swing.*;
@@ -69,6 +70,8 @@ public class Application extends JFrame {
 
     //network
     public Client client;
+    //Recordings already downloaded (null if the cache directory is not available)
+    public RecordingCache recordingCache;
     private String serverIPAdress = "localhost";
     private int serverPort = 9009;
 
@@ -92,6 +95,7 @@ public class Application extends JFrame {
      *     <li>Initializes frame and default window settings</li>
      *     <li>Creates the login panel</li>
      *     <li>Initializes network client</li>
+     *     <li>Opens the local recording cache</li>
      *     <li>Prepares global color mappings for symptoms</li>
      * </ul>
      */
@@ -107,6 +111,11 @@ public class Application extends JFrame {
 
         //Initialize the client
         client = new Client();
+        try {
+            recordingCache = RecordingCache.openDefault();
+        } catch (IOException e) {
+            System.out.println("Recording cache not available: " + e.getMessage());
+        }
 
         //Initialize empty user and doctor
         doctor = new Doctor();
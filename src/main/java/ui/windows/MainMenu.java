@@ -3,8 +3,10 @@ package ui.windows;
 import ui.components.MenuTemplate;
 import ui.components.MyButton;
 import javax.swing.*;
+import java.awt.*;
 import java.awt.event.ActionEvent;
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.CompletionException;
 
 /**
  * Main navigation panel shown after a successful login.
@@ -78,8 +80,9 @@ public class MainMenu extends MenuTemplate {
      * Actions:
      * <ul>
      *     <li><b>See My Details:</b> Updates doctor info panel and displays it.</li>
-     *     <li><b>Search Patients:</b> Loads doctor's patients (if not already loaded),
-     *         updates the list, and displays the search panel.</li>
+     *     <li><b>Search Patients:</b> Loads the first page of the doctor's patients
+     *         asynchronously (if not already loaded), updates the list, and displays the
+     *         search panel.</li>
      *     <li><b>Log Out:</b> Clears session data and returns to the login screen.</li>
      * </ul>
      * </p>
@@ -93,14 +96,26 @@ public class MainMenu extends MenuTemplate {
             appMenu.changeToPanel(doctorInfoPanel);
         }else if(e.getSource()== searchPatientsBt) {
             if(appMenu.doctor.getPatients().isEmpty()) {
-                try {
-                    appMenu.doctor.setPatients(appMenu.client.getPatientsFromDoctor(appMenu.doctor.getId()));
-                } catch (IOException | InterruptedException ex) {
-                    JOptionPane.showMessageDialog(this, "Error: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-                }
+                // Load the patients off the EDT and show the panel when they arrive
+                searchPatientsBt.setEnabled(false);
+                setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+                appMenu.client.getPatientSummariesAsync(appMenu.doctor.getId(), 0, SearchPatients.PAGE_SIZE)
+                        .whenComplete((page, ex) -> SwingUtilities.invokeLater(() -> {
+                            searchPatientsBt.setEnabled(true);
+                            setCursor(Cursor.getDefaultCursor());
+                            if (ex != null) {
+                                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                                JOptionPane.showMessageDialog(this, "Error: " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                            } else {
+                                // The next pages are loaded by the search panel as the list is scrolled
+                                appMenu.doctor.setPatients(new ArrayList<>(page.patients()));
+                                searchPatientsPanel.setNextCursor(page.nextCursor());
+                            }
+                            showSearchPatients();
+                        }));
+                return;
             }
-            searchPatientsPanel.updatePatientDefModel(appMenu.doctor.getPatients());
-            appMenu.changeToPanel(searchPatientsPanel);
+            showSearchPatients();
         }else if(e.getSource()== logOutBt) {
             appMenu.doctor = null;
             appMenu.user = null;
@@ -108,4 +123,12 @@ public class MainMenu extends MenuTemplate {
         }
 
     }
+
+    /**
+     * Refreshes the patient list with the doctor's patients and shows the search panel.
+     */
+    private void showSearchPatients() {
+        searchPatientsPanel.updatePatientDefModel(appMenu.doctor.getPatients());
+        appMenu.changeToPanel(searchPatientsPanel);
+    }
 }
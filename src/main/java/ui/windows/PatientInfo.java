@@ -1,30 +1,29 @@
 package ui.windows;
 
 import net.miginfocom.swing.MigLayout;
-import pojos.SymptomType;
+import network.SignalDownload;
 import pojos.Patient;
-import pojos.Report;
 import pojos.Signal;
-import ui.ECGFileReader;
+import ui.RecordingCache;
+import ui.components.BatchListModel;
 import ui.components.MyButton;
 import ui.components.MyComboBox;
 import ui.components.MyTextField;
 import ui.components.RecordingCell;
+import ui.components.SymptomCalendarModel;
+import ui.components.SymptomCellRenderer;
 
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.io.IOException;
-import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.Month;
 import java.time.YearMonth;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -84,12 +83,13 @@ public class PatientInfo extends JPanel implements ActionListener, MouseListener
     private JPanel patientDetailsPanel;
     private JPanel recordingsHistoryPanel;
     private JList<Signal> recordingsList;
-    private DefaultListModel<Signal> recordingsDefListModel;
+    private BatchListModel<Signal> recordingsListModel;
     private JPanel symptomsCalendarPanel;
     private CardLayout cardLayout;
     private JPanel cardPanel;
     private Map<String, Color> colors;
     private JTable table;
+    private SymptomCalendarModel calendarModel;
     private JPanel legendPanel;
     private MyComboBox<String> monthComboBox;
     private final Patient patient;
@@ -303,7 +303,7 @@ public class PatientInfo extends JPanel implements ActionListener, MouseListener
         scrollPane1.setOpaque(false);
         scrollPane1.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_ALWAYS);
 
-        recordingsDefListModel = new DefaultListModel<Signal>();
+        recordingsListModel = new BatchListModel<Signal>();
         //TODO: ask server for recordings
         List<Signal> signalRecordings = patient.getRecordings();
         /*try {
@@ -318,13 +318,11 @@ public class PatientInfo extends JPanel implements ActionListener, MouseListener
 
         // === POPULATE LIST ===
         if (!signalRecordings.isEmpty()) {
-            for (Signal s : signalRecordings) {
-                recordingsDefListModel.addElement(s);
-            }
+            recordingsListModel.setElements(signalRecordings);
         }else{
             showErrorMessage("No signal recordings found!");
         }
-        recordingsList = new JList<Signal>(recordingsDefListModel);
+        recordingsList = new JList<Signal>(recordingsListModel);
         recordingsList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         recordingsList.setCellRenderer(new RecordingCell());
         recordingsList.addMouseListener(this);
@@ -351,11 +349,7 @@ public class PatientInfo extends JPanel implements ActionListener, MouseListener
         }else{
             openRecordingButton.setVisible(true);
         }
-        recordingsDefListModel.removeAllElements();
-        for (Signal r : list) {
-            recordingsDefListModel.addElement(r);
-
-        }
+        recordingsListModel.setElements(list);
     }
 
     /**
@@ -386,8 +380,11 @@ public class PatientInfo extends JPanel implements ActionListener, MouseListener
         symptomsCalendarPanel.add(monthComboBox, "cell 1 0, alignx center, grow");
 
         // Initial table
-        table = new JTable();
+        calendarModel = new SymptomCalendarModel(patient.getSymptoms());
+        table = new JTable(calendarModel);
         table.setRowHeight(65);
+        // Paints the day number and a colored square per symptom
+        table.setDefaultRenderer(SymptomCalendarModel.Day.class, new SymptomCellRenderer(colors));
         symptomsCalendarPanel.add(new JScrollPane(table), "cell 0 1, span 2 1, grow");
 
         // Legend panel (contenido desplazable)
@@ -436,117 +433,14 @@ public class PatientInfo extends JPanel implements ActionListener, MouseListener
      *     <li>The day number</li>
      *     <li>Colored boxes representing symptom types reported that day</li>
      * </ul>
-     * Colors are derived from {@link Application#symptomColors}.
+     * Colors are derived from {@link Application#symptomColors}. The symptoms are looked up
+     * in the {@link SymptomCalendarModel}, which indexed the reports by date when the panel
+     * was created, so changing the month does not go through the reports again.
      *
      * @param month the month index (1–12)
      */
     private void updateTable(int month) {
-        int year = LocalDate.now().getYear();
-        YearMonth yearMonth = YearMonth.of(year, month);
-        int daysInMonth = yearMonth.lengthOfMonth();
-        LocalDate firstDay = LocalDate.of(year, month, 1);
-        DayOfWeek firstWeekday = firstDay.getDayOfWeek();
-
-        String[] columns = {"Sun", "Mon", "Tue", "Wed", "Thu", "Fri", "Sat"};
-        String[][] data = new String[6][7]; // max 6 weeks
-
-        int dayCounter = 1;
-        int startCol = firstWeekday.getValue() % 7; // Sunday=0
-
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-
-        outer:
-        for (int row = 0; row < 6; row++) {
-            for (int col = 0; col < 7; col++) {
-                if (row == 0 && col < startCol) continue;
-                if (dayCounter > daysInMonth) break outer;
-
-                LocalDate currentDate = LocalDate.of(year, month, dayCounter);
-                StringBuilder cellText = new StringBuilder();
-                cellText.append(dayCounter); // siempre mostramos el número del día
-
-                // Buscar síntomas de este día
-                StringBuilder symptomsPart = new StringBuilder();
-                for (Report s : patient.getSymptoms()) {
-                    LocalDate symptomDate = s.getDate();
-                    if (symptomDate.equals(currentDate)) {
-                        for (SymptomType type : s.getSymptoms()) {
-                            if (symptomsPart.length() > 0) symptomsPart.append(",");
-                            symptomsPart.append(type.name());
-                        }
-                    }
-                }
-
-                if (symptomsPart.length() > 0) {
-                    cellText.append(":").append(symptomsPart);
-                }
-
-                data[row][col] = cellText.toString();
-                dayCounter++;
-            }
-        }
-
-        DefaultTableModel model = new DefaultTableModel(data, columns);
-        table.setModel(model);
-
-        // Custom cell renderer para mostrar número + cuadros de colores
-        table.setDefaultRenderer(Object.class, new PatientInfo.SymptomCellRenderer(colors));
-    }
-
-    /**
-     * Renderer used to display colored symptom indicators inside
-     * the calendar table cells.
-     */
-    private static class SymptomCellRenderer extends JPanel implements javax.swing.table.TableCellRenderer {
-        private final Map<String, Color> symptomColors;
-        private JLabel dayLabel;
-
-        public SymptomCellRenderer(Map<String, Color> symptomColors) {
-            this.symptomColors = symptomColors;
-            setOpaque(true);
-            setLayout(new BorderLayout());
-            dayLabel = new JLabel();
-            dayLabel.setFont(dayLabel.getFont().deriveFont(Font.BOLD, 12f));
-            dayLabel.setHorizontalAlignment(SwingConstants.LEFT);
-        }
-
-        @Override
-        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
-                                                       boolean hasFocus, int row, int column) {
-            removeAll();
-            setBackground(Color.WHITE);
-            setLayout(new BorderLayout());
-
-            dayLabel = new JLabel();
-            dayLabel.setFont(dayLabel.getFont().deriveFont(Font.BOLD, 12f));
-            dayLabel.setHorizontalAlignment(SwingConstants.LEFT);
-
-            if (value != null && !value.toString().isEmpty()) {
-                String cellText = value.toString();
-                String[] parts = cellText.split(":", 2);
-                String dayPart = parts[0];
-                String symptomPart = parts.length > 1 ? parts[1] : "";
-
-                dayLabel.setText(dayPart);
-                add(dayLabel, BorderLayout.NORTH);
-
-                if (!symptomPart.isEmpty()) {
-                    String[] symptoms = symptomPart.split(",");
-                    JPanel symptomsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 2, 2));
-                    for (String symptom : symptoms) {
-                        JPanel box = new JPanel();
-                        box.setBackground(symptomColors.getOrDefault(symptom, Color.LIGHT_GRAY));
-                        box.setPreferredSize(new Dimension(15, 15));
-                        symptomsPanel.add(box);
-                    }
-                    symptomsPanel.setBackground(Color.WHITE);
-                    add(symptomsPanel, BorderLayout.CENTER);
-                    setToolTipText(String.join(", ", symptoms));
-                }
-            }
-
-            return this;
-        }
+        calendarModel.setMonth(YearMonth.of(LocalDate.now().getYear(), month));
     }
 
     /**
@@ -626,47 +520,84 @@ public class PatientInfo extends JPanel implements ActionListener, MouseListener
             //TODO ventana de espera cuando se esta descargando el file
            // image.setIcon(uploadingGif);
             //showFeedbackMessage(errorMessage2,"Downloading signal from server...");
-            SwingWorker<Signal, Void> worker = new SwingWorker<>() {
-                @Override
-                protected Signal doInBackground() throws Exception {
-                    System.out.println("📥 Entré en doInBackground");
-                    // 1) Pedir señal completa al servidor (con ZIP)
-                    Signal fullSignal = null;
-                    try {
-                        fullSignal = appMain.client.getSignalFromId(signal.getId());
-                    } catch (IOException | InterruptedException ex) {
-                        throw new RuntimeException(ex);
-                    }
-                    System.out.println("📤 Señal recibida del servidor");
-                    // 2) Leer el contenido real del ZIP temporal
-                    Signal temp = ECGFileReader.readSignalFromZip(fullSignal.getZipFile(), signal.getFrequency());
-                    fullSignal.setEcg(temp.getEcg());
-                    fullSignal.setAcc(temp.getAcc());
-                    fullSignal.setFrequency(temp.getFrequency());
-                    return fullSignal;
-                }
-
-                @Override
-                protected void done() {
-                    try {
-                        Signal fullSignal = get();
-                        //TODO quitar la ventana de descarga cuando se haya descargado finalmente
-                       // image.setIcon(null);
-                       // showFeedbackMessage(errorMessage2, "Signal ready!");
-                        // TODO enseñar la señal en una nueva ventana
-                        appMain.changeToPanel(new RecordingGraphs(appMain, PatientInfo.this , fullSignal,patient));
-
-                    } catch (Exception ex) {
-                        ex.printStackTrace();
-                        showErrorMessage("Error downloading or reading signal");
-                        return; // evitar ventana vacía
-                    }
+            openRecording(signal);
+        }
 
-                }
+    }
 
-            }; worker.execute();
+    /**
+     * Downloads a recording and shows it while it arrives.
+     * <p>
+     * The download is done in chunks (see {@link SignalDownload}). The graphs are opened as
+     * soon as the metadata of the signal arrives and are filled in while the samples are
+     * decoded, so the first window is visible long before the download ends.
+     * </p>
+     * <p>
+     * Recordings already downloaded are opened from the {@link RecordingCache} instead, and
+     * every completed download is added to it.
+     * </p>
+     *
+     * @param signal the recording to open
+     */
+    private void openRecording(Signal signal) {
+        RecordingCache cache = appMain.recordingCache;
+        Optional<RecordingCache.CachedRecording> cached = cache != null ? cache.open(signal.getId()) : Optional.empty();
+        if (cached.isPresent()) {
+            // Downloaded before: shown from the mapped file, without contacting the server
+            appMain.changeToPanel(new RecordingGraphs(appMain, PatientInfo.this, signal, cached.get(), patient));
+            return;
         }
-
+        openRecordingButton.setEnabled(false);
+        openRecordingButton.setText("DOWNLOADING...");
+        // Only touched on the EDT: the buffers of the decoder and the number of samples they
+        // hold, kept until the graphs exist
+        RecordingGraphs[] graphs = new RecordingGraphs[1];
+        double[][] decoded = new double[2][];
+        int[] decodedCount = new int[1];
+
+        SignalDownload download = appMain.client.downloadSignal(signal.getId(),
+                (received, total) -> SwingUtilities.invokeLater(() ->
+                        openRecordingButton.setText("DOWNLOADING " + (100 * received / total) + "%")),
+                // The parser never changes the samples it has passed on: the graphs read them in place
+                (ecg, acc, from, to) -> SwingUtilities.invokeLater(() -> {
+                    if (graphs[0] == null) {
+                        decoded[0] = ecg;
+                        decoded[1] = acc;
+                        decodedCount[0] = to;
+                    } else {
+                        graphs[0].appendSamples(ecg, acc, to);
+                    }
+                }));
+
+        download.getMetadata().thenAccept(metadata -> SwingUtilities.invokeLater(() -> {
+            graphs[0] = new RecordingGraphs(appMain, PatientInfo.this, metadata, patient);
+            if (decodedCount[0] > 0) graphs[0].appendSamples(decoded[0], decoded[1], decodedCount[0]);
+            decoded[0] = null;
+            decoded[1] = null;
+            appMain.changeToPanel(graphs[0]);
+        }));
+
+        download.getResult().whenComplete((fullSignal, error) -> SwingUtilities.invokeLater(() -> {
+            openRecordingButton.setEnabled(true);
+            openRecordingButton.setText("OPEN FILE");
+            if (error != null) {
+                error.printStackTrace();
+                if (graphs[0] != null) appMain.changeToPanel(PatientInfo.this);
+                showErrorMessage("Error downloading or reading signal");
+                return;
+            }
+            System.out.println("📤 Señal recibida del servidor");
+            graphs[0].finishLoading();
+            if (cache != null) {
+                Thread.ofVirtual().name("recording-cache-" + signal.getId()).start(() -> {
+                    try {
+                        cache.put(fullSignal);
+                    } catch (IOException | RuntimeException e) {
+                        System.out.println("Could not cache recording " + signal.getId() + ": " + e.getMessage());
+                    }
+                });
+            }
+        }));
     }
 
     /**
@@ -3,6 +3,10 @@ package ui.windows;
 import net.miginfocom.swing.MigLayout;
 import pojos.Patient;
 import pojos.Signal;
+import processing.EventIndex;
+import processing.HeartRateSeries;
+import processing.SignalAnalysis;
+import ui.RecordingCache;
 import ui.components.MyButton;
 import ui.components.SignalGraphPanel;
 import javax.swing.*;
@@ -12,7 +16,9 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
-import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 /**
  * Panel responsible for displaying ECG and ACC graphs associated with a specific
  * patient recording. The panel also allows editing and saving comments attached
@@ -34,6 +40,10 @@ import java.io.IOException;
  *     <li>Toggle between ECG and ACC views using a {@link CardLayout}</li>
  *     <li>Shows the raw signal graphs via {@link SignalGraphPanel}</li>
  *     <li>Displays and allows modifying comments associated with this recording</li>
+ *     <li>Shows the heart rate of the recording and its possible seizures, worked out in the
+ *         background by {@link SignalAnalysis} once the samples are available. Selecting a
+ *         possible seizure shows it in both graphs</li>
+ *     <li>Jumps to any time of the recording from the overview under each graph</li>
  * </ul>
  *
  *  @author MamenCortes
@@ -43,6 +53,7 @@ public class RecordingGraphs extends JPanel implements ActionListener, MouseList
     private PatientInfo parentPanel;
     private Patient patient;
     private Signal signal;
+    private RecordingCache.CachedRecording cached;
     private final Font titleFont = new Font("sansserif", 3, 15);
     private final Color titleColor = Application.dark_purple;
     private String titleText;
@@ -52,6 +63,11 @@ public class RecordingGraphs extends JPanel implements ActionListener, MouseList
     private JLabel title;
     private MyButton goBackButton;
     private JLabel errorMessage;
+    private JLabel heartRateLabel;
+    private JList<String> eventList;
+    private JScrollPane eventScroll;
+    private EventIndex events = EventIndex.EMPTY;
+    private boolean analysisStarted;
     private SignalGraphPanel ecgGraph;
     private SignalGraphPanel accGraph;
     private CardLayout cardLayout;
@@ -62,9 +78,10 @@ public class RecordingGraphs extends JPanel implements ActionListener, MouseList
     /**
      * Creates the recording graphs panel for a specific signal and patient.
      * <p>
-     * Signal data (ECG/ACC) is assumed to be already loaded and processed
-     * before this panel is constructed. The UI components are derived from
-     * that data.
+     * If the signal data (ECG/ACC) is already loaded, the graphs are built from it.
+     * Otherwise the panel is shown with empty graphs that are filled with
+     * {@link #appendSamples(double[], double[], int)} while the recording
+     * downloads, and completed with {@link #finishLoading()}.
      * </p>
      *
      * @param appMain      reference to the {@link Application} controller used
@@ -83,6 +100,27 @@ public class RecordingGraphs extends JPanel implements ActionListener, MouseList
         initMainPanel();
     }
 
+    /**
+     * Creates the recording graphs panel for a recording opened from the
+     * {@link RecordingCache}. The graphs read the samples from the mapped file.
+     *
+     * @param appMain      reference to the {@link Application} controller.
+     * @param parentPanel  the {@link PatientInfo} panel that opened this view.
+     * @param signal       the recording whose comments will be displayed (without samples).
+     * @param cached       the samples of the recording.
+     * @param patient      the patient to whom the recording belongs.
+     */
+    public RecordingGraphs(Application appMain, PatientInfo parentPanel, Signal signal,
+                           RecordingCache.CachedRecording cached, Patient patient) {
+        this.appMain = appMain;
+        this.signal = signal;
+        this.cached = cached;
+        this.parentPanel = parentPanel;
+        this.patient = patient;
+        titleText = patient.getName()+" "+patient.getSurname()+"'s Recording "+signal.getDate().toString();
+        initMainPanel();
+    }
+
     /**
      * Builds the entire UI: header, buttons, comment area, graph panels,
      * and the card layout for switching between ECG and ACC.
@@ -123,8 +161,16 @@ public class RecordingGraphs extends JPanel implements ActionListener, MouseList
         cardLayout = new CardLayout();
         cardPanel = new JPanel(cardLayout);
 
-        ecgGraph = new SignalGraphPanel(signal.getEcg(), signal.getFrequency(), "ECG Signal");
-        accGraph = new SignalGraphPanel(signal.getAcc(), signal.getFrequency(), "ACC Signal");
+        if (cached != null) {
+            ecgGraph = new SignalGraphPanel(cached.ecg(), cached.frequency(), "ECG Signal");
+            accGraph = new SignalGraphPanel(cached.acc(), cached.frequency(), "ACC Signal");
+        } else if (signal.getEcg() != null) {
+            ecgGraph = new SignalGraphPanel(signal.getEcg(), signal.getFrequency(), "ECG Signal");
+            accGraph = new SignalGraphPanel(signal.getAcc(), signal.getFrequency(), "ACC Signal");
+        } else {
+            ecgGraph = new SignalGraphPanel(signal.getFrequency(), "ECG Signal");
+            accGraph = new SignalGraphPanel(signal.getFrequency(), "ACC Signal");
+        }
 
         cardPanel.add(ecgGraph, "Panel1");
         cardPanel.add(accGraph, "Panel2");
@@ -144,6 +190,138 @@ public class RecordingGraphs extends JPanel implements ActionListener, MouseList
         errorMessage.setText("Error message test");
         this.add(errorMessage, "cell 0 4, left");
         errorMessage.setVisible(false);
+
+        heartRateLabel = new JLabel();
+        heartRateLabel.setFont(new Font("sansserif", Font.PLAIN, 14));
+        heartRateLabel.setForeground(titleColor);
+        add(heartRateLabel, "cell 0 5, left, gapy 10");
+
+        eventList = new JList<>(new DefaultListModel<>());
+        eventList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        eventList.addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting() && eventList.getSelectedIndex() >= 0) {
+                showEvent(eventList.getSelectedIndex());
+            }
+        });
+        eventScroll = new JScrollPane(eventList);
+        TitledBorder eventBorder = BorderFactory.createTitledBorder("Possible Seizures");
+        eventBorder.setTitleFont(titleFont);
+        eventBorder.setTitleColor(Application.turquoise);
+        eventScroll.setBorder(eventBorder);
+        eventScroll.setVisible(false);
+        add(eventScroll, "cell 0 6, center, gapy 5, growx, hmax 150");
+
+        heartRateLabel.setVisible(false);
+        startAnalysis();
+    }
+
+    /**
+     * Starts the analysis of the recording if its samples are available and it was not
+     * started before: the samples may already be complete when the panel is created, and
+     * {@link #finishLoading()} starts it again otherwise.
+     */
+    private void startAnalysis() {
+        if (analysisStarted) return;
+        if (cached != null) {
+            DoubleBuffer ecg = cached.ecg().samples();
+            analyzeRecording(SignalAnalysis.analyzeAsync(ecg, cached.acc().samples(),
+                    Math.min(ecg.limit(), cached.acc().samples().limit()), cached.frequency()));
+        } else if (signal.getEcg() != null) {
+            analyzeRecording(SignalAnalysis.analyzeAsync(signal.getEcg(), signal.getAcc(), signal.getFrequency()));
+        } else {
+            return;
+        }
+        analysisStarted = true;
+    }
+
+    /**
+     * Shows a possible seizure in both graphs, with the seconds around it.
+     *
+     * @param event the index of the event in {@link #events}
+     */
+    private void showEvent(int event) {
+        ecgGraph.showEvent(event);
+        accGraph.showEvent(event);
+    }
+
+    /**
+     * Formats a sample index as the time from the start of the recording.
+     */
+    private String formatTime(int sample) {
+        long seconds = sample / signal.getFrequency();
+        return String.format("%02d:%02d:%02d", seconds / 3600, seconds / 60 % 60, seconds % 60);
+    }
+
+    /**
+     * Shows the heart rate and the possible seizures of the recording once its analysis,
+     * running in the background, completes.
+     *
+     * @param analysis the future result of the analysis
+     */
+    private void analyzeRecording(CompletableFuture<SignalAnalysis.Result> analysis) {
+        heartRateLabel.setText("Heart rate: analyzing...");
+        heartRateLabel.setVisible(true);
+        analysis.whenComplete((result, ex) -> SwingUtilities.invokeLater(() -> {
+            if (ex != null) {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                cause.printStackTrace();
+                heartRateLabel.setText("Heart rate: not available");
+                return;
+            }
+            showEvents(result.seizureCandidates());
+            HeartRateSeries series = result.heartRate();
+            if (series.size() < 2) {
+                heartRateLabel.setText("Heart rate: no beats found");
+            } else {
+                heartRateLabel.setText(String.format("<html>Heart rate: %.0f bpm<br>SDNN: %.0f ms, RMSSD: %.0f ms<br>%d beats</html>",
+                        series.meanHeartRate(), series.sdnn(), series.rmssd(), series.size()));
+            }
+        }));
+    }
+
+    /**
+     * Lists the possible seizures of the recording, in order of time, and marks them on the
+     * overview of both graphs.
+     *
+     * @param candidates the events found by the analysis
+     */
+    private void showEvents(EventIndex candidates) {
+        events = candidates;
+        DefaultListModel<String> model = new DefaultListModel<>();
+        for (int i = 0; i < events.size(); i++) {
+            model.addElement(String.format("%s - %s (score %.1f)",
+                    formatTime(events.start(i)), formatTime(events.end(i)), events.score(i)));
+        }
+        eventList.setModel(model);
+        ecgGraph.setEvents(events);
+        accGraph.setEvents(events);
+        eventScroll.setVisible(events.size() > 0);
+        revalidate();
+    }
+
+    /**
+     * Shows the samples received so far of a recording that is still downloading in the ECG
+     * and ACC graphs, read in place from the buffers of the decoder (see
+     * {@link SignalGraphPanel#appendSamples(double[], int)}). Must be called on the EDT.
+     *
+     * @param ecg   buffer holding the ECG samples received so far
+     * @param acc   buffer holding the ACC samples received so far
+     * @param count the number of samples received so far
+     */
+    public void appendSamples(double[] ecg, double[] acc, int count) {
+        ecgGraph.appendSamples(ecg, count);
+        accGraph.appendSamples(acc, count);
+    }
+
+    /**
+     * Redraws the graphs with the complete signal once the download has finished, and starts
+     * its analysis unless the samples were already complete when the panel was created. Must
+     * be called on the EDT.
+     */
+    public void finishLoading() {
+        ecgGraph.finishLoading(signal.getEcg());
+        accGraph.finishLoading(signal.getAcc());
+        startAnalysis();
     }
 
     /**
@@ -151,19 +329,26 @@ public class RecordingGraphs extends JPanel implements ActionListener, MouseList
      * <p>
      * This operation is executed when the user presses the "Back to Menu" button.
      * It compares the current text in the comment box with the stored comments
-     * inside the {@link Signal} object. If different, a server call is executed.
+     * inside the {@link Signal} object. If different, the comments are sent to the
+     * server without blocking the EDT.
      * </p>
      *
-     * @throws IOException          if the server cannot be reached.
-     * @throws InterruptedException if the client thread is interrupted.
+     * @return a future completed once the comments are saved (already completed if
+     *         there was nothing to save)
      */
-    private void saveComments() throws IOException, InterruptedException {
+    private CompletableFuture<Void> saveComments() {
         String comments = commentsTextArea.getText();
         if(!signal.getComments().equals(comments)){
             parentPanel.saveCommentsInSignal(signal, comments);
             appMain.saveCommentsInSignal(signal, patient, comments);
-            appMain.client.saveComments(patient.getId(), signal);
+            String previous = signal.getComments();
+            signal.setComments(comments);
+            return appMain.client.saveCommentsAsync(patient.getId(), signal)
+                    .whenComplete((ignored, ex) -> {
+                        if (ex != null) signal.setComments(previous); // retry on next "Back to Menu"
+                    });
         }
+        return CompletableFuture.completedFuture(null);
     }
     /**
      * Shows an error message on the panel, typically after a failed save or
@@ -190,15 +375,17 @@ public class RecordingGraphs extends JPanel implements ActionListener, MouseList
     @Override
     public void actionPerformed(ActionEvent e) {
         if (e.getSource() == goBackButton) {
-            try {
-                //TODO: Save comments in signal
-                saveComments();
-                appMain.changeToPanel(parentPanel);
-            }catch(IOException | InterruptedException ex){
-                //TODO: show popUp dialog asking if you are sure you eant to go back without saving
-                showErrorMessage("Error saving comments");
-            }
+            goBackButton.setEnabled(false);
             //TODO: delete this one panel?
+            saveComments().whenComplete((ignored, ex) -> SwingUtilities.invokeLater(() -> {
+                goBackButton.setEnabled(true);
+                if (ex == null) {
+                    appMain.changeToPanel(parentPanel);
+                } else {
+                    //TODO: show popUp dialog asking if you are sure you eant to go back without saving
+                    showErrorMessage("Error saving comments");
+                }
+            }));
         }else if (e.getSource() == accButton) {
             cardLayout.show(cardPanel, "Panel2");
         }else if (e.getSource() == ecgButton) {
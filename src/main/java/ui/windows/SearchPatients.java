@@ -5,14 +5,20 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
+import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import net.miginfocom.swing.MigLayout;
 import pojos.Patient;
+import ui.components.BatchListModel;
 import ui.components.MyButton;
 import ui.components.MyTextField;
 import ui.components.PatientCell;
+import ui.components.PatientSearchIndex;
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
 /**
  * Panel that allows the doctor to browse and search through their list of patients.
@@ -20,7 +26,7 @@ import javax.swing.*;
  * This view is created once by {@code MainMenu} and reused. It supports:
  * <ul>
  *     <li>Displaying all assigned patients</li>
- *     <li>Filtering patients by surname</li>
+ *     <li>Searching patients by name, surname or email as the doctor types</li>
  *     <li>Opening a patient's detailed record</li>
  * </ul>
  * </p>
@@ -34,6 +40,21 @@ import javax.swing.*;
  *         search text, and list contents.</li>
  * </ul>
  *
+ * <h3>Paged loading</h3>
+ * <p>
+ * The patients arrive in pages of {@value #PAGE_SIZE} summaries (see
+ * {@link network.Client#getPatientSummariesAsync(int, int, int)}). The next page is requested
+ * when the list is scrolled close to its end, and every remaining page is loaded before a
+ * search. The recordings and reports of a patient are only requested when it is opened.
+ * </p>
+ *
+ * <h3>Search</h3>
+ * <p>
+ * Once every page is loaded the patients are indexed off the EDT in a
+ * {@link PatientSearchIndex}, which is reused until the list changes. The search runs
+ * {@value #SEARCH_DELAY_MS} ms after the doctor stops typing, and also with the SEARCH button.
+ * </p>
+ *
  *  @author MamenCortes
  */
 public class SearchPatients extends JPanel implements ActionListener, MouseListener {
@@ -46,7 +67,7 @@ public class SearchPatients extends JPanel implements ActionListener, MouseListe
     protected String titleText = " Search Patients ";
     protected ImageIcon icon  = new ImageIcon(getClass().getResource("/icons/patient-info64-2.png"));
     protected JScrollPane scrollPane1;
-    protected String searchText = "Search By Surname";
+    protected String searchText = "Search By Name, Surname or Email";
     protected MyTextField searchByTextField;
     protected MyButton searchButton;
     protected MyButton resetListButton;
@@ -54,8 +75,22 @@ public class SearchPatients extends JPanel implements ActionListener, MouseListe
     protected JLabel errorMessage;
     protected MyButton goBackButton;
     protected JList<Patient> patientJList;
-    protected DefaultListModel<Patient> patientsDefListModel;
+    protected BatchListModel<Patient> patientsListModel;
     protected List<Patient> allPatients;
+    /** Number of patients requested per page. */
+    public static final int PAGE_SIZE = 100;
+    //Cursor of the next page of the doctor's patients, -1 once all of them are loaded
+    private int nextCursor = -1;
+    private boolean loadingPage;
+    //Requested while a page was loading: run once that page is added
+    private Runnable afterPage;
+    //Whether the list shows the result of a search instead of all the patients
+    private boolean filtered;
+    /** Time without typing after which the search runs, in milliseconds. */
+    public static final int SEARCH_DELAY_MS = 200;
+    private Timer searchTimer;
+    private PatientSearchIndex searchIndex;
+    private boolean indexing;
 
     /**
      * Constructs the search panel and initializes UI components.
@@ -99,6 +134,24 @@ public class SearchPatients extends JPanel implements ActionListener, MouseListe
         searchByTextField.setBackground(Application.lighter_turquoise);
         searchByTextField.setHint("ex. Doe");
         add(searchByTextField, "cell 0 2 2 1, alignx center, grow");
+        // Search as the doctor types, once the typing pauses
+        searchTimer = new Timer(SEARCH_DELAY_MS, e -> loadAllPatients(this::searchPatients));
+        searchTimer.setRepeats(false);
+        searchByTextField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchTextChanged();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchTextChanged();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
 
         resetListButton = new MyButton("RESET");
         resetListButton.addActionListener(this);
@@ -129,12 +182,16 @@ public class SearchPatients extends JPanel implements ActionListener, MouseListe
         scrollPane1.setOpaque(false);
         scrollPane1.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_ALWAYS);
 
-        patientsDefListModel = new DefaultListModel<Patient>();
-        patientJList = new JList<Patient>(patientsDefListModel);
+        patientsListModel = new BatchListModel<Patient>();
+        patientJList = new JList<Patient>(patientsListModel);
         patientJList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         patientJList.setCellRenderer(new PatientCell());
+        // All the cells have the same size: measure one instead of rendering every patient
+        patientJList.setPrototypeCellValue(prototypePatient());
         patientJList.addMouseListener(this);
         scrollPane1.setViewportView(patientJList);
+        // Request the next page when the end of the list becomes visible
+        scrollPane1.getVerticalScrollBar().addAdjustmentListener(e -> loadMoreIfNeeded());
 
         scrollPane1.setPreferredSize(this.getPreferredSize());
 
@@ -165,13 +222,186 @@ public class SearchPatients extends JPanel implements ActionListener, MouseListe
             openFormButton.setVisible(true);
         }
 
-        patientsDefListModel.removeAllElements();
-        for (Patient r : patients) {
-            patientsDefListModel.addElement(r);
+        patientsListModel.setElements(patients);
+    }
+
+    /**
+     * Returns a patient with long values, used to size the cells of the list.
+     */
+    private static Patient prototypePatient() {
+        Patient prototype = new Patient();
+        prototype.setName("Prototype Patient");
+        prototype.setSurname("Surname Surname");
+        prototype.setEmail("prototype.patient@nightguardian.com");
+        prototype.setDateOfBirth(LocalDate.of(2000, 12, 31));
+        prototype.setGender("Female");
+        prototype.setPhoneNumber(999999999);
+        return prototype;
+    }
+
+    /**
+     * Sets the cursor of the next page of patients to load, as returned with the first page.
+     *
+     * @param nextCursor the cursor of the next page, or -1 if every patient is loaded
+     */
+    protected void setNextCursor(int nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Requests the next page of patients if the last rows of the full list are visible.
+     */
+    private void loadMoreIfNeeded() {
+        if (nextCursor < 0 || loadingPage || filtered) return;
+        if (patientJList.getLastVisibleIndex() >= patientsListModel.getSize() - PAGE_SIZE / 2) {
+            loadNextPage(null);
+        }
+    }
+
+    /**
+     * Requests the next page of patients off the EDT, adds it to the doctor's patients and,
+     * unless a search is shown, to the list.
+     *
+     * @param then run on the EDT once the page is added, may be null
+     */
+    private void loadNextPage(Runnable then) {
+        loadingPage = true;
+        appMain.client.getPatientSummariesAsync(appMain.doctor.getId(), nextCursor, PAGE_SIZE)
+                .whenComplete((page, ex) -> SwingUtilities.invokeLater(() -> {
+                    loadingPage = false;
+                    Runnable pending = afterPage;
+                    afterPage = null;
+                    if (ex != null) {
+                        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                        showErrorMessage("Error loading patients: " + cause.getMessage());
+                        return;
+                    }
+                    nextCursor = page.nextCursor();
+                    appMain.doctor.getPatients().addAll(page.patients());
+                    if (!filtered && allPatients != null) {
+                        patientsListModel.elementsAppended();
+                    }
+                    if (then != null) then.run();
+                    if (pending != null) pending.run();
+                    else if (then == null) loadMoreIfNeeded();
+                }));
+    }
 
+    /**
+     * Loads every remaining page of patients, then runs the given action on the EDT. If a
+     * page is already loading, the loading goes on once it is added; only the last action
+     * requested meanwhile is kept.
+     *
+     * @param then the action to run once all the patients are loaded
+     */
+    private void loadAllPatients(Runnable then) {
+        if (nextCursor < 0) {
+            then.run();
+        } else if (loadingPage) {
+            afterPage = () -> loadAllPatients(then);
+        } else {
+            loadNextPage(() -> loadAllPatients(then));
         }
     }
 
+    /**
+     * Restarts the search delay after the search text changes. Clearing the text shows every
+     * patient again.
+     */
+    private void searchTextChanged() {
+        if (allPatients == null) return; // text cleared by resetPanel
+        if (searchByTextField.getText().isBlank()) {
+            searchTimer.stop();
+            if (filtered) showAllPatients();
+        } else {
+            searchTimer.restart();
+        }
+    }
+
+    /**
+     * Searches the patients matching the text of the search field, indexing them first if
+     * the index is missing or out of date.
+     */
+    private void searchPatients() {
+        if (allPatients == null) return; // left the panel while the pages were loading
+        List<Patient> patients = allPatients;
+        if (searchIndex == null || !searchIndex.covers(patients)) {
+            if (indexing) return;
+            indexing = true;
+            CompletableFuture.supplyAsync(() -> new PatientSearchIndex(patients))
+                    .whenComplete((index, ex) -> SwingUtilities.invokeLater(() -> {
+                        indexing = false;
+                        if (ex != null) {
+                            showErrorMessage("Error indexing patients: " + ex.getMessage());
+                            return;
+                        }
+                        searchIndex = index;
+                        searchPatients();
+                    }));
+            return;
+        }
+        errorMessage.setVisible(false);
+        String search = searchByTextField.getText();
+        if (search.isBlank()) {
+            showAllPatients();
+            return;
+        }
+
+        // Shown as positions in the list of all the patients, without copying them
+        int[] found = searchIndex.searchIndexes(search);
+        patientsListModel.showIndexes(found);
+        filtered = true;
+        if(found.length == 0) {
+            showErrorMessage("No patient found");
+            openFormButton.setVisible(false);
+        }else {
+            openFormButton.setVisible(true);
+        }
+    }
+
+    /**
+     * Shows every patient loaded, removing the search filter.
+     */
+    private void showAllPatients() {
+        updatePatientDefModel(allPatients);
+        filtered = false;
+        if(allPatients.isEmpty()) {
+            showErrorMessage("No patient found");
+            openFormButton.setVisible(false);
+        }else {
+            hideErrorMessage();
+            openFormButton.setVisible(true);
+        }
+    }
+
+    /**
+     * Opens the information panel of a patient, loading its recordings and reports first
+     * if only its summary is available.
+     *
+     * @param patient the patient to open
+     */
+    private void openPatient(Patient patient) {
+        if (patient.isDetailsLoaded()) {
+            resetPanel();
+            appMain.changeToPanel(new PatientInfo(appMain, patient));
+            return;
+        }
+        openFormButton.setEnabled(false);
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        appMain.client.getPatientDetailsAsync(patient)
+                .whenComplete((details, ex) -> SwingUtilities.invokeLater(() -> {
+                    openFormButton.setEnabled(true);
+                    setCursor(Cursor.getDefaultCursor());
+                    if (ex != null) {
+                        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                        showErrorMessage("Error loading patient: " + cause.getMessage());
+                        return;
+                    }
+                    resetPanel();
+                    appMain.changeToPanel(new PatientInfo(appMain, details));
+                }));
+    }
+
     /**
      * Displays an error message in the panel.
      *
@@ -202,9 +432,12 @@ public class SearchPatients extends JPanel implements ActionListener, MouseListe
      */
     private void resetPanel(){
         hideErrorMessage();
-        searchByTextField.setText("");
         allPatients = null;
-        patientsDefListModel.clear();
+        afterPage = null;
+        searchTimer.stop();
+        searchByTextField.setText("");
+        filtered = false;
+        patientsListModel.clear();
     }
 
     /**
@@ -212,7 +445,7 @@ public class SearchPatients extends JPanel implements ActionListener, MouseListe
      * <ul>
      *     <li><b>BACK TO MENU:</b> Resets the panel and returns to main menu.</li>
      *     <li><b>OPEN FILE:</b> Opens the selected patient's information panel.</li>
-     *     <li><b>SEARCH:</b> Filters the patient list by surname.</li>
+     *     <li><b>SEARCH:</b> Searches the patients right away, once every page is loaded.</li>
      *     <li><b>RESET:</b> Restores the original patient list.</li>
      * </ul>
      *
@@ -229,39 +462,19 @@ public class SearchPatients extends JPanel implements ActionListener, MouseListe
                 showErrorMessage("No patient Selected");
             }else {
                 showErrorMessage("Selected patient: " + patient.getName()+" "+patient.getSurname());
-                resetPanel();
-                appMain.changeToPanel(new PatientInfo(appMain, patient));
+                openPatient(patient);
             }
         }if(e.getSource() == searchButton) {
             if(allPatients.isEmpty()) {
                 showErrorMessage("No patients found!");
                 return;
             }
-            errorMessage.setVisible(false);
-            String input = searchByTextField.getText();
-            System.out.println(input);
-            String search = searchByTextField.getText().trim().toLowerCase();
-
-            List<Patient> filteredPatients = allPatients.stream()
-                    .filter(p -> p.getSurname().toLowerCase().contains(search))
-                    .collect(Collectors.toList());
-
-            updatePatientDefModel(filteredPatients);
-            if(filteredPatients.isEmpty()) {
-                showErrorMessage("No patient found");
-                openFormButton.setVisible(false);
-            }else {
-                openFormButton.setVisible(true);
-            }
+            searchTimer.stop();
+            loadAllPatients(this::searchPatients);
 
         }else if(e.getSource() == resetListButton){
-            updatePatientDefModel(allPatients);
-            if(allPatients.isEmpty()) {
-                showErrorMessage("No patient found");
-                openFormButton.setVisible(false);
-            }else {
-                openFormButton.setVisible(true);
-            }
+            searchTimer.stop();
+            showAllPatients();
         }
 
     }
@@ -0,0 +1,80 @@
+package encryption;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AesGcmSessionTest {
+
+    @Test
+    void testInteroperatesWithAESUtil() throws Exception {
+        SecretKey key = AESUtil.generateAESKey();
+        AesGcmSession session = new AesGcmSession(key);
+        String message = "{\"type\":\"REQUEST_SIGNAL\",\"data\":{\"signal_id\":7}}";
+
+        byte[] encrypted = session.encrypt(message.getBytes(StandardCharsets.UTF_8));
+        assertEquals(message, AESUtil.decrypt(Base64.getEncoder().encodeToString(encrypted), key));
+
+        byte[] fromAESUtil = Base64.getDecoder().decode(AESUtil.encrypt(message, key));
+        assertEquals(message, new String(session.decrypt(fromAESUtil), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testByteBufferRoundTrip() throws Exception {
+        AesGcmSession session = new AesGcmSession(AESUtil.generateAESKey());
+        byte[] plain = new byte[3 * 1024 * 1024];
+        Arrays.fill(plain, (byte) 'x');
+
+        ByteBuffer encrypted = ByteBuffer.allocateDirect(AesGcmSession.encryptedLength(plain.length));
+        assertEquals(encrypted.capacity(), session.encrypt(ByteBuffer.wrap(plain), encrypted));
+        encrypted.flip();
+
+        ByteBuffer decrypted = ByteBuffer.allocate(plain.length);
+        assertEquals(plain.length, session.decrypt(encrypted, decrypted));
+        assertArrayEquals(plain, decrypted.array());
+    }
+
+    @Test
+    void testDecryptFromBase64Stream() throws Exception {
+        SecretKey key = AESUtil.generateAESKey();
+        AesGcmSession session = new AesGcmSession(key);
+        byte[] plain = new byte[200_000];
+        new java.util.Random(1).nextBytes(plain);
+        String base64 = Base64.getEncoder().encodeToString(session.encrypt(plain));
+
+        InputStream stream = Base64.getDecoder().wrap(new ByteArrayInputStream(base64.getBytes(StandardCharsets.US_ASCII)));
+        assertArrayEquals(plain, session.decrypt(stream));
+
+        String tampered = (base64.charAt(100) == 'A' ? 'B' : 'A') + "";
+        String corrupted = base64.substring(0, 100) + tampered + base64.substring(101);
+        InputStream corruptedStream = Base64.getDecoder().wrap(new ByteArrayInputStream(corrupted.getBytes(StandardCharsets.US_ASCII)));
+        assertThrows(GeneralSecurityException.class, () -> session.decrypt(corruptedStream));
+    }
+
+    @Test
+    void testIvsAreUniqueAndTamperingIsDetected() throws Exception {
+        AesGcmSession session = new AesGcmSession(AESUtil.generateAESKey());
+        Set<String> ivs = new HashSet<>();
+        byte[] encrypted = null;
+        for (int i = 0; i < 1000; i++) {
+            encrypted = session.encrypt(new byte[]{1, 2, 3});
+            assertTrue(ivs.add(Arrays.toString(Arrays.copyOf(encrypted, AesGcmSession.IV_LENGTH_BYTES))));
+        }
+
+        encrypted[AesGcmSession.IV_LENGTH_BYTES] ^= 1;
+        byte[] tampered = encrypted;
+        assertThrows(GeneralSecurityException.class, () -> session.decrypt(tampered));
+        assertThrows(GeneralSecurityException.class, () -> session.decrypt(new byte[8]));
+    }
+}
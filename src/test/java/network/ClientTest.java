@@ -10,6 +10,8 @@ import com.google.gson.JsonParser;
 import encryption.AESUtil;
 import java.security.SecureRandom;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import pojos.*;
 import ui.windows.Application;
 
@@ -17,14 +19,19 @@ import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
 import java.io.*;
 import java.lang.reflect.Field;
+import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.Base64;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
+import java.security.PublicKey;
 import java.security.Signature;
 import encryption.*;
 import javax.crypto.SecretKey;
@@ -39,8 +46,8 @@ public class ClientTest {
     Client client;
     Application app;
     Socket socket;
-    PrintWriter out;
-    BufferedReader in;
+    MessageWriter out;
+    MessageReader in;
 
     @BeforeEach
     void setup() throws Exception {
@@ -48,8 +55,8 @@ public class ClientTest {
         socket = mock(Socket.class);
 
         // Mock IO streams
-        in = mock(BufferedReader.class);
-        out = mock(PrintWriter.class);
+        in = mock(MessageReader.class);
+        out = mock(MessageWriter.class);
 
         client = new Client();
 
@@ -66,6 +73,25 @@ public class ClientTest {
         f.set(obj, value);
     }
 
+    // Delivers the queued responses, in order, as soon as a request is waiting for each one
+    private static void respondWhenRequested(Client client, BlockingQueue<JsonObject> responses) throws Exception {
+        Field f = Client.class.getDeclaredField("pendingRequests");
+        f.setAccessible(true);
+        PendingRequests pending = (PendingRequests) f.get(client);
+        Thread responder = new Thread(() -> {
+            try {
+                for (JsonObject response : responses) {
+                    while (!pending.complete(response)) {
+                        Thread.sleep(1);
+                    }
+                }
+            } catch (InterruptedException ignored) {
+            }
+        });
+        responder.setDaemon(true);
+        responder.start();
+    }
+
     @Test
     void testConnectSuccess() throws Exception {
 
@@ -145,7 +171,7 @@ public class ClientTest {
         }
         """).getAsJsonObject());
 
-        setField(client, "responseQueue", queue);
+        respondWhenRequested(client, queue);
 
 
         // ---- Run login ----
@@ -264,6 +290,162 @@ public class ClientTest {
     }
 
 
+    @Test
+    void testListenerDispatchesEncryptedMessagesAfterCorruptedOne() throws Exception {
+        SecretKey aesKey = AESUtil.generateAESKey();
+        JsonObject response = new JsonObject();
+        response.addProperty("type", "REQUEST_PATIENTS_FROM_DOCTOR_RESPONSE");
+        response.addProperty("status", "SUCCESS");
+
+        // A message that cannot be decrypted must not stop the listener
+        String lines = "{\"type\":\"ENCRYPTED\",\"data\":\"bm90IGVuY3J5cHRlZA==\"}\n"
+                + "{\"type\":\"ENCRYPTED\",\"data\":\"" + AESUtil.encrypt(response.toString(), aesKey) + "\"}\n";
+
+        Client client = spy(new Client());
+        doReturn(socket).when(client).createSocket(anyString(), anyInt());
+        when(socket.getInputStream()).thenReturn(new ByteArrayInputStream(lines.getBytes()));
+        when(socket.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+        setField(client, "token", aesKey);
+
+        Field field = Client.class.getDeclaredField("pendingRequests");
+        field.setAccessible(true);
+        PendingRequests pendingRequests = (PendingRequests) field.get(client);
+        PendingRequests.Pending pending = pendingRequests.register("REQUEST_PATIENTS_FROM_DOCTOR_RESPONSE");
+
+        client.connect("localhost", 9009);
+
+        JsonObject received = pending.future().get(5, java.util.concurrent.TimeUnit.SECONDS);
+        assertEquals("SUCCESS", received.get("status").getAsString());
+
+        client.stopClient(true);
+        client.stopClient(true);
+        verify(socket, times(1)).close();
+    }
+
+    // Reads one \n terminated line from the stub server input
+    private static String readLine(DataInputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) throw new EOFException();
+            line.write(b);
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    // Minimal server on a local socket that sends its public key after the greeting and answers
+    // one REQUEST_PATIENTS_FROM_DOCTOR, in text lines or in binary frames if the client asks for
+    // them and framingAnswer is SUCCESS. A null framingAnswer leaves the offer unanswered.
+    // Completes with whether the request was received as a frame.
+    private static CompletableFuture<Boolean> startStubServer(ServerSocket server, SecretKey key, String framingAnswer) {
+        CompletableFuture<Boolean> framedRequest = new CompletableFuture<>();
+        Thread stub = new Thread(() -> {
+            try (Socket s = server.accept()) {
+                PublicKey publicKey = KeyPairGenerator.getInstance("RSA").generateKeyPair().getPublic();
+                DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+                DataOutputStream out = new DataOutputStream(s.getOutputStream());
+                boolean framed = false;
+                byte[] encryptedRequest = null;
+                while (encryptedRequest == null) {
+                    if (framed) {
+                        int length = in.readInt();
+                        byte kind = in.readByte();
+                        byte[] payload = new byte[length];
+                        in.readFully(payload);
+                        if (kind == Frame.ENCRYPTED) encryptedRequest = payload;
+                        continue;
+                    }
+                    String line = readLine(in);
+                    if (line.isBlank()) continue;
+                    if (!line.startsWith("{")) {
+                        // Greeting: the key exchange starts before the framing offer is answered
+                        out.write(("{\"type\":\"SERVER_PUBLIC_KEY\",\"data\":\"" +
+                                Base64.getEncoder().encodeToString(publicKey.getEncoded()) + "\"}\n").getBytes());
+                        out.flush();
+                        continue;
+                    }
+                    JsonObject message = JsonParser.parseString(line).getAsJsonObject();
+                    switch (message.get("type").getAsString()) {
+                        case "FRAMING_REQUEST" -> {
+                            if (framingAnswer != null) {
+                                out.write(("{\"type\":\"FRAMING_RESPONSE\",\"status\":\"" + framingAnswer + "\"}\n").getBytes());
+                                out.flush();
+                                framed = framingAnswer.equals("SUCCESS");
+                            }
+                        }
+                        case "ENCRYPTED" -> encryptedRequest = Base64.getDecoder().decode(message.get("data").getAsString());
+                        default -> { }
+                    }
+                }
+
+                JsonObject request = JsonParser.parseString(
+                        new String(AESUtil.decrypt(encryptedRequest, key), StandardCharsets.UTF_8)).getAsJsonObject();
+                Patient patient = new Patient();
+                patient.setId(request.getAsJsonObject("data").get("doctor_id").getAsInt() * 10);
+                JsonObject response = JsonParser.parseString(
+                        "{ \"type\":\"REQUEST_PATIENTS_FROM_DOCTOR_RESPONSE\", \"status\":\"SUCCESS\", " +
+                                "\"patients\":[" + patient.toJason() + "]}").getAsJsonObject();
+                response.add("request_id", request.get("request_id"));
+
+                byte[] encryptedResponse = AESUtil.encrypt(response.toString().getBytes(StandardCharsets.UTF_8), key);
+                if (framed) {
+                    out.writeInt(encryptedResponse.length);
+                    out.writeByte(Frame.ENCRYPTED);
+                    out.write(encryptedResponse);
+                } else {
+                    String wrapper = "{\"type\":\"ENCRYPTED\",\"data\":\"" +
+                            Base64.getEncoder().encodeToString(encryptedResponse) + "\"}\n";
+                    out.write(wrapper.getBytes(StandardCharsets.UTF_8));
+                }
+                out.flush();
+                framedRequest.complete(framed);
+                // Keep the connection open until the client closes it
+                while (in.read() >= 0) {
+                }
+            } catch (Exception e) {
+                framedRequest.completeExceptionally(e);
+            }
+        });
+        stub.setDaemon(true);
+        stub.start();
+        return framedRequest;
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "false, SUCCESS,     false", // framing not requested: text lines
+            "true,  SUCCESS,     true",  // framing requested and accepted: binary frames
+            "true,  UNSUPPORTED, false", // framing requested but not supported: falls back to text lines
+            "true,  ,            false"  // framing request left unanswered: text lines after the probe timeout
+    })
+    void testRequestOverLocalServer(boolean requestFraming, String framingAnswer, boolean expectFraming) throws Exception {
+        SecretKey key = new SecretKeySpec(new byte[16], "AES");
+        try (ServerSocket server = new ServerSocket(0)) {
+            CompletableFuture<Boolean> framedRequest = startStubServer(server, key, framingAnswer);
+
+            Client client = new Client();
+            client.setProbeTimeout(Duration.ofMillis(500));
+            client.setBinaryFramingRequested(requestFraming);
+            assertTrue(client.connect("localhost", server.getLocalPort()));
+
+            // The public key sent before the framing answer reaches the key exchange
+            Field serverKey = Client.class.getDeclaredField("serverPublicKey");
+            serverKey.setAccessible(true);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (serverKey.get(client) == null && System.currentTimeMillis() < deadline) Thread.sleep(1);
+            assertNotNull(serverKey.get(client));
+            client.saveToken(key);
+
+            List<Patient> patients = client.getPatientsFromDoctor(7);
+
+            assertEquals(expectFraming, client.isBinaryFraming());
+            assertEquals(1, patients.size());
+            assertEquals(70, patients.get(0).getId());
+            assertEquals(expectFraming, framedRequest.get(5, java.util.concurrent.TimeUnit.SECONDS));
+            client.stopClient(true);
+        }
+    }
+
     @Test
     void testGetPatientsFromDoctorSuccess() throws Exception {
 
@@ -279,6 +461,7 @@ public class ClientTest {
         User fakeUser = new User(1, "doctor@mail.com", "123", "Doctor");
         setField(client, "user", fakeUser);
 
+        setField(client, "token", new SecretKeySpec(new byte[16], "AES"));
         client.connect("localhost", 9009);
 
         Patient p1 = new Patient();
@@ -292,7 +475,7 @@ public class ClientTest {
                         "\"patients\":[" + p1.toJason() + "," + p2.toJason() + "]}"
         ).getAsJsonObject());
 
-        setField(client, "responseQueue", q);
+        respondWhenRequested(client, q);
 
         List<Patient> patients = client.getPatientsFromDoctor(5);
 
@@ -302,6 +485,91 @@ public class ClientTest {
     }
 
 
+    @Test
+    void testConcurrentRequestsAreRoutedByRequestId() throws Exception {
+
+        Client client = spy(new Client());
+
+        doReturn(socket).when(client).createSocket(anyString(), anyInt());
+        when(socket.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+        when(socket.getInputStream()).thenReturn(new ByteArrayInputStream("".getBytes()));
+
+        setField(client, "token", new SecretKeySpec(new byte[16], "AES"));
+        client.connect("localhost", 9009);
+
+        Field f = Client.class.getDeclaredField("pendingRequests");
+        f.setAccessible(true);
+        PendingRequests pending = (PendingRequests) f.get(client);
+
+        java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(2);
+        java.util.concurrent.Future<List<Patient>> first = pool.submit(() -> client.getPatientsFromDoctor(5));
+        java.util.concurrent.Future<List<Patient>> second = pool.submit(() -> client.getPatientsFromDoctor(5));
+        while (pending.size() < 2) Thread.sleep(1);
+
+        // Answer in reverse order; each response carries the id of the request it belongs to
+        for (long requestId = 2; requestId >= 1; requestId--) {
+            Patient p = new Patient();
+            p.setId((int) requestId * 100);
+            JsonObject response = JsonParser.parseString(
+                    "{ \"type\":\"REQUEST_PATIENTS_FROM_DOCTOR_RESPONSE\", \"status\":\"SUCCESS\", " +
+                            "\"request_id\":" + requestId + ", \"patients\":[" + p.toJason() + "]}"
+            ).getAsJsonObject();
+            assertTrue(pending.complete(response));
+        }
+
+        int a = first.get(2, java.util.concurrent.TimeUnit.SECONDS).get(0).getId();
+        int b = second.get(2, java.util.concurrent.TimeUnit.SECONDS).get(0).getId();
+        assertNotEquals(a, b);
+        assertEquals(300, a + b);
+        assertEquals(0, pending.size());
+        pool.shutdownNow();
+    }
+
+    @Test
+    void testAsyncRequestTimesOut() throws Exception {
+
+        Client client = spy(new Client());
+
+        doReturn(socket).when(client).createSocket(anyString(), anyInt());
+        when(socket.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+        when(socket.getInputStream()).thenReturn(new ByteArrayInputStream("".getBytes()));
+
+        setField(client, "token", new SecretKeySpec(new byte[16], "AES"));
+        client.connect("localhost", 9009);
+        client.setRequestTimeout(java.time.Duration.ofMillis(50));
+
+        java.util.concurrent.CompletableFuture<List<Patient>> future = client.getPatientsFromDoctorAsync(5);
+
+        java.util.concurrent.ExecutionException ex = assertThrows(java.util.concurrent.ExecutionException.class,
+                () -> future.get(2, java.util.concurrent.TimeUnit.SECONDS));
+        assertInstanceOf(java.util.concurrent.TimeoutException.class, ex.getCause());
+        assertThrows(IOException.class, () -> client.getPatientsFromDoctor(5));
+    }
+
+    @Test
+    void testSignalRequestUsesTheBulkTimeout() throws Exception {
+
+        Client client = spy(new Client());
+
+        doReturn(socket).when(client).createSocket(anyString(), anyInt());
+        when(socket.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+        when(socket.getInputStream()).thenReturn(new ByteArrayInputStream("".getBytes()));
+
+        setField(client, "token", new SecretKeySpec(new byte[16], "AES"));
+        client.connect("localhost", 9009);
+        client.setRequestTimeout(java.time.Duration.ofMillis(50));
+        client.setBulkRequestTimeout(java.time.Duration.ofMillis(500));
+
+        java.util.concurrent.CompletableFuture<Signal> future = client.getSignalFromIdAsync(7);
+
+        // Still waiting after the timeout of the other requests
+        Thread.sleep(200);
+        assertFalse(future.isDone());
+        java.util.concurrent.ExecutionException ex = assertThrows(java.util.concurrent.ExecutionException.class,
+                () -> future.get(2, java.util.concurrent.TimeUnit.SECONDS));
+        assertInstanceOf(java.util.concurrent.TimeoutException.class, ex.getCause());
+    }
+
     @Test
     void testGetPatientsFromDoctorError() throws Exception {
 
@@ -314,6 +582,7 @@ public class ClientTest {
         User fakeUser = new User(1, "doctor@mail.com", "123", "Doctor");
         setField(client, "user", fakeUser);
 
+        setField(client, "token", new SecretKeySpec(new byte[16], "AES"));
         client.connect("localhost", 9009);
 
         BlockingQueue<JsonObject> q = new LinkedBlockingQueue<>();
@@ -321,7 +590,7 @@ public class ClientTest {
                 "{ \"type\":\"REQUEST_PATIENTS_FROM_DOCTOR_RESPONSE\", \"status\":\"ERROR\", \"message\":\"Not authorized\"}"
         ).getAsJsonObject());
 
-        setField(client, "responseQueue", q);
+        respondWhenRequested(client, q);
 
         assertThrows(ClientServerCommunicationError.class,
                 () -> client.getPatientsFromDoctor(5));
@@ -340,6 +609,7 @@ public class ClientTest {
         User fakeUser = new User(1, "doctor@mail.com", "123", "Doctor");
         setField(client, "user", fakeUser);
 
+        setField(client, "token", new SecretKeySpec(new byte[16], "AES"));
         client.connect("localhost", 9009);
 
         Signal s = new Signal();
@@ -351,7 +621,7 @@ public class ClientTest {
                 "{ \"type\":\"SAVE_COMMENTS_SIGNAL_RESPONSE\", \"status\":\"SUCCESS\"}"
         ).getAsJsonObject());
 
-        setField(client, "responseQueue", q);
+        respondWhenRequested(client, q);
 
         assertDoesNotThrow(() -> client.saveComments(5, s));
     }
@@ -369,6 +639,7 @@ public class ClientTest {
         User fakeUser = new User(1, "doctor@mail.com", "123", "Doctor");
         setField(client, "user", fakeUser);
 
+        setField(client, "token", new SecretKeySpec(new byte[16], "AES"));
         client.connect("localhost", 9009);
 
         Signal s = new Signal();
@@ -380,7 +651,7 @@ public class ClientTest {
                 "{ \"type\":\"SAVE_COMMENTS_SIGNAL_RESPONSE\", \"status\":\"ERROR\", \"message\":\"DB fail\"}"
         ).getAsJsonObject());
 
-        setField(client, "responseQueue", q);
+        respondWhenRequested(client, q);
 
         assertThrows(ClientServerCommunicationError.class,
                 () -> client.saveComments(5, s));
@@ -402,6 +673,7 @@ public class ClientTest {
         User fakeUser = new User(1, "doctor@mail.com", "123", "Doctor");
         setField(client, "user", fakeUser);
 
+        setField(client, "token", new SecretKeySpec(new byte[16], "AES"));
         client.connect("localhost", 9009);
 
         JsonObject s1 = new JsonObject();
@@ -435,7 +707,7 @@ public class ClientTest {
 
         BlockingQueue<JsonObject> q = new LinkedBlockingQueue<>();
         q.add(resp);
-        setField(client, "responseQueue", q);
+        respondWhenRequested(client, q);
 
         List<Signal> list = client.getAllSignalsFromPatient(88);
 
@@ -461,6 +733,7 @@ public class ClientTest {
         User fakeUser = new User(1, "doctor@mail.com", "123", "Doctor");
         setField(client, "user", fakeUser);
 
+        setField(client, "token", new SecretKeySpec(new byte[16], "AES"));
         client.connect("localhost", 9009);
 
         BlockingQueue<JsonObject> q = new LinkedBlockingQueue<>();
@@ -469,7 +742,7 @@ public class ClientTest {
                 "{ \"type\":\"REQUEST_PATIENT_SIGNALS_RESPONSE\", \"status\":\"ERROR\", \"message\":\"Patient not found\" }"
         ).getAsJsonObject());
 
-        setField(client, "responseQueue", q);
+        respondWhenRequested(client, q);
 
         assertThrows(ClientServerCommunicationError.class,
                 () -> client.getAllSignalsFromPatient(88));
@@ -497,14 +770,14 @@ public class ClientTest {
 
         client.connect("localhost", 9009);
 
-        // ----- create fake ZIP -----
-        File tempZip = File.createTempFile("signal77", ".zip");
-        try (FileOutputStream fos = new FileOutputStream(tempZip)) {
-            fos.write("THIS_IS_FAKE_ZIP_DATA".getBytes());
+        // ----- create ZIP with the signal CSV in memory -----
+        ByteArrayOutputStream zipBytes = new ByteArrayOutputStream();
+        try (java.util.zip.ZipOutputStream zos = new java.util.zip.ZipOutputStream(zipBytes)) {
+            zos.putNextEntry(new java.util.zip.ZipEntry("signal_77.csv"));
+            zos.write("512.0;1.5\n498.25;1.25\n".getBytes());
+            zos.closeEntry();
         }
-        String base64 = Base64.getEncoder().encodeToString(
-                java.nio.file.Files.readAllBytes(tempZip.toPath())
-        );
+        String base64 = Base64.getEncoder().encodeToString(zipBytes.toByteArray());
 
         // ----- Build JSON -----
         String json = """
@@ -525,7 +798,7 @@ public class ClientTest {
 
         BlockingQueue<JsonObject> queue = new LinkedBlockingQueue<>();
         queue.add(JsonParser.parseString(json).getAsJsonObject());
-        setField(client, "responseQueue", queue);
+        respondWhenRequested(client, queue);
 
         // ----- Call method -----
         Signal signal = client.getSignalFromId(77);
@@ -537,11 +810,279 @@ public class ClientTest {
         assertEquals(500.0, signal.getFrequency().doubleValue());// numeric comparison
         assertEquals(LocalDate.of(2025, 2, 1), signal.getDate());
 
-        assertNotNull(signal.getZipFile());
-        assertTrue(signal.getZipFile().exists());
+        // samples are decoded straight from the response, without a temp ZIP
+        assertArrayEquals(new double[]{512.0, 498.25}, signal.getEcg());
+        assertArrayEquals(new double[]{1.5, 1.25}, signal.getAcc());
+    }
+
+
+
+    // Builds an in-memory signal ZIP with two samples
+    private static byte[] signalZip() throws IOException {
+        ByteArrayOutputStream zipBytes = new ByteArrayOutputStream();
+        try (java.util.zip.ZipOutputStream zos = new java.util.zip.ZipOutputStream(zipBytes)) {
+            zos.putNextEntry(new java.util.zip.ZipEntry("signal_77.csv"));
+            zos.write("512.0;1.5\n498.25;1.25\n".getBytes());
+            zos.closeEntry();
+        }
+        return zipBytes.toByteArray();
+    }
+
+    private static JsonObject signalChunkResponse(byte[] zip, int index, int total) {
+        int from = zip.length * index / total;
+        int to = zip.length * (index + 1) / total;
+        JsonObject response = new JsonObject();
+        response.addProperty("type", "REQUEST_SIGNAL_CHUNK_RESPONSE");
+        response.addProperty("status", "SUCCESS");
+        response.addProperty("chunk_index", index);
+        response.addProperty("total_chunks", total);
+        response.addProperty("dataBytes", Base64.getEncoder().encodeToString(java.util.Arrays.copyOfRange(zip, from, to)));
+        if (index == 0) {
+            response.add("metadata", JsonParser.parseString(
+                    "{\"signal_id\":77,\"date\":\"2025-02-01\",\"comments\":\"Test signal\",\"sampling_rate\":500.0}"));
+        }
+        return response;
+    }
+
+    private Client connectedClient() throws Exception {
+        Client client = spy(new Client());
+        doReturn(socket).when(client).createSocket(anyString(), anyInt());
+        when(socket.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+        when(socket.getInputStream()).thenReturn(new ByteArrayInputStream("".getBytes()));
+        setField(client, "token", new SecretKeySpec(new byte[16], "AES"));
+        client.connect("localhost", 9009);
+        return client;
+    }
+
+    @Test
+    void testGetPatientSummariesInPagesAndDetailsOnDemand() throws Exception {
+        Client client = connectedClient();
+
+        BlockingQueue<JsonObject> queue = new LinkedBlockingQueue<>();
+        queue.add(JsonParser.parseString("{\"type\":\"REQUEST_PATIENT_SUMMARIES_RESPONSE\",\"status\":\"SUCCESS\"," +
+                "\"patients\":[{\"id\":1,\"name\":\"Ana\",\"surname\":\"Diaz\"},{\"id\":2,\"name\":\"Luis\",\"surname\":\"Gil\"}]," +
+                "\"next_cursor\":2}").getAsJsonObject());
+        queue.add(JsonParser.parseString("{\"type\":\"REQUEST_PATIENT_SUMMARIES_RESPONSE\",\"status\":\"SUCCESS\"," +
+                "\"patients\":[{\"id\":3,\"name\":\"Eva\",\"surname\":\"Sanz\"}],\"next_cursor\":null}").getAsJsonObject());
+        Patient full = new Patient();
+        full.setId(3);
+        JsonObject details = new JsonObject();
+        details.addProperty("type", "REQUEST_PATIENT_DETAILS_RESPONSE");
+        details.addProperty("status", "SUCCESS");
+        JsonObject patientJson = full.toJason();
+        patientJson.add("signals", JsonParser.parseString(
+                "[{\"id\":77,\"comments\":\"Night\",\"sampleFrequency\":1000,\"date\":\"2025-02-01\"}]"));
+        details.add("patient", patientJson);
+        queue.add(details);
+        respondWhenRequested(client, queue);
+
+        PatientPage first = client.getPatientSummariesAsync(5, 0, 2).get(5, java.util.concurrent.TimeUnit.SECONDS);
+        assertEquals(2, first.patients().size());
+        assertTrue(first.hasNext());
+        assertFalse(first.patients().get(0).isDetailsLoaded());
+        assertEquals(Boolean.TRUE, client.isPagedPatientsSupported());
+
+        PatientPage second = client.getPatientSummariesAsync(5, first.nextCursor(), 2).get(5, java.util.concurrent.TimeUnit.SECONDS);
+        assertFalse(second.hasNext());
+        Patient summary = second.patients().get(0);
+        assertEquals("Sanz", summary.getSurname());
+
+        Patient loaded = client.getPatientDetailsAsync(summary).get(5, java.util.concurrent.TimeUnit.SECONDS);
+        assertSame(summary, loaded);
+        assertTrue(loaded.isDetailsLoaded());
+        assertEquals(full.getGender(), loaded.getGender());
+        assertEquals(1, loaded.getRecordings().size());
+        assertEquals(77, loaded.getRecordings().get(0).getId());
+    }
+
+    @Test
+    void testGetPatientSummariesFallsBackToWholeList() throws Exception {
+        Client client = connectedClient();
+        Patient p1 = new Patient();
+        p1.setId(10);
+
+        BlockingQueue<JsonObject> queue = new LinkedBlockingQueue<>();
+        queue.add(JsonParser.parseString(
+                "{\"type\":\"REQUEST_PATIENT_SUMMARIES_RESPONSE\",\"status\":\"ERROR\",\"message\":\"Unknown request\"}").getAsJsonObject());
+        queue.add(JsonParser.parseString("{ \"type\":\"REQUEST_PATIENTS_FROM_DOCTOR_RESPONSE\", \"status\":\"SUCCESS\", " +
+                "\"patients\":[" + p1.toJason() + "]}").getAsJsonObject());
+        respondWhenRequested(client, queue);
+
+        PatientPage page = client.getPatientSummariesAsync(5, 0, 100).get(5, java.util.concurrent.TimeUnit.SECONDS);
+
+        assertFalse(page.hasNext());
+        assertEquals(10, page.patients().get(0).getId());
+        assertTrue(page.patients().get(0).isDetailsLoaded());
+        assertEquals(Boolean.FALSE, client.isPagedPatientsSupported());
+    }
+
+    @Test
+    void testGetPatientSummariesFallsBackWhenTheServerDoesNotAnswer() throws Exception {
+        Client client = connectedClient();
+        client.setProbeTimeout(Duration.ofMillis(200));
+        Patient p1 = new Patient();
+        p1.setId(10);
+
+        // Nothing answers REQUEST_PATIENT_SUMMARIES, only the whole list request gets a response
+        BlockingQueue<JsonObject> queue = new LinkedBlockingQueue<>();
+        queue.add(JsonParser.parseString("{ \"type\":\"REQUEST_PATIENTS_FROM_DOCTOR_RESPONSE\", \"status\":\"SUCCESS\", " +
+                "\"patients\":[" + p1.toJason() + "]}").getAsJsonObject());
+        respondWhenRequested(client, queue);
+
+        PatientPage page = client.getPatientSummariesAsync(5, 0, 100).get(5, java.util.concurrent.TimeUnit.SECONDS);
+
+        assertFalse(page.hasNext());
+        assertEquals(10, page.patients().get(0).getId());
+        assertEquals(Boolean.FALSE, client.isPagedPatientsSupported());
+    }
+
+    @Test
+    void testDownloadSignalInChunks() throws Exception {
+        Client client = connectedClient();
+        byte[] zip = signalZip();
+
+        BlockingQueue<JsonObject> queue = new LinkedBlockingQueue<>();
+        for (int i = 0; i < 3; i++) queue.add(signalChunkResponse(zip, i, 3));
+        respondWhenRequested(client, queue);
+
+        List<Integer> progress = new java.util.concurrent.CopyOnWriteArrayList<>();
+        List<Double> streamedEcg = new java.util.concurrent.CopyOnWriteArrayList<>();
+        SignalDownload download = client.downloadSignal(77, (received, total) -> progress.add(received),
+                (ecg, acc, from, to) -> {
+                    for (int i = from; i < to; i++) streamedEcg.add(ecg[i]);
+                });
+        Signal signal = download.getResult().get(5, java.util.concurrent.TimeUnit.SECONDS);
+
+        assertEquals(List.of(1, 2, 3), progress);
+        assertSame(signal, download.getMetadata().getNow(null));
+        assertEquals(List.of(512.0, 498.25), streamedEcg);
+        assertEquals(77, signal.getId());
+        assertArrayEquals(new double[]{512.0, 498.25}, signal.getEcg());
+        assertArrayEquals(new double[]{1.5, 1.25}, signal.getAcc());
+    }
+
+    @Test
+    void testDownloadSignalResumesAfterReconnect() throws Exception {
+        Client client = connectedClient();
+        setField(client, "user", new User(1, "doctor@mail.com", "123", "Doctor"));
+        client.setClientKeyPair(KeyPairGenerator.getInstance("RSA").generateKeyPair());
+        byte[] zip = signalZip();
+
+        BlockingQueue<JsonObject> first = new LinkedBlockingQueue<>();
+        first.add(signalChunkResponse(zip, 0, 2));
+        respondWhenRequested(client, first);
+
+        java.util.concurrent.CountDownLatch firstChunk = new java.util.concurrent.CountDownLatch(1);
+        SignalDownload download = client.downloadSignal(77, (received, total) -> firstChunk.countDown());
+        assertTrue(firstChunk.await(5, java.util.concurrent.TimeUnit.SECONDS));
+
+        // Connection lost while the second chunk is pending
+        Field f = Client.class.getDeclaredField("pendingRequests");
+        f.setAccessible(true);
+        PendingRequests pending = (PendingRequests) f.get(client);
+        while (pending.size() == 0) Thread.sleep(1);
+        client.stopClient(false);
+        assertFalse(download.getResult().isDone());
+        assertEquals(1, download.getChunksReceived());
+
+        // Reconnect: nothing is sent until the new token arrives and the login is restored
+        client.connect("localhost", 9009);
+        Thread.sleep(100);
+        assertEquals(0, pending.size());
+        BlockingQueue<JsonObject> second = new LinkedBlockingQueue<>();
+        second.add(JsonParser.parseString(
+                "{\"type\":\"LOGIN_RESPONSE\",\"status\":\"SUCCESS\",\"data\":{\"id\":1,\"role\":\"Doctor\"}}").getAsJsonObject());
+        // Then only the missing chunk is requested
+        second.add(signalChunkResponse(zip, 1, 2));
+        respondWhenRequested(client, second);
+        client.saveToken(new SecretKeySpec(new byte[16], "AES"));
+
+        Signal signal = download.getResult().get(5, java.util.concurrent.TimeUnit.SECONDS);
+        assertArrayEquals(new double[]{512.0, 498.25}, signal.getEcg());
+        assertEquals(2, download.getChunksReceived());
+    }
+
+    @Test
+    void testDownloadSignalFallsBackToWholeSignal() throws Exception {
+        Client client = connectedClient();
+
+        BlockingQueue<JsonObject> queue = new LinkedBlockingQueue<>();
+        queue.add(JsonParser.parseString(
+                "{\"type\":\"REQUEST_SIGNAL_CHUNK_RESPONSE\",\"status\":\"ERROR\",\"message\":\"Unknown request\"}").getAsJsonObject());
+        JsonObject whole = new JsonObject();
+        whole.addProperty("type", "REQUEST_SIGNAL_RESPONSE");
+        whole.addProperty("status", "SUCCESS");
+        whole.addProperty("dataBytes", Base64.getEncoder().encodeToString(signalZip()));
+        whole.add("metadata", JsonParser.parseString(
+                "{\"signal_id\":77,\"date\":\"2025-02-01\",\"comments\":\"Test signal\",\"sampling_rate\":500.0}"));
+        queue.add(whole);
+        respondWhenRequested(client, queue);
+
+        Signal signal = client.downloadSignal(77).getResult().get(5, java.util.concurrent.TimeUnit.SECONDS);
+
+        assertArrayEquals(new double[]{1.5, 1.25}, signal.getAcc());
+        assertEquals(Boolean.FALSE, client.isChunkedDownloadSupported());
     }
 
+    @Test
+    void testDownloadSignalRetriesFirstChunkAfterError() throws Exception {
+        Client client = connectedClient();
+        client.setChunkedDownloadSupported(true);
+        byte[] zip = signalZip();
 
+        BlockingQueue<JsonObject> queue = new LinkedBlockingQueue<>();
+        queue.add(JsonParser.parseString(
+                "{\"type\":\"REQUEST_SIGNAL_CHUNK_RESPONSE\",\"status\":\"ERROR\",\"message\":\"Database busy\"}").getAsJsonObject());
+        queue.add(signalChunkResponse(zip, 0, 1));
+        respondWhenRequested(client, queue);
+
+        Signal signal = client.downloadSignal(77).getResult().get(5, java.util.concurrent.TimeUnit.SECONDS);
+
+        // Once the server is known to support chunks, an error is retried
+        assertArrayEquals(new double[]{512.0, 498.25}, signal.getEcg());
+        assertEquals(Boolean.TRUE, client.isChunkedDownloadSupported());
+    }
+
+    @Test
+    void testDownloadSignalFallsBackWhenTheServerDoesNotAnswer() throws Exception {
+        Client client = connectedClient();
+        client.setProbeTimeout(Duration.ofMillis(200));
+
+        // Nothing answers REQUEST_SIGNAL_CHUNK, only the whole signal request gets a response
+        BlockingQueue<JsonObject> queue = new LinkedBlockingQueue<>();
+        JsonObject whole = new JsonObject();
+        whole.addProperty("type", "REQUEST_SIGNAL_RESPONSE");
+        whole.addProperty("status", "SUCCESS");
+        whole.addProperty("dataBytes", Base64.getEncoder().encodeToString(signalZip()));
+        whole.add("metadata", JsonParser.parseString(
+                "{\"signal_id\":77,\"date\":\"2025-02-01\",\"comments\":\"Test signal\",\"sampling_rate\":500.0}"));
+        queue.add(whole);
+        respondWhenRequested(client, queue);
+
+        Signal signal = client.downloadSignal(77).getResult().get(5, java.util.concurrent.TimeUnit.SECONDS);
+
+        assertArrayEquals(new double[]{512.0, 498.25}, signal.getEcg());
+        assertEquals(Boolean.FALSE, client.isChunkedDownloadSupported());
+    }
+
+    @Test
+    void testRequestsFailAtOnceWhenTheyCannotBeSent() throws Exception {
+        Client client = connectedClient();
+        setField(client, "token", null);
+
+        // No session token: the request is never sent
+        CompletableFuture<List<Patient>> noToken = client.getPatientsFromDoctorAsync(5);
+        java.util.concurrent.ExecutionException error = assertThrows(java.util.concurrent.ExecutionException.class,
+                () -> noToken.get(1, java.util.concurrent.TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, error.getCause());
+
+        // Stopped client
+        client.stopClient(false);
+        CompletableFuture<Signal> stopped = client.getSignalFromIdAsync(77);
+        error = assertThrows(java.util.concurrent.ExecutionException.class,
+                () -> stopped.get(1, java.util.concurrent.TimeUnit.SECONDS));
+        assertInstanceOf(ClientServerCommunicationError.class, error.getCause());
+    }
 
     @Test
     void testGetSignalByIdError() throws Exception {
@@ -558,6 +1099,7 @@ public class ClientTest {
         User fakeUser = new User(1, "doctor@mail.com", "1234", "Doctor");
         setField(client, "user", fakeUser);
 
+        setField(client, "token", new SecretKeySpec(new byte[16], "AES"));
         client.connect("localhost", 9009);
 
         BlockingQueue<JsonObject> q = new LinkedBlockingQueue<>();
@@ -567,7 +1109,7 @@ public class ClientTest {
                         "\"status\":\"ERROR\", \"message\":\"Signal not found\" }"
         ).getAsJsonObject());
 
-        setField(client, "responseQueue", q);
+        respondWhenRequested(client, q);
 
         assertThrows(ClientServerCommunicationError.class,
                 () -> client.getSignalFromId(77));
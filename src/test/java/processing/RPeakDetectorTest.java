@@ -0,0 +1,138 @@
+package processing;
+
+import org.junit.jupiter.api.*;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RPeakDetectorTest {
+
+    /**
+     * Builds an ECG with a P wave, a QRS complex and a T wave at every given R peak, over a
+     * baseline wander and some noise.
+     */
+    static double[] syntheticEcg(int frequency, int[] peaks, int length, long seed) {
+        Random random = new Random(seed);
+        double[] ecg = new double[length];
+        for (int i = 0; i < length; i++) {
+            double t = (double) i / frequency;
+            ecg[i] = 500 + 0.3 * Math.sin(2 * Math.PI * 0.2 * t) + 0.02 * random.nextGaussian();
+        }
+        for (int peak : peaks) {
+            wave(ecg, frequency, peak - 0.16 * frequency, 0.025, 0.15);
+            wave(ecg, frequency, peak - 0.025 * frequency, 0.008, -0.15);
+            wave(ecg, frequency, peak, 0.010, 1.2);
+            wave(ecg, frequency, peak + 0.03 * frequency, 0.008, -0.3);
+            wave(ecg, frequency, peak + 0.3 * frequency, 0.05, 0.35);
+        }
+        return ecg;
+    }
+
+    private static void wave(double[] ecg, int frequency, double center, double width, double amplitude) {
+        int from = Math.max(0, (int) (center - 5 * width * frequency));
+        int to = Math.min(ecg.length, (int) (center + 5 * width * frequency));
+        for (int i = from; i < to; i++) {
+            double z = (i - center) / (width * frequency);
+            ecg[i] += amplitude * Math.exp(-z * z / 2);
+        }
+    }
+
+    /** R peaks at a heart rate going from 60 to 150 bpm and back. */
+    static int[] peaks(int frequency, int seconds) {
+        int[] peaks = new int[seconds * 3];
+        int count = 0;
+        double t = 0.5;
+        while (t < seconds - 1) {
+            peaks[count++] = (int) Math.round(t * frequency);
+            double phase = Math.sin(Math.PI * t / seconds);
+            t += 60 / (60 + 90 * phase);
+        }
+        return Arrays.copyOf(peaks, count);
+    }
+
+    /** Counts the detected R peaks within {@code tolerance} samples of an expected one. */
+    private static int matches(int[] expected, HeartRateSeries series, int tolerance) {
+        int matched = 0;
+        for (int i = 0, j = 0; i < expected.length && j < series.size(); ) {
+            int difference = series.peak(j) - expected[i];
+            if (Math.abs(difference) <= tolerance) {
+                matched++;
+                i++;
+                j++;
+            } else if (difference < 0) {
+                j++;
+            } else {
+                i++;
+            }
+        }
+        return matched;
+    }
+
+    @Test
+    void testFindsEveryBeat() {
+        int frequency = 1000;
+        int[] expected = peaks(frequency, 120);
+        double[] ecg = syntheticEcg(frequency, expected, 120 * frequency, 1);
+
+        HeartRateSeries series = RPeakDetector.detect(DoubleBuffer.wrap(ecg), ecg.length, frequency);
+
+        assertEquals(expected.length, series.size());
+        assertEquals(expected.length, matches(expected, series, 5));
+        double expectedRate = 60.0 * frequency * (expected.length - 1) / (expected[expected.length - 1] - expected[0]);
+        assertEquals(expectedRate, series.meanHeartRate(), 0.5);
+    }
+
+    @Test
+    void testNoisyInvertedLeadInChunks() {
+        int frequency = 250;
+        int[] expected = peaks(frequency, 300);
+        double[] ecg = syntheticEcg(frequency, expected, 300 * frequency, 2);
+        Random random = new Random(5);
+        for (int i = 0; i < ecg.length; i++) ecg[i] = -ecg[i] + 0.1 * random.nextGaussian();
+
+        RPeakDetector detector = new RPeakDetector(frequency);
+        DoubleBuffer buffer = DoubleBuffer.wrap(ecg);
+        for (int from = 0; from < ecg.length; ) {
+            int to = Math.min(ecg.length, from + 1 + random.nextInt(5000));
+            detector.process(buffer, from, to);
+            from = to;
+        }
+        HeartRateSeries chunked = detector.finish();
+        HeartRateSeries whole = RPeakDetector.detect(buffer, ecg.length, frequency);
+
+        assertEquals(expected.length, chunked.size());
+        assertEquals(expected.length, matches(expected, chunked, 2));
+        for (int i = 0; i < whole.size(); i++) assertEquals(whole.peak(i), chunked.peak(i));
+    }
+
+    @Test
+    void testHeartRateSeries() {
+        // RR intervals of 1000, 800 and 500 ms at 500 Hz
+        HeartRateSeries series = new HeartRateSeries(500, new int[]{100, 600, 1000, 1250});
+
+        assertArrayEquals(new double[]{1000, 800, 500}, series.rrIntervals(), 1e-9);
+        assertArrayEquals(new double[]{60, 75, 120}, series.heartRates(), 1e-9);
+        assertEquals(0.2, series.time(0), 1e-9);
+        assertEquals(75, series.heartRateAt(700), 1e-9);
+        assertEquals(75, series.heartRateAt(1000), 1e-9);
+        assertTrue(Double.isNaN(series.heartRateAt(50)));
+        assertTrue(Double.isNaN(series.heartRateAt(1300)));
+        assertEquals(60.0 * 3 / 2.3, series.meanHeartRate(), 1e-9);
+        assertEquals(Math.sqrt((200.0 * 200 + 300 * 300) / 2), series.rmssd(), 1e-9);
+        double mean = 2300 / 3.0;
+        double variance = ((1000 - mean) * (1000 - mean) + (800 - mean) * (800 - mean) + (500 - mean) * (500 - mean)) / 3;
+        assertEquals(Math.sqrt(variance), series.sdnn(), 1e-9);
+    }
+
+    @Test
+    void testFlatSignalHasNoBeats() {
+        double[] flat = new double[10_000];
+        Arrays.fill(flat, 512);
+        HeartRateSeries series = RPeakDetector.detect(DoubleBuffer.wrap(flat), flat.length, 1000);
+        assertEquals(0, series.size());
+        assertTrue(Double.isNaN(series.meanHeartRate()));
+    }
+}
@@ -0,0 +1,65 @@
+package processing;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RunningNormalizerTest {
+
+    @Test
+    void testRunningStatisticsMatchTheWholeSignal() {
+        Random random = new Random(3);
+        double[] signal = new double[100_000];
+        for (int i = 0; i < signal.length; i++) signal[i] = 1e6 + random.nextGaussian() * 2;
+
+        RunningNormalizer normalizer = new RunningNormalizer(0);
+        for (double v : signal) normalizer.add(v);
+
+        SignalPreprocessor.Statistics expected = SignalPreprocessor.statistics(signal, 0, signal.length);
+        assertEquals(signal.length, normalizer.count());
+        assertEquals(expected.mean(), normalizer.mean(), 1e-6);
+        assertEquals(expected.min(), normalizer.min());
+        assertEquals(expected.max(), normalizer.max());
+        assertEquals(expected.scale(), normalizer.statistics().scale(), 1e-6);
+    }
+
+    @Test
+    void testSlidingBaselineFollowsADrift() {
+        // A slow ramp plus a square wave of amplitude 1
+        int n = 20_000;
+        double[] signal = new double[n];
+        for (int i = 0; i < n; i++) signal[i] = i * 0.01 + ((i / 10) % 2 == 0 ? 1 : -1);
+
+        RunningNormalizer sliding = new RunningNormalizer(20);
+        RunningNormalizer global = new RunningNormalizer(0);
+        double[] slidingOut = new double[n];
+        double[] globalOut = new double[n];
+        for (int i = 0; i < n; i++) {
+            slidingOut[i] = sliding.center(signal[i]);
+            globalOut[i] = global.center(signal[i]);
+        }
+
+        // With the sliding baseline the end of the signal stays centered, without it it drifts away
+        for (int i = n - 100; i < n; i++) {
+            assertTrue(Math.abs(slidingOut[i]) < 1.2, "sample " + i + ": " + slidingOut[i]);
+        }
+        assertTrue(globalOut[n - 1] > 50);
+    }
+
+    @Test
+    void testResetForgetsTheSamples() {
+        RunningNormalizer normalizer = new RunningNormalizer(4);
+        for (int i = 0; i < 10; i++) normalizer.add(100);
+        normalizer.reset();
+
+        assertEquals(0, normalizer.count());
+        assertSame(SignalPreprocessor.Statistics.EMPTY, normalizer.statistics());
+        // The baseline only holds the samples added since
+        normalizer.add(1);
+        assertEquals(1, normalizer.center(3));
+        assertEquals(2, normalizer.baseline());
+        assertEquals(4, normalizer.baselineWindow());
+    }
+}
@@ -0,0 +1,108 @@
+package processing;
+
+import org.junit.jupiter.api.*;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SeizureDetectorTest {
+    private static final int FREQUENCY = 250;
+    private static final int SECONDS = 30 * 60;
+
+    /** Heart rate of the synthetic recording: 70 bpm, 140 bpm in the given episodes. */
+    private static double heartRate(double t, int[][] tachycardias) {
+        for (int[] episode : tachycardias) {
+            if (t >= episode[0] && t < episode[1]) return 140;
+        }
+        return 70;
+    }
+
+    /**
+     * Builds a recording of {@value #SECONDS} s with a seizure at minute 15 (tachycardia and
+     * shaking for a minute), a walk at minute 6 (movement only) and a tachycardia at rest at
+     * minute 24.
+     */
+    private static double[][] recording() {
+        int[][] tachycardias = {{900, 960}, {1440, 1500}};
+        int[][] movements = {{360, 420}, {900, 960}};
+        int[] peaks = new int[SECONDS * 3];
+        int count = 0;
+        for (double t = 0.5; t < SECONDS - 1; t += 60 / heartRate(t, tachycardias)) {
+            peaks[count++] = (int) Math.round(t * FREQUENCY);
+        }
+        double[] ecg = RPeakDetectorTest.syntheticEcg(FREQUENCY, Arrays.copyOf(peaks, count), SECONDS * FREQUENCY, 4);
+
+        Random random = new Random(6);
+        double[] acc = new double[ecg.length];
+        for (int i = 0; i < acc.length; i++) {
+            double t = (double) i / FREQUENCY;
+            acc[i] = 500 + random.nextGaussian();
+            for (int[] movement : movements) {
+                if (t >= movement[0] && t < movement[1]) acc[i] += 40 * Math.sin(2 * Math.PI * 3 * t);
+            }
+        }
+        return new double[][]{ecg, acc};
+    }
+
+    @Test
+    void testFlagsOnlyTheSeizure() {
+        double[][] recording = recording();
+        SignalAnalysis.Result result = SignalAnalysis.analyze(DoubleBuffer.wrap(recording[0]),
+                DoubleBuffer.wrap(recording[1]), recording[0].length, FREQUENCY);
+
+        EventIndex events = result.seizureCandidates();
+        assertEquals(1, events.size());
+        assertTrue(Math.abs(events.start(0) - 900 * FREQUENCY) <= 5 * FREQUENCY, "start " + events.start(0));
+        assertTrue(Math.abs(events.end(0) - 960 * FREQUENCY) <= 5 * FREQUENCY, "end " + events.end(0));
+        assertTrue(events.score(0) >= 1);
+        assertEquals(70, result.heartRate().heartRateAt(300 * FREQUENCY), 1);
+    }
+
+    @Test
+    void testChunksGiveTheSameEvents() {
+        double[][] recording = recording();
+        SeizureDetector detector = new SeizureDetector(FREQUENCY);
+        Random random = new Random(8);
+        for (int from = 0; from < recording[0].length; ) {
+            int to = Math.min(recording[0].length, from + 1 + random.nextInt(3 * FREQUENCY));
+            detector.process(recording[0], recording[1], from, to);
+            from = to;
+        }
+        EventIndex chunked = detector.finish();
+        EventIndex whole = SignalAnalysis.analyze(DoubleBuffer.wrap(recording[0]),
+                DoubleBuffer.wrap(recording[1]), recording[0].length, FREQUENCY).seizureCandidates();
+
+        assertEquals(whole.size(), chunked.size());
+        for (int i = 0; i < whole.size(); i++) {
+            assertEquals(whole.start(i), chunked.start(i));
+            assertEquals(whole.end(i), chunked.end(i));
+            assertEquals(whole.score(i), chunked.score(i), 1e-9);
+        }
+    }
+
+    @Test
+    void testEventIndexNavigation() {
+        EventIndex events = new EventIndex.Builder()
+                .add(100, 200, 1.5)
+                .add(500, 700, 3)
+                .add(500, 600, 2)
+                .add(900, 950, 3)
+                .build();
+
+        assertEquals(0, events.next(0));
+        assertEquals(1, events.next(100));
+        assertEquals(1, events.next(499));
+        assertEquals(3, events.next(500));
+        assertEquals(-1, events.next(900));
+        assertEquals(-1, events.previous(100));
+        assertEquals(0, events.previous(101));
+        assertEquals(0, events.previous(500));
+        assertEquals(2, events.previous(900));
+        assertArrayEquals(new int[]{1, 3, 2, 0}, events.byScore());
+        assertThrows(IllegalArgumentException.class, () -> new EventIndex.Builder().add(10, 20, 1).add(5, 30, 1));
+        assertEquals(0, new EventIndex.Builder().build().size());
+    }
+}
@@ -0,0 +1,72 @@
+package processing;
+
+import org.junit.jupiter.api.*;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SignalPreprocessorTest {
+
+    private static double[] randomSignal(int n) {
+        Random random = new Random(7);
+        double[] signal = new double[n];
+        for (int i = 0; i < n; i++) {
+            signal[i] = 500 + random.nextGaussian() * 120;
+        }
+        return signal;
+    }
+
+    @Test
+    void testParallelStatisticsMatchASequentialPass() {
+        double[] signal = randomSignal(3 * SignalPreprocessor.PARALLEL_THRESHOLD + 123);
+        double sum = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (double v : signal) {
+            sum += v;
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+        }
+
+        SignalPreprocessor.Statistics onArray = SignalPreprocessor.statistics(signal, 0, signal.length);
+        // Same samples in a direct buffer, like a recording mapped from the cache
+        DoubleBuffer direct = ByteBuffer.allocateDirect(signal.length * Double.BYTES).asDoubleBuffer();
+        direct.put(signal);
+        SignalPreprocessor.Statistics onBuffer = SignalPreprocessor.statistics(direct, 0, signal.length);
+
+        for (SignalPreprocessor.Statistics stats : new SignalPreprocessor.Statistics[]{onArray, onBuffer}) {
+            assertEquals(signal.length, stats.count());
+            assertEquals(sum, stats.sum(), Math.abs(sum) * 1e-12);
+            assertEquals(min, stats.min());
+            assertEquals(max, stats.max());
+        }
+        assertEquals(SignalPreprocessor.Statistics.EMPTY, SignalPreprocessor.statistics(signal, 5, 5));
+    }
+
+    @Test
+    void testNormalizeInPlaceAndIntoABuffer() {
+        double[] signal = randomSignal(SignalPreprocessor.PARALLEL_THRESHOLD * 2 + 7);
+        double mean = 0;
+        for (double v : signal) mean += v;
+        mean /= signal.length;
+        double maxAbs = 0;
+        for (double v : signal) maxAbs = Math.max(maxAbs, Math.abs(v - mean));
+
+        double[] buffer = new double[signal.length + 10];
+        assertSame(buffer, SignalPreprocessor.normalize(signal, buffer));
+        double[] copy = signal.clone();
+        assertSame(copy, SignalPreprocessor.normalize(copy, copy));
+        for (int i = 0; i < signal.length; i++) {
+            double expected = (signal[i] - mean) / maxAbs;
+            assertEquals(expected, buffer[i], 1e-9);
+            assertEquals(buffer[i], copy[i]);
+        }
+
+        // A constant signal is only centered
+        double[] constant = SignalPreprocessor.normalize(new double[]{3, 3, 3}, null);
+        assertArrayEquals(new double[]{0, 0, 0}, constant);
+    }
+}
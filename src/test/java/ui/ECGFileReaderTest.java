@@ -0,0 +1,119 @@
+package ui;
+
+import org.junit.jupiter.api.*;
+import pojos.Signal;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ECGFileReaderTest {
+
+    /**
+     * Copy of the original String.split based reader, kept as the reference output.
+     */
+    private static Signal legacyReadSignalFromCsv(File csvFile, int freq) throws IOException {
+        List<Double> ecgList = new ArrayList<>();
+        List<Double> accMagnitude = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new FileReader(csvFile))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] parts = line.split(";");
+                if (parts.length > 4) continue;
+                ecgList.add(Double.parseDouble(parts[0]));
+                accMagnitude.add(Double.parseDouble(parts[1]));
+            }
+        }
+        Signal s = new Signal();
+        s.setEcg(ecgList.stream().mapToDouble(Double::doubleValue).toArray());
+        s.setAcc(accMagnitude.stream().mapToDouble(Double::doubleValue).toArray());
+        s.setFrequency(freq);
+        return s;
+    }
+
+    private static File writeCsv(String content) throws IOException {
+        File csv = File.createTempFile("signal_test_", ".csv");
+        csv.deleteOnExit();
+        try (Writer w = new OutputStreamWriter(new FileOutputStream(csv), StandardCharsets.UTF_8)) {
+            w.write(content);
+        }
+        return csv;
+    }
+
+    @Test
+    void testReadSignalFromCsvMatchesLegacyParser() throws Exception {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder();
+        // header-like line with more than four fields is skipped by both parsers
+        sb.append("1;2;3;4;5\n");
+        for (int i = 0; i < 50_000; i++) {
+            double ecg = 500 + random.nextGaussian() * 120;
+            double acc = random.nextDouble() * 4 - 2;
+            switch (i % 5) {
+                case 0 -> sb.append(ecg).append(';').append(acc);
+                case 1 -> sb.append((int) ecg).append(';').append(String.format("%.4f", acc).replace(',', '.'));
+                case 2 -> sb.append(ecg).append(';').append(acc).append(";0.1;0.2");
+                case 3 -> sb.append(' ').append(ecg * 1e-7).append(" ;").append(acc * 1e25);
+                default -> sb.append(-ecg).append(';').append(acc).append("\r");
+            }
+            sb.append('\n');
+        }
+        File csv = writeCsv(sb.toString());
+
+        Signal expected = legacyReadSignalFromCsv(csv, 1000);
+        Signal actual = ECGFileReader.readSignalFromCsv(csv, 1000);
+
+        assertEquals(expected.getFrequency(), actual.getFrequency());
+        assertArrayEquals(expected.getEcg(), actual.getEcg());
+        assertArrayEquals(expected.getAcc(), actual.getAcc());
+    }
+
+    @Test
+    void testReadSignalFromCsvWithoutTrailingNewline() throws Exception {
+        File csv = writeCsv("1.5;2.5\n-3;4e2");
+
+        Signal signal = ECGFileReader.readSignalFromCsv(csv, 100);
+
+        assertArrayEquals(new double[]{1.5, -3}, signal.getEcg());
+        assertArrayEquals(new double[]{2.5, 400}, signal.getAcc());
+        assertEquals(100, signal.getFrequency());
+    }
+
+    @Test
+    void testReadSignalFromZipInMemory() throws Exception {
+        ByteArrayOutputStream zipBytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(zipBytes)) {
+            zos.putNextEntry(new ZipEntry("metadata.txt"));
+            zos.write("not a signal".getBytes(StandardCharsets.UTF_8));
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry("signal.csv"));
+            zos.write("10;0.5\n20;0.25\n30;0.125\n".getBytes(StandardCharsets.UTF_8));
+            zos.closeEntry();
+        }
+
+        Signal signal = ECGFileReader.readSignalFromZip(new ByteArrayInputStream(zipBytes.toByteArray()), 500);
+
+        assertArrayEquals(new double[]{10, 20, 30}, signal.getEcg());
+        assertArrayEquals(new double[]{0.5, 0.25, 0.125}, signal.getAcc());
+        assertEquals(500, signal.getFrequency());
+    }
+
+    @Test
+    void testParseDoubleMatchesDoubleParseDouble() {
+        String[] values = {"0", "-0", "0.0", "+1", "123.456", ".5", "5.", "1e-5", "1E+10",
+                "12345678901234567890", "0.1234567890123456789", "4.9e-324", "1.7976931348623157E308",
+                "NaN", "-Infinity", "3.0d"};
+        for (String v : values) {
+            byte[] bytes = v.getBytes(StandardCharsets.US_ASCII);
+            assertEquals(Double.parseDouble(v), SignalCsvParser.parseDouble(bytes, 0, bytes.length), v);
+        }
+        byte[] invalid = "abc".getBytes(StandardCharsets.US_ASCII);
+        assertThrows(NumberFormatException.class, () -> SignalCsvParser.parseDouble(invalid, 0, invalid.length));
+    }
+}
@@ -0,0 +1,114 @@
+package ui;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import pojos.Signal;
+
+import java.nio.DoubleBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecordingCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private static Signal signal(int id, int samples) {
+        Random random = new Random(id);
+        Signal signal = new Signal();
+        signal.setId(id);
+        signal.setFrequency(100);
+        double[] ecg = new double[samples];
+        double[] acc = new double[samples];
+        for (int i = 0; i < samples; i++) {
+            ecg[i] = 512 + random.nextGaussian() * 100;
+            acc[i] = random.nextDouble();
+        }
+        signal.setEcg(ecg);
+        signal.setAcc(acc);
+        return signal;
+    }
+
+    private static double[] toArray(DoubleBuffer buffer) {
+        double[] values = new double[buffer.limit()];
+        buffer.get(0, values);
+        return values;
+    }
+
+    @Test
+    void testOpenReturnsTheStoredSamplesAndStatistics() throws Exception {
+        RecordingCache cache = new RecordingCache(directory, RecordingCache.DEFAULT_MAX_BYTES);
+        Signal signal = signal(7, 10_000);
+        cache.put(signal);
+
+        // A new instance finds the recordings stored by a previous one
+        Optional<RecordingCache.CachedRecording> cached = new RecordingCache(directory, RecordingCache.DEFAULT_MAX_BYTES).open(7);
+
+        assertTrue(cached.isPresent());
+        RecordingCache.CachedRecording recording = cached.get();
+        assertEquals(100, recording.frequency());
+        assertEquals(32, recording.contentHash().length);
+        assertArrayEquals(signal.getEcg(), toArray(recording.ecg().samples()));
+        assertArrayEquals(signal.getAcc(), toArray(recording.acc().samples()));
+        double sum = 0;
+        for (double v : signal.getEcg()) sum += v;
+        assertEquals(sum, recording.ecg().sum());
+        assertEquals(java.util.Arrays.stream(signal.getAcc()).max().getAsDouble(), recording.acc().max());
+        assertFalse(cache.open(8).isPresent());
+    }
+
+    @Test
+    void testCorruptedSamplesAreDiscarded() throws Exception {
+        RecordingCache cache = new RecordingCache(directory, RecordingCache.DEFAULT_MAX_BYTES);
+        cache.put(signal(4, 1000));
+        cache.put(signal(5, 1000));
+        Path file = directory.resolve("signal-5.rec");
+        byte[] content = Files.readAllBytes(file);
+        content[RecordingCache.HEADER_BYTES + 800] ^= 1;
+        Files.write(file, content);
+
+        // The header is intact: the recording opens, and the check in the background finds the change
+        assertTrue(cache.open(5).isPresent());
+        assertFalse(cache.verify(5).get(5, TimeUnit.SECONDS));
+        assertFalse(cache.contains(5));
+        assertFalse(Files.exists(file));
+
+        assertTrue(cache.open(4).isPresent());
+        assertTrue(cache.verify(4).get(5, TimeUnit.SECONDS));
+        assertTrue(cache.contains(4));
+    }
+
+    @Test
+    void testLeastRecentlyOpenedRecordingIsEvicted() throws Exception {
+        long recordingBytes = RecordingCache.HEADER_BYTES + 2L * 1000 * Double.BYTES;
+        RecordingCache cache = new RecordingCache(directory, 2 * recordingBytes);
+        cache.put(signal(1, 1000));
+        cache.put(signal(2, 1000));
+        assertTrue(cache.open(1).isPresent());
+
+        cache.put(signal(3, 1000));
+
+        assertTrue(cache.contains(1));
+        assertFalse(cache.contains(2));
+        assertTrue(cache.contains(3));
+        assertEquals(2 * recordingBytes, cache.getTotalBytes());
+    }
+
+    @Test
+    void testTruncatedFileIsDiscarded() throws Exception {
+        RecordingCache cache = new RecordingCache(directory, RecordingCache.DEFAULT_MAX_BYTES);
+        cache.put(signal(5, 1000));
+        Path file = directory.resolve("signal-5.rec");
+        byte[] content = Files.readAllBytes(file);
+        Files.write(file, java.util.Arrays.copyOf(content, content.length - 8));
+
+        assertFalse(cache.open(5).isPresent());
+        assertFalse(cache.contains(5));
+        assertFalse(Files.exists(file));
+    }
+}
@@ -0,0 +1,62 @@
+package ui.components;
+
+import org.junit.jupiter.api.*;
+
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchListModelTest {
+
+    @Test
+    void testReplaceFilterAndAppendFireOneEventEach() {
+        List<String> events = new ArrayList<>();
+        BatchListModel<Integer> model = new BatchListModel<>();
+        model.addListDataListener(new ListDataListener() {
+            @Override
+            public void intervalAdded(ListDataEvent e) {
+                events.add("added " + e.getIndex0() + "-" + e.getIndex1());
+            }
+
+            @Override
+            public void intervalRemoved(ListDataEvent e) {
+                events.add("removed " + e.getIndex0() + "-" + e.getIndex1());
+            }
+
+            @Override
+            public void contentsChanged(ListDataEvent e) {
+                events.add("changed");
+            }
+        });
+
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) list.add(i);
+        model.setElements(list);
+        assertEquals(List.of("added 0-9999"), events);
+
+        events.clear();
+        model.showIndexes(new int[]{42, 7});
+        assertEquals(List.of("removed 0-9999", "added 0-1"), events);
+        assertEquals(2, model.getSize());
+        assertEquals(42, model.getElementAt(0));
+        assertEquals(7, model.getElementAt(1));
+        assertTrue(model.isFiltered());
+
+        // New elements are not shown while filtered, and all of them are shown afterwards
+        events.clear();
+        list.addAll(List.of(10_000, 10_001));
+        model.elementsAppended();
+        assertEquals(List.of(), events);
+        model.showAll();
+        assertEquals(10_002, model.getSize());
+
+        events.clear();
+        list.add(10_002);
+        model.elementsAppended();
+        assertEquals(List.of("added 10002-10002"), events);
+        assertEquals(10_002, model.getElementAt(10_002));
+    }
+}
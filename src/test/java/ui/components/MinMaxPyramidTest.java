@@ -0,0 +1,92 @@
+package ui.components;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MinMaxPyramidTest {
+
+    private static double[] randomSignal(int n) {
+        Random random = new Random(42);
+        double[] signal = new double[n];
+        for (int i = 0; i < n; i++) {
+            signal[i] = Math.round(random.nextGaussian() * 1000) / 8.0; // exact as float
+        }
+        return signal;
+    }
+
+    @Test
+    void testDecimateKeepsTheExtremesOfEveryRange() {
+        double[] signal = randomSignal(1_000_003);
+        MinMaxPyramid pyramid = new MinMaxPyramid();
+        // Appended in uneven blocks, as while a recording is downloading
+        for (int from = 0; from < signal.length; from += 77_777) {
+            pyramid.append(signal, from, Math.min(from + 77_777, signal.length));
+        }
+        assertEquals(signal.length, pyramid.length());
+
+        int columns = 500;
+        double[] xs = new double[2 * columns];
+        double[] ys = new double[2 * columns];
+        int[][] ranges = {{0, signal.length}, {12_345, 812_346}, {999_000, 1_000_003}, {5, 20_000}, {100, 1100}};
+        for (int[] range : ranges) {
+            int points = pyramid.decimate(signal, range[0], range[1], columns, xs, ys);
+            assertTrue(points <= 2 * columns);
+
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = range[0]; i < range[1]; i++) {
+                min = Math.min(min, signal[i]);
+                max = Math.max(max, signal[i]);
+            }
+            double decimatedMin = Double.POSITIVE_INFINITY;
+            double decimatedMax = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < points; i++) {
+                assertTrue(xs[i] >= range[0] && xs[i] < range[1]);
+                if (i > 0) assertTrue(xs[i] >= xs[i - 1]);
+                decimatedMin = Math.min(decimatedMin, ys[i]);
+                decimatedMax = Math.max(decimatedMax, ys[i]);
+            }
+            // Bucket edges may include a few samples just outside the range, never lose a peak
+            assertTrue(decimatedMin <= min && decimatedMax >= max);
+        }
+    }
+
+    @Test
+    void testDecimateReturnsSamplesThatFitInTheColumns() {
+        double[] signal = randomSignal(100);
+        MinMaxPyramid pyramid = new MinMaxPyramid();
+        pyramid.append(signal, 0, signal.length);
+
+        double[] xs = new double[200];
+        double[] ys = new double[200];
+        int points = pyramid.decimate(signal, 10, 60, 100, xs, ys);
+
+        assertEquals(50, points);
+        for (int i = 0; i < points; i++) {
+            assertEquals(10 + i, xs[i]);
+            assertEquals(signal[10 + i], ys[i]);
+        }
+    }
+
+    @Test
+    void testParallelBuildMatchesAppend() {
+        double[] signal = randomSignal(3_000_017);
+        MinMaxPyramid appended = new MinMaxPyramid();
+        appended.append(signal, 0, signal.length);
+        MinMaxPyramid built = MinMaxPyramid.build(java.nio.DoubleBuffer.wrap(signal), signal.length);
+        assertEquals(appended.length(), built.length());
+
+        int columns = 700;
+        double[] xs1 = new double[2 * columns], ys1 = new double[2 * columns];
+        double[] xs2 = new double[2 * columns], ys2 = new double[2 * columns];
+        for (int[] range : new int[][]{{0, signal.length}, {123_456, 1_500_000}, {2_999_000, 3_000_017}}) {
+            int n1 = appended.decimate(signal, range[0], range[1], columns, xs1, ys1);
+            int n2 = built.decimate(signal, range[0], range[1], columns, xs2, ys2);
+            assertEquals(n1, n2);
+            assertArrayEquals(java.util.Arrays.copyOf(ys1, n1), java.util.Arrays.copyOf(ys2, n2));
+        }
+    }
+}
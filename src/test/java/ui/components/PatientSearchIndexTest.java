@@ -0,0 +1,77 @@
+package ui.components;
+
+import org.junit.jupiter.api.*;
+import pojos.Patient;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PatientSearchIndexTest {
+
+    private static Patient patient(int id, String name, String surname, String email) {
+        Patient p = new Patient();
+        p.setId(id);
+        p.setName(name);
+        p.setSurname(surname);
+        p.setEmail(email);
+        return p;
+    }
+
+    private static List<Integer> ids(List<Patient> patients) {
+        return patients.stream().map(Patient::getId).toList();
+    }
+
+    @Test
+    void testSearchFoldsAccentsAndCaseAndRanksSurnamesFirst() {
+        List<Patient> patients = List.of(
+                patient(1, "Marta", "Núñez", "marta@mail.com"),
+                patient(2, "Nuria", "García", "nuria.nunez@mail.com"),
+                patient(3, "Nunez", "López", "nl@mail.com"),
+                patient(4, "Pedro", "Nuñez-Ruiz", "pedro@mail.com"));
+        PatientSearchIndex index = new PatientSearchIndex(patients);
+
+        // Exact surname, then surname prefix, then name, then email
+        assertEquals(List.of(1, 4, 3, 2), ids(index.search("NUNEZ")));
+        assertEquals(List.of(2), ids(index.search("garc")));
+        assertEquals(List.of(4), ids(index.search("ruiz  pe")));
+        assertEquals(List.of(), ids(index.search("nunez xyz")));
+        assertEquals(List.of(1, 2, 3, 4), ids(index.search("  ")));
+    }
+
+    @Test
+    void testSearchMatchesALinearScanOnManyPatients() {
+        String[] names = {"Ana", "Álvaro", "Lucía", "Luis", "Eva", "José"};
+        String[] surnames = {"Gómez", "Gil", "Sánchez", "Sanz", "Díaz", "Martín"};
+        List<Patient> patients = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            String name = names[i % names.length];
+            String surname = surnames[(i / 7) % surnames.length] + (i % 100);
+            patients.add(patient(i, name, surname, "p" + i + "@nightguardian.com"));
+        }
+        PatientSearchIndex index = new PatientSearchIndex(patients);
+        assertTrue(index.covers(patients));
+        String[] texts = new String[patients.size()];
+        for (int i = 0; i < texts.length; i++) {
+            Patient p = patients.get(i);
+            String text = PatientSearchIndex.fold(p.getName() + " " + p.getSurname() + " " + p.getEmail());
+            texts[i] = " " + text.replaceAll("[^a-z0-9]", " ");
+        }
+
+        for (String query : new String[]{"san", "sanz1 lu", "alv", "gil99", "p4999"}) {
+            String[] words = PatientSearchIndex.fold(query).split(" ");
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < texts.length; i++) {
+                boolean all = true;
+                for (String w : words) {
+                    all &= texts[i].contains(" " + w);
+                }
+                if (all) expected.add(i);
+            }
+            List<Integer> actual = new ArrayList<>(ids(index.search(query)));
+            actual.sort(null);
+            assertEquals(expected, actual, query);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ui.components;
+
+import org.junit.jupiter.api.*;
+
+import java.nio.DoubleBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SecondSummaryTest {
+
+    @Test
+    void testBuildMatchesAppend() {
+        int frequency = 250;
+        Random random = new Random(9);
+        double[] signal = new double[frequency * 5000 + 77];
+        for (int i = 0; i < signal.length; i++) signal[i] = random.nextGaussian() * 100;
+
+        SecondSummary built = SecondSummary.build(DoubleBuffer.wrap(signal), signal.length, frequency);
+        SecondSummary appended = new SecondSummary(frequency);
+        for (int from = 0; from < signal.length; ) {
+            int to = Math.min(signal.length, from + 1 + random.nextInt(700));
+            appended.append(signal, from, to);
+            from = to;
+        }
+
+        assertEquals(5001, built.seconds());
+        assertEquals(signal.length, built.length());
+        assertEquals(built.seconds(), appended.seconds());
+        for (int s = 0; s < built.seconds(); s++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = s * frequency; i < Math.min(signal.length, (s + 1) * frequency); i++) {
+                min = Math.min(min, signal[i]);
+                max = Math.max(max, signal[i]);
+            }
+            assertEquals((float) min, built.min(s));
+            assertEquals((float) max, built.max(s));
+            assertEquals(built.min(s), appended.min(s));
+            assertEquals(built.max(s), appended.max(s));
+        }
+    }
+
+    @Test
+    void testSecondsAndEnvelope() {
+        double[] signal = new double[10 * 100];
+        for (int i = 0; i < signal.length; i++) signal[i] = i / 100;
+        SecondSummary summary = SecondSummary.build(DoubleBuffer.wrap(signal), signal.length, 100);
+
+        assertEquals(3, summary.secondOf(399));
+        assertEquals(400, summary.sampleOf(4));
+
+        float[] min = new float[5];
+        float[] max = new float[5];
+        assertEquals(5, summary.envelope(5, min, max));
+        assertArrayEquals(new float[]{0, 2, 4, 6, 8}, min);
+        assertArrayEquals(new float[]{1, 3, 5, 7, 9}, max);
+        assertEquals(0, new SecondSummary(100).envelope(5, min, max));
+    }
+}
@@ -0,0 +1,37 @@
+package ui.components;
+
+import org.junit.jupiter.api.*;
+import pojos.Report;
+import pojos.SymptomType;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SymptomCalendarModelTest {
+
+    @Test
+    void testMonthGridHoldsTheSymptomsOfEveryDay() {
+        LocalDate day = LocalDate.of(2025, 3, 12);
+        SymptomCalendarModel model = new SymptomCalendarModel(List.of(
+                new Report(day, List.of(SymptomType.Fear, SymptomType.Nausea), 1, 1),
+                new Report(day, List.of(SymptomType.Anxiety, SymptomType.Fear), 1, 1),
+                new Report(LocalDate.of(2024, 3, 12), List.of(SymptomType.Fatigue), 1, 1)));
+
+        model.setMonth(YearMonth.of(2025, 3));
+        // March 2025 starts on a Saturday: the 12th is on Wednesday of the third row
+        assertNull(model.getValueAt(0, 5));
+        assertEquals(LocalDate.of(2025, 3, 1), model.getValueAt(0, 6).date());
+        SymptomCalendarModel.Day cell = model.getValueAt(2, 3);
+        assertEquals(day, cell.date());
+        assertEquals(EnumSet.of(SymptomType.Anxiety, SymptomType.Fear, SymptomType.Nausea), cell.symptoms());
+        assertTrue(model.getValueAt(2, 4).symptoms().isEmpty());
+        assertEquals(LocalDate.of(2025, 3, 31), model.getValueAt(5, 1).date());
+
+        model.setMonth(YearMonth.of(2024, 3));
+        assertEquals(EnumSet.of(SymptomType.Fatigue), model.getSymptoms(LocalDate.of(2024, 3, 12)));
+    }
+}